@@ -12,6 +12,12 @@ module fermented.dairy.microprofile.caching {
     exports org.fermented.dairy.microprofile.caching.interfaces;
     exports org.fermented.dairy.microprofile.caching.exceptions;
     exports org.fermented.dairy.microprofile.caching.providers;
+    exports org.fermented.dairy.microprofile.caching.invalidation;
+
+    uses org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata;
+
+    provides jakarta.enterprise.inject.spi.Extension with org.fermented.dairy.microprofile.caching.interceptors.CachingExtension;
 
     opens org.fermented.dairy.microprofile.caching.interceptors to org.apache.commons.lang3;
+    opens org.fermented.dairy.microprofile.caching.warming to org.apache.commons.lang3;
 }
\ No newline at end of file
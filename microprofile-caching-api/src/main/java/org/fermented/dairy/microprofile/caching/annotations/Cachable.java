@@ -1,5 +1,7 @@
 package org.fermented.dairy.microprofile.caching.annotations;
 
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -16,7 +18,7 @@ public @interface Cachable {
      * Default Time To Live (ttl) in milliseconds. The default is 5 minutes. This can be overridden by setting the config property named with the fully qualified class name suffixed with ".cache.ttl"
      * For example:
      *<pre>
-     * @Cachable(ttl = 1000L)
+     * @Cachable(defaultTtl = 1000L)
      *public class Entity(){
      *}
      *</pre>
@@ -37,4 +39,46 @@ public @interface Cachable {
      * The name of the cache provider, if left blank uses the value defined in the org.fermented.diary.caching.defaultCache property
      */
     String cacheProvider() default "";
+
+    /**
+     * Maximum time (in ms) a caller waits for a value of the same key that another caller is already loading. The default is 10 seconds.
+     */
+    long loadTimeout() default 10000L; //10 s
+
+    /**
+     * Maximum number of entries in the cache, 0 (the default) for an unbounded cache. Bounded caches evict the entries
+     * least likely to be requested again, based on how often and how recently they were requested.
+     * This can be overridden by setting the config property named with the fully qualified class name suffixed with ".cache.maximumSize"
+     */
+    long maximumSize() default 0L;
+
+    /**
+     * Time (in ms) after which a cached value is reloaded on its next request, 0 (the default) disables refreshing. The
+     * request finding the value due invokes the intercepted method again, on its own thread and in its own context; until
+     * that reload completes the current value is returned to the other requests, so only one request for a hot key waits
+     * on it. Must be less than the TTL to have an effect.
+     */
+    long refreshAfterWrite() default 0L;
+
+    /**
+     * Time (in ms) null results, and empty Optionals, are cached for. 0 (the default) does not cache null results, so
+     * every lookup of a key without a value reaches the intercepted method. Usually much shorter than the TTL, so that
+     * values created for such keys are found soon.
+     * This can be overridden by setting the config property named with the fully qualified class name suffixed with ".cache.negativeTtl"
+     */
+    long negativeTtl() default 0L;
+
+    /**
+     * Maximum number of null results, and empty Optionals, cached at once, 0 for no limit. The default is 10000.
+     * This can be overridden by setting the config property named with the fully qualified class name suffixed with ".cache.maximumNegativeSize"
+     */
+    long maximumNegativeSize() default 10000L;
+
+    /**
+     * How strongly the cache holds its values. STRONG values stay until they expire or are evicted, so they need a
+     * maximum size to bound the heap used. SOFT and WEAK values can also be collected by the GC. DEFAULT (the default)
+     * is STRONG for caches with a maximum size and SOFT for unbounded ones.
+     * This can be overridden by setting the config property named with the fully qualified class name suffixed with ".cache.valueStrength"
+     */
+    ValueStrength valueStrength() default ValueStrength.DEFAULT;
 }
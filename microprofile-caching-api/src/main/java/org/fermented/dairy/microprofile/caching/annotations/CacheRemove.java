@@ -1,5 +1,6 @@
 package org.fermented.dairy.microprofile.caching.annotations;
 
+import jakarta.enterprise.util.Nonbinding;
 import jakarta.interceptor.InterceptorBinding;
 
 import java.lang.annotation.ElementType;
@@ -12,5 +13,13 @@ import java.util.Optional;
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface CacheRemove {
+    @Nonbinding
     Class<?> cacheClass() default Object.class;
+
+    /**
+     * Whether to clear the whole cache of the cached class, on this node and the other nodes, instead of removing the
+     * entry of a key. The method then needs no cache key.
+     */
+    @Nonbinding
+    boolean allEntries() default false;
 }
@@ -1,5 +1,6 @@
 package org.fermented.dairy.microprofile.caching.annotations;
 
+import jakarta.enterprise.util.Nonbinding;
 import jakarta.interceptor.InterceptorBinding;
 
 import java.lang.annotation.ElementType;
@@ -13,5 +14,16 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface CacheRetrieve {
 
+    @Nonbinding
     Class<?> optionalWrappedClass() default Object.class;
+
+    /**
+     * Serve the elements of the Collection parameter holding the cache keys (or cached objects) as separate cache
+     * entries, invoking the method once with only the missing ones. The parameter is the single parameter of the method,
+     * or else the {@link CacheKey} annotated one. The method returns either a Map of the cached objects by key, or a
+     * Collection of them from which the keys are read. False (the default) caches the result of the method under the
+     * whole collection, like any other key.
+     */
+    @Nonbinding
+    boolean bulk() default false;
 }
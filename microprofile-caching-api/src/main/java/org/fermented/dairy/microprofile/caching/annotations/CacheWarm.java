@@ -0,0 +1,33 @@
+package org.fermented.dairy.microprofile.caching.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a CDI bean that returns the keys (a Collection) to load into a cache when the application starts.
+ * Each key is loaded by calling the {@link #loader()} method of the same bean with it, through the bean, so the
+ * {@link CacheRetrieve} interceptor caches the value just as it would for a request.
+ * For example:
+ * <pre>
+ * @CacheWarm(loader = "getById")
+ * public List&lt;Long&gt; mostRequestedIds() {
+ * }
+ *
+ * @CacheRetrieve
+ * public Entity getById(@CacheKey Long id) {
+ * }
+ * </pre>
+ * Keys are loaded in parallel, on at most org.fermented.diary.caching.warm.concurrency threads. Warming is skipped if
+ * org.fermented.diary.caching.warm.enabled is false.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheWarm {
+
+    /**
+     * The name of the public method of the bean, taking a single key, that loads the value of a key
+     */
+    String loader();
+}
@@ -5,19 +5,22 @@ import jakarta.inject.Inject;
 import jakarta.interceptor.InvocationContext;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.fermented.dairy.microprofile.caching.annotations.Cachable;
-import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
 import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
-import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata.CachedType;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.Arrays;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -39,22 +42,59 @@ public class AbstractCachingInterceptor {
     @Inject
     private Map<String, CacheProvider> cacheProviderMap;
 
-    protected <T> CacheProvider getProvider(Class<T> tClass) {
-        CacheProvider defaultProvider = cacheProviderMap.get(defaultProviderName);
-        Optional<String> providerNameOptional = determineProviderName(tClass);
-        if (providerNameOptional.isEmpty()) {
-            return defaultProvider;
-        }
-        String providerName = providerNameOptional.get();
-        if (hasKeyNotNull(cacheProviderMap, providerName)) {
-            return cacheProviderMap.get(providerName);
-        } else {
-            return defaultProvider;
+    @Inject
+    private Config config;
+
+    @Inject
+    private CachingExtension cachingExtension;
+
+    private final ClassValue<CacheDescriptor> descriptors = new ClassValue<>() {
+        @Override
+        protected CacheDescriptor computeValue(Class<?> tClass) {
+            return resolveDescriptor(tClass);
         }
+    };
+
+    /**
+     * Resolves the cache settings of the cached class, and hands its options to its provider, once per cached class.
+     * The settings of the classes indexed by the {@link CachingExtension} are resolved at deployment.
+     * @param tClass the cached class
+     * @return the resolved cache settings of the cached class
+     */
+    protected <T> CacheDescriptor getDescriptor(Class<T> tClass) {
+        return cachingExtension == null ? descriptors.get(tClass) : cachingExtension.descriptor(tClass, this::resolveDescriptor);
+    }
+
+    /**
+     * @param binding the caching annotation type of the interceptor
+     * @param method the intercepted method
+     * @return the cached class and key extractor of the method, indexed at deployment by the {@link CachingExtension}
+     */
+    protected CachedMethod getCachedMethod(Class<? extends Annotation> binding, Method method) {
+        CachedMethod cachedMethod = cachingExtension == null ? null : cachingExtension.cachedMethod(binding, method);
+        return cachedMethod == null ? CachedMethod.of(binding, method) : cachedMethod;
+    }
 
+    CacheDescriptor resolveDescriptor(Class<?> tClass) {
+        CacheOptions options = getCacheOptions(tClass);
+        CacheDescriptor descriptor = new CacheDescriptor(getProvider(tClass), getCacheName(tClass),
+                getTTL(tClass, defaultTTL), options);
+        descriptor.provider().configureCache(descriptor.cacheName(), descriptor.options());
+        return descriptor;
+    }
+
+    protected <T> CacheProvider getProvider(Class<T> tClass) {
+        CacheProvider provider = determineProviderName(tClass)
+                .map(cacheProviderMap::get)
+                .orElse(null);
+        return provider == null ? cacheProviderMap.get(defaultProviderName) : provider;
     }
 
     protected <T> Optional<String> determineProviderName(Class<T> tClass) {
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(tClass);
+        if (generated != null) {
+            return isBlank(generated.providerName()) ? Optional.empty() : Optional.of(generated.providerName());
+        }
         Cachable cachableAnnotation = tClass.getAnnotation(Cachable.class);
         if (cachableAnnotation == null || isBlank(cachableAnnotation.cacheProvider())) {
             return Optional.empty();
@@ -63,63 +103,32 @@ public class AbstractCachingInterceptor {
     }
 
     protected Object getCacheKeyFromParams(InvocationContext invocationContext, Class<?> cacheClass){
-        Method method = invocationContext.getMethod();
-        Object[] parameters =  invocationContext.getParameters();
-
-        if(method.getParameterCount() == 1) { //There is only one param, use it as the cache key
-            Object param = invocationContext.getParameters()[0];
-            if (param.getClass().equals(cacheClass)) {//Get the cache key from inside the cached class
-                return getCacheKeyFromObject(parameters[0], cacheClass);
-            }
-            return parameters[0];
-        }
-
-        for(int i = 0; i < method.getParameterCount(); i++){//Get the cache key from inside the cached class
-            Parameter param = method.getParameters()[i];
-            if(param.getType().equals(cacheClass)) {
-                return getCacheKeyFromObject(invocationContext.getParameters()[i], cacheClass);
-            }
-        }
-
-        Annotation[][] paramAnnotations = method.getParameterAnnotations();
-        for (int outerIndex = 0; outerIndex < paramAnnotations.length; outerIndex++){
-            Annotation[] annotationsForParam = paramAnnotations[outerIndex];
-            for (int innerIndex = 0; innerIndex < annotationsForParam.length; innerIndex++){
-                if (annotationsForParam[innerIndex].annotationType().equals(CacheKey.class)){
-                    return parameters[outerIndex];
-                }
-            }
-        }
-        throw new NoCacheKeyException("Could not identify the cache key for method %s in %s", method.getName(), method.getDeclaringClass());
-
+        return CacheKeyPlans.forMethod(invocationContext.getMethod(), cacheClass)
+                .extract(invocationContext.getParameters());
     }
 
-    private Object getCacheKeyFromObject(Object parameter, Class<?> cacheClass) {
-
-        Optional<Field> optionalAnnotatedField = Arrays.stream(cacheClass.getDeclaredFields()).filter(
-                field -> field.isAnnotationPresent(CacheKey.class)
-        ).findFirst();
-
-        if (optionalAnnotatedField.isPresent())
-        {
-            Field field = optionalAnnotatedField.get();
-            try {
-                Method getterMethod = cacheClass.getDeclaredMethod("get" + StringUtils.capitalize(field.getName()));
-                return getterMethod.invoke(parameter);
-            } catch (NoSuchMethodException e) {
-                throw new CacheRuntimeException(e, "Field %s does not have a getter named %s", field.getName(), "get" + StringUtils.capitalize(field.getName()));
-            } catch (InvocationTargetException | IllegalAccessException e) {
-                throw new CacheRuntimeException(e, "Could not invoke method %s", "get" + StringUtils.capitalize(field.getName()));
-            }
-        } else if (!cacheClass.getSuperclass().equals(Object.class)){
-            return getCacheKeyFromObject(parameter, cacheClass.getSuperclass());
+    /**
+     * @param params the elements of a collection parameter, cache keys or instances of the cached class
+     * @param cacheClass the cached class
+     * @return the cache keys, in the order of the elements
+     */
+    protected List<Object> getCacheKeys(Collection<?> params, Class<?> cacheClass){
+        List<Object> cacheKeys = new ArrayList<>(params.size());
+        for (Object param : params) {
+            cacheKeys.add(CacheKeyPlans.fromParameter(param, cacheClass));
         }
-
-        throw new NoCacheKeyException("No cache key found in %s (Missing CacheKey annotation)", parameter.getClass().getCanonicalName());
-
+        return cacheKeys;
     }
 
     protected <T> String getCacheName(Class<T> tClass){
+        return cacheName(tClass);
+    }
+
+    static String cacheName(Class<?> tClass) {
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(tClass);
+        if (generated != null) {
+            return generated.cacheName();
+        }
         Cachable cachableAnnotation = tClass.getAnnotation(Cachable.class);
         if(cachableAnnotation == null || StringUtils.isBlank(cachableAnnotation.cacheName())){
             return tClass.getCanonicalName();
@@ -129,6 +138,14 @@ public class AbstractCachingInterceptor {
     }
 
     protected <T> long getTTL(Class<T> tClass, long defaultTTL) {
+        Optional<Long> configuredTTL = config.getOptionalValue(tClass.getCanonicalName() + ".cache.ttl", Long.class);
+        if (configuredTTL.isPresent()) {
+            return configuredTTL.get();
+        }
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(tClass);
+        if (generated != null) {
+            return generated.ttl();
+        }
         Cachable cachableAnnotation = tClass.getAnnotation(Cachable.class);
         if(cachableAnnotation == null){
             return defaultTTL;
@@ -136,9 +153,40 @@ public class AbstractCachingInterceptor {
         return cachableAnnotation.defaultTtl();
     }
 
-    protected boolean hasKeyNotNull(Map<String, CacheProvider>  map, String key){
-        return (map.containsKey(key) && map.get(key) != null);
+    protected <T> CacheOptions getCacheOptions(Class<T> tClass) {
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(tClass);
+        Cachable cachableAnnotation = generated == null ? tClass.getAnnotation(Cachable.class) : null;
+        CacheOptions.CacheOptionsBuilder options = (generated == null ? CacheOptions.DEFAULT : generated.options()).toBuilder();
+        if(cachableAnnotation != null){
+            options.loadTimeout(cachableAnnotation.loadTimeout())
+                    .maximumSize(cachableAnnotation.maximumSize())
+                    .refreshAfterWrite(cachableAnnotation.refreshAfterWrite())
+                    .negativeTtl(cachableAnnotation.negativeTtl())
+                    .maximumNegativeSize(cachableAnnotation.maximumNegativeSize())
+                    .valueStrength(cachableAnnotation.valueStrength());
+        }
+        config.getOptionalValue(tClass.getCanonicalName() + ".cache.maximumSize", Long.class)
+                .ifPresent(options::maximumSize);
+        config.getOptionalValue(tClass.getCanonicalName() + ".cache.negativeTtl", Long.class)
+                .ifPresent(options::negativeTtl);
+        config.getOptionalValue(tClass.getCanonicalName() + ".cache.maximumNegativeSize", Long.class)
+                .ifPresent(options::maximumNegativeSize);
+        config.getOptionalValue(tClass.getCanonicalName() + ".cache.valueStrength", ValueStrength.class)
+                .ifPresent(options::valueStrength);
+        return options.build();
+    }
 
+    protected static Class<?> getReturnTypeArgument(Method method, int index) {
+        if (method.getGenericReturnType() instanceof ParameterizedType returnType) {
+            Type typeArgument = returnType.getActualTypeArguments()[index];
+            if (typeArgument instanceof ParameterizedType parameterizedTypeArgument) {
+                typeArgument = parameterizedTypeArgument.getRawType();
+            }
+            if (typeArgument instanceof Class<?> typeArgumentClass) {
+                return typeArgumentClass;
+            }
+        }
+        throw new CacheRuntimeException("Cannot determine the cached type from the return type of %s", method);
     }
 
 }
@@ -0,0 +1,39 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The resolved cache settings of a cached class: its {@link org.fermented.dairy.microprofile.caching.annotations.Cachable}
+ * annotation with the config overrides applied. Resolved once per cached class, see
+ * {@link AbstractCachingInterceptor#getDescriptor(Class)}.
+ *
+ * @param provider the provider holding the cache
+ * @param cacheName the name of the cache
+ * @param ttl the time to live (in ms) of the entries
+ * @param options the options the cache was configured with
+ * @param caches the handles on the cache, by value type, resolved on first use
+ */
+record CacheDescriptor(CacheProvider provider, String cacheName, long ttl, CacheOptions options,
+                       Map<Class<?>, Cache<Object, Object>> caches) {
+
+    CacheDescriptor(final CacheProvider provider, final String cacheName, final long ttl, final CacheOptions options) {
+        this(provider, cacheName, ttl, options, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @param valueType the class of the values read, or Object for writes
+     * @return the (cached) handle on the cache, returning values of the value type
+     */
+    @SuppressWarnings("unchecked")
+    Cache<Object, Object> cache(final Class<?> valueType) {
+        Cache<Object, Object> cache = caches.get(valueType);
+        return cache == null
+                ? caches.computeIfAbsent(valueType, type -> provider.getCache(cacheName, Object.class, (Class<Object>) type))
+                : cache;
+    }
+}
@@ -0,0 +1,14 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+/**
+ * Extracts the cache key from the parameters of an intercepted method. See {@link CacheKeyPlans}
+ */
+@FunctionalInterface
+interface CacheKeyExtractor {
+
+    /**
+     * @param parameters the parameters of the intercepted invocation
+     * @return the cache key
+     */
+    Object extract(Object[] parameters);
+}
@@ -0,0 +1,218 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Plans {@link CacheKeyExtractor}s once per intercepted method and cached class, so the reflective search for the cache key
+ * only happens on the first call of a method. Key getters are invoked through pre-built method handles. Extractors and
+ * key getters generated at compile time, see {@link GeneratedMetadata}, are used instead of planning when present.
+ */
+final class CacheKeyPlans {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Extractors per cached class, keyed by the intercepted method
+     */
+    private static final ClassValue<Map<Method, CacheKeyExtractor>> EXTRACTORS = new ClassValue<>() {
+        @Override
+        protected Map<Method, CacheKeyExtractor> computeValue(Class<?> cacheClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Accessors reading the {@link CacheKey} annotated field from an instance of the cached class
+     */
+    private static final ClassValue<UnaryOperator<Object>> OBJECT_KEY_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected UnaryOperator<Object> computeValue(Class<?> cacheClass) {
+            return planObjectKeyAccessor(cacheClass);
+        }
+    };
+
+    /**
+     * Whether the cached class, or a superclass, has a {@link CacheKey} annotated field
+     */
+    private static final ClassValue<Boolean> OBJECT_KEYS = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> cacheClass) {
+            GeneratedCacheMetadata.CachedType generated = GeneratedMetadata.INSTANCE.cachedType(cacheClass);
+            if (generated != null && generated.keyAccessor() != null) {
+                return true;
+            }
+            for (Class<?> type = cacheClass; type != null && !Object.class.equals(type); type = type.getSuperclass()) {
+                if (Arrays.stream(type.getDeclaredFields()).anyMatch(field -> field.isAnnotationPresent(CacheKey.class))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Index of the parameter holding a collection of cache keys (or cached objects) per intercepted method, -1 if none
+     */
+    private static final Map<Method, Integer> COLLECTION_KEY_PARAMETERS = new ConcurrentHashMap<>();
+
+    private CacheKeyPlans() {
+    }
+
+    /**
+     * @param method the intercepted method
+     * @param cacheClass the cached class
+     * @return the (cached) extractor for the method
+     */
+    static CacheKeyExtractor forMethod(Method method, Class<?> cacheClass) {
+        return EXTRACTORS.get(cacheClass).computeIfAbsent(method, planned -> plan(planned, cacheClass));
+    }
+
+    /**
+     * @param object an instance of the cached class
+     * @param cacheClass the cached class
+     * @return the value of the {@link CacheKey} annotated field
+     */
+    static Object fromObject(Object object, Class<?> cacheClass) {
+        return OBJECT_KEY_ACCESSORS.get(cacheClass).apply(object);
+    }
+
+    /**
+     * @param cacheClass the cached class
+     * @return whether instances of the cached class carry their cache key, see {@link #fromObject(Object, Class)}
+     */
+    static boolean hasObjectKey(Class<?> cacheClass) {
+        return OBJECT_KEYS.get(cacheClass);
+    }
+
+    /**
+     * @param param a parameter that is either the cache key or an instance of the cached class
+     * @param cacheClass the cached class
+     * @return the cache key
+     */
+    static Object fromParameter(Object param, Class<?> cacheClass) {
+        if (param != null && param.getClass().equals(cacheClass)) {//Get the cache key from inside the cached class
+            return fromObject(param, cacheClass);
+        }
+        return param;
+    }
+
+    /**
+     * @param method the intercepted method
+     * @return the index of the single {@link java.util.Collection} parameter, or else of the first {@link CacheKey}
+     * annotated one, -1 if the method has no collection of cache keys
+     */
+    static int collectionKeyParameter(Method method) {
+        return COLLECTION_KEY_PARAMETERS.computeIfAbsent(method, CacheKeyPlans::planCollectionKeyParameter);
+    }
+
+    private static int planCollectionKeyParameter(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 1) {
+            return Collection.class.isAssignableFrom(parameterTypes[0]) ? 0 : -1;
+        }
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < paramAnnotations.length; i++) {
+            if (Arrays.stream(paramAnnotations[i]).anyMatch(annotation -> annotation.annotationType().equals(CacheKey.class))) {
+                return Collection.class.isAssignableFrom(parameterTypes[i]) ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static CacheKeyExtractor plan(Method method, Class<?> cacheClass) {
+        CacheKeyExtractor generated = GeneratedMetadata.INSTANCE.keyExtractor(method, cacheClass);
+        if (generated != null) {
+            return generated;
+        }
+        if (method.getParameterCount() == 1) { //There is only one param, use it as the cache key
+            return parameters -> fromParameter(parameters[0], cacheClass);
+        }
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {//Get the cache key from inside the cached class
+            if (parameterTypes[i].equals(cacheClass) && hasObjectKey(cacheClass)) {
+                final int index = i;
+                UnaryOperator<Object> accessor = OBJECT_KEY_ACCESSORS.get(cacheClass);
+                return parameters -> accessor.apply(parameters[index]);
+            }
+        }
+
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < paramAnnotations.length; i++) {
+            if (Arrays.stream(paramAnnotations[i]).anyMatch(annotation -> annotation.annotationType().equals(CacheKey.class))) {
+                final int index = i;
+                return parameters -> parameters[index];
+            }
+        }
+
+        return parameters -> {
+            throw new NoCacheKeyException("Could not identify the cache key for method %s in %s", method.getName(), method.getDeclaringClass());
+        };
+    }
+
+    private static UnaryOperator<Object> planObjectKeyAccessor(Class<?> cacheClass) {
+        GeneratedCacheMetadata.CachedType generated = GeneratedMetadata.INSTANCE.cachedType(cacheClass);
+        if (generated != null && generated.keyAccessor() != null) {
+            return generated.keyAccessor()::apply;
+        }
+        Optional<Field> optionalAnnotatedField = Arrays.stream(cacheClass.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(CacheKey.class))
+                .findFirst();
+
+        if (optionalAnnotatedField.isEmpty()) {
+            if (cacheClass.getSuperclass() != null && !cacheClass.getSuperclass().equals(Object.class)) {
+                return OBJECT_KEY_ACCESSORS.get(cacheClass.getSuperclass());
+            }
+            return object -> {
+                throw new NoCacheKeyException("No cache key found in %s (Missing CacheKey annotation)", object.getClass().getCanonicalName());
+            };
+        }
+
+        Field field = optionalAnnotatedField.get();
+        String getterName = "get" + StringUtils.capitalize(field.getName());
+        MethodHandle getter;
+        try {
+            Method getterMethod = cacheClass.getDeclaredMethod(getterName);
+            //Reflective calls assume readability, method handles do not. Cached classes usually live in the unnamed module
+            CacheKeyPlans.class.getModule().addReads(cacheClass.getModule());
+            getter = MethodHandles.lookup().unreflect(getterMethod).asType(GETTER_TYPE);
+        } catch (NoSuchMethodException e) {
+            return object -> {
+                throw new CacheRuntimeException(e, "Field %s does not have a getter named %s", field.getName(), getterName);
+            };
+        } catch (IllegalAccessException e) {
+            return object -> {
+                throw new CacheRuntimeException(e, "Could not invoke method %s", getterName);
+            };
+        }
+
+        return object -> invokeGetter(getter, object, getterName);
+    }
+
+    private static Object invokeGetter(MethodHandle getter, Object object, String getterName) {
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CacheRuntimeException(e, "Could not invoke method %s", getterName);
+        }
+    }
+}
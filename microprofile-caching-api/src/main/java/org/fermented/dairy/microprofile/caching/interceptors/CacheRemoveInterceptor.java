@@ -2,12 +2,17 @@ package org.fermented.dairy.microprofile.caching.interceptors;
 
 import jakarta.annotation.Priority;
 import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
 import jakarta.interceptor.AroundInvoke;
 import jakarta.interceptor.Interceptor;
 import jakarta.interceptor.InvocationContext;
 import lombok.extern.java.Log;
 import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
-import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+
+import java.util.Collection;
+import java.util.List;
 
 @Dependent
 @Interceptor
@@ -16,16 +21,32 @@ import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
 @Log
 public class CacheRemoveInterceptor extends AbstractCachingInterceptor{
 
+    @Inject
+    private InvalidationBroadcaster invalidationBroadcaster;
+
     @SuppressWarnings("UnusedReturnValue")
     @AroundInvoke
     public Object doCacheRemove(final InvocationContext invocationContext) throws Exception {
         Object result = invocationContext.proceed();
 
-        CacheRemove cacheRemove = invocationContext.getMethod().getAnnotation(CacheRemove.class);
-        CacheProvider cacheProvider = getProvider(cacheRemove.cacheClass());
-        String cacheName = getCacheName(cacheRemove.cacheClass());
-        Object cacheKey = getCacheKeyFromParams(invocationContext, cacheRemove.cacheClass());
-        cacheProvider.invalidateCacheEntry(cacheKey, cacheName);
+        CachedMethod cachedMethod = getCachedMethod(CacheRemove.class, invocationContext.getMethod());
+        CacheDescriptor descriptor = getDescriptor(cachedMethod.cacheClass());
+        String cacheName = descriptor.cacheName();
+        if (cachedMethod.kind() == CachedMethod.Kind.ALL) {
+            invalidationBroadcaster.clearCache(descriptor.provider(), cacheName);
+            return result;
+        }
+        Cache<Object, Object> cache = descriptor.cache(Object.class);
+        String providerName = descriptor.provider().getProviderName();
+        Object cacheKey = cachedMethod.keyExtractor().extract(invocationContext.getParameters());
+        if (cacheKey instanceof Collection<?> cacheKeys) {
+            List<Object> keys = getCacheKeys(cacheKeys, cachedMethod.cacheClass());
+            cache.invalidateAll(keys);
+            keys.forEach(key -> invalidationBroadcaster.publish(providerName, cacheName, key));
+        } else {
+            cache.invalidate(cacheKey);
+            invalidationBroadcaster.publish(providerName, cacheName, cacheKey);
+        }
         return result;
     }
 }
@@ -0,0 +1,49 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
+
+import java.util.Optional;
+
+/**
+ * Puts the value returned by the intercepted method into the cache as the new entry of its key, replacing the current
+ * entry in place. The key is taken from the returned value if it is an instance of a cached class that carries a key,
+ * otherwise from the parameters. A null result invalidates the entry. Other nodes drop their copies through the
+ * {@link InvalidationBroadcaster}.
+ */
+@Dependent
+@Interceptor
+@Priority(Integer.MAX_VALUE)
+@CacheUpdate
+@Log
+public class CacheUpdateInterceptor extends AbstractCachingInterceptor {
+
+    @Inject
+    private InvalidationBroadcaster invalidationBroadcaster;
+
+    @AroundInvoke
+    public Object doCacheUpdate(final InvocationContext invocationContext) throws Exception {
+        CachedMethod cachedMethod = getCachedMethod(CacheUpdate.class, invocationContext.getMethod());
+        Class<?> cacheClass = cachedMethod.cacheClass();
+
+        Object result = invocationContext.proceed();
+
+        CacheDescriptor descriptor = getDescriptor(cacheClass);
+        String cacheName = descriptor.cacheName();
+        Object value = result instanceof Optional<?> optionalResult ? optionalResult.orElse(null) : result;
+        Object cacheKey = value != null && value.getClass().equals(cacheClass) && CacheKeyPlans.hasObjectKey(cacheClass)
+                ? CacheKeyPlans.fromObject(value, cacheClass)
+                : cachedMethod.keyExtractor().extract(invocationContext.getParameters());
+
+        descriptor.cache(Object.class).put(cacheKey, value, descriptor.ttl()); //Optionals are cached unwrapped
+        invalidationBroadcaster.publish(descriptor.provider().getProviderName(), cacheName, cacheKey);
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
+import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What an interceptor needs to know about an intercepted method, read from its caching annotation and signature:
+ * the cached class, how the call is served and how its cache key is extracted. Resolved for all intercepted methods at
+ * deployment by the {@link CachingExtension}, see {@link #of(Class, Method)} for methods it did not index.
+ *
+ * @param cacheClass the cached class
+ * @param valueType the type of the cached values: the (wrapped) return type, or the type of the values the returned
+ *                  stage or collection holds
+ * @param kind how the call is served
+ * @param keyExtractor extracts the cache key from the parameters, null for {@link Kind#BULK} and {@link Kind#ALL} calls
+ * @param keysParameter the index of the collection of cache keys of {@link Kind#BULK} calls, -1 otherwise
+ */
+record CachedMethod(Class<?> cacheClass, Class<?> valueType, Kind kind, CacheKeyExtractor keyExtractor, int keysParameter) {
+
+    /**
+     * Methods resolved on their first call, per caching annotation
+     */
+    private static final ClassValue<Map<Method, CachedMethod>> RESOLVED = new ClassValue<>() {
+        @Override
+        protected Map<Method, CachedMethod> computeValue(Class<?> binding) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    enum Kind {
+        /**
+         * A single value, or an Optional of it
+         */
+        VALUE,
+        /**
+         * A CompletionStage of a single value
+         */
+        ASYNC,
+        /**
+         * A Map or Collection of values, for a collection of keys, see {@link CacheRetrieve#bulk()}
+         */
+        BULK,
+        /**
+         * The whole cache, see {@link CacheRemove#allEntries()}
+         */
+        ALL
+    }
+
+    /**
+     * @return whether the method returns (a stage of) an Optional of the cached class
+     */
+    boolean optional() {
+        return Optional.class.equals(valueType);
+    }
+
+    /**
+     * @return the class of the values held by the cache: the cached class for Optionals, which are cached unwrapped so
+     * that every method of a cached class shares the same values, else the value type
+     */
+    Class<?> cachedType() {
+        return optional() ? cacheClass : valueType;
+    }
+
+    /**
+     * Resolves a method on its first call, from its own caching annotation or else the one of its declaring class
+     *
+     * @param binding the caching annotation type of the interceptor
+     * @param method the intercepted method
+     * @return the (cached) resolved method
+     */
+    static CachedMethod of(Class<? extends Annotation> binding, Method method) {
+        return RESOLVED.get(binding).computeIfAbsent(method, resolved -> {
+            Annotation annotation = resolved.getAnnotation(binding);
+            return resolve(resolved, annotation == null ? resolved.getDeclaringClass().getAnnotation(binding) : annotation);
+        });
+    }
+
+    /**
+     * @param method the intercepted method
+     * @param binding the caching annotation applying to the method
+     * @return the resolved method
+     * @throws CacheRuntimeException if the cached class cannot be determined
+     */
+    static CachedMethod resolve(Method method, Annotation binding) {
+        if (binding instanceof CacheRemove cacheRemove) {
+            if (cacheRemove.allEntries()) {
+                return new CachedMethod(cacheRemove.cacheClass(), cacheRemove.cacheClass(), Kind.ALL, null, -1);
+            }
+            return value(method, cacheRemove.cacheClass(), cacheRemove.cacheClass());
+        }
+        Class<?> returnType = method.getReturnType();
+        if (binding instanceof CacheUpdate) {
+            if (void.class.equals(returnType)) {
+                throw new CacheRuntimeException("@CacheUpdate method %s must return the new value", method);
+            }
+            return value(method, Optional.class.equals(returnType)
+                    ? AbstractCachingInterceptor.getReturnTypeArgument(method, 0)
+                    : returnType, returnType);
+        }
+        if (binding instanceof CacheRetrieve cacheRetrieve) {
+            if (cacheRetrieve.bulk()) {
+                int keysParameter = CacheKeyPlans.collectionKeyParameter(method);
+                if (keysParameter < 0 || !isBulkReturnType(returnType)) {
+                    throw new CacheRuntimeException("Bulk @CacheRetrieve method %s must take a Collection of cache keys and return a Map or Collection of the cached objects", method);
+                }
+                Class<?> cacheClass = AbstractCachingInterceptor.getReturnTypeArgument(method,
+                        Map.class.isAssignableFrom(returnType) ? 1 : 0);
+                return new CachedMethod(cacheClass, cacheClass, Kind.BULK, null, keysParameter);
+            }
+            if (CompletionStage.class.isAssignableFrom(returnType)) {
+                Class<?> valueType = AbstractCachingInterceptor.getReturnTypeArgument(method, 0);
+                Class<?> cacheClass = Optional.class.equals(valueType) ? cacheRetrieve.optionalWrappedClass() : valueType;
+                return new CachedMethod(cacheClass, valueType, Kind.ASYNC, CacheKeyPlans.forMethod(method, cacheClass), -1);
+            }
+            return value(method, Optional.class.equals(returnType) ? cacheRetrieve.optionalWrappedClass() : returnType, returnType);
+        }
+        throw new CacheRuntimeException("Method %s is not annotated with a caching annotation", method);
+    }
+
+    private static CachedMethod value(Method method, Class<?> cacheClass, Class<?> valueType) {
+        return new CachedMethod(cacheClass, ClassUtils.primitiveToWrapper(valueType), Kind.VALUE,
+                CacheKeyPlans.forMethod(method, cacheClass), -1);
+    }
+
+    private static boolean isBulkReturnType(Class<?> returnType) {
+        return returnType.isAssignableFrom(LinkedHashMap.class)
+                || returnType.isAssignableFrom(ArrayList.class)
+                || returnType.isAssignableFrom(LinkedHashSet.class);
+    }
+}
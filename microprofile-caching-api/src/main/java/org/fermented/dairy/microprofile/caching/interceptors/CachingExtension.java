@@ -0,0 +1,281 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.spi.AfterDeploymentValidation;
+import jakarta.enterprise.inject.spi.AnnotatedMethod;
+import jakarta.enterprise.inject.spi.AnnotatedType;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.enterprise.inject.spi.Extension;
+import jakarta.enterprise.inject.spi.ProcessAnnotatedType;
+import jakarta.enterprise.inject.spi.WithAnnotations;
+import jakarta.interceptor.Interceptor;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.StringUtils;
+import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
+import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata.CachedType;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Indexes the methods intercepted by the caching interceptors while the application deploys, and fails the deployment
+ * on caching annotations that could only fail on a request: a cached class without a resolvable {@link CacheKey}, a
+ * method without a cache key or an unknown cache provider.
+ * <p>
+ * Once deployed the interceptors take the cached class and key extractor of a method, and the settings of a cached
+ * class, from the index instead of reading the annotations on the first request.
+ */
+@Log
+public class CachingExtension implements Extension {
+
+    private static final List<Class<? extends Annotation>> BINDINGS = List.of(CacheRetrieve.class, CacheUpdate.class, CacheRemove.class);
+
+    /**
+     * The caching annotation of every intercepted method, per caching annotation type, until the index is built
+     */
+    private final Map<Class<? extends Annotation>, Map<Method, Annotation>> discovered = new LinkedHashMap<>();
+
+    private volatile Map<Class<? extends Annotation>, Map<Method, CachedMethod>> index = Map.of();
+
+    private final Map<Class<?>, CacheDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * The cached classes of the intercepted methods, per cache name, known before any bean is created
+     */
+    private final Map<String, Set<Class<?>>> cachedClasses = new ConcurrentHashMap<>();
+
+    <T> void discover(@Observes @WithAnnotations({CacheRetrieve.class, CacheUpdate.class, CacheRemove.class}) final ProcessAnnotatedType<T> event) {
+        AnnotatedType<T> type = event.getAnnotatedType();
+        if (type.isAnnotationPresent(Interceptor.class)) {
+            return; //The caching interceptors carry their binding, they are not intercepted
+        }
+        for (AnnotatedMethod<? super T> method : type.getMethods()) {
+            Method javaMethod = method.getJavaMember();
+            if (Modifier.isStatic(javaMethod.getModifiers()) || Modifier.isPrivate(javaMethod.getModifiers())
+                    || Object.class.equals(javaMethod.getDeclaringClass())) {
+                continue;
+            }
+            for (Class<? extends Annotation> binding : BINDINGS) {
+                Annotation annotation = method.getAnnotation(binding);
+                add(binding, javaMethod, annotation == null ? type.getAnnotation(binding) : annotation);
+            }
+        }
+    }
+
+    void validate(@Observes final AfterDeploymentValidation event, final BeanManager beanManager) {
+        Instance<Object> beans = beanManager.createInstance();
+        Set<String> providerNames = beans.select(CacheProvider.class).stream()
+                .map(CacheProvider::getProviderName)
+                .collect(Collectors.toSet());
+        AbstractCachingInterceptor resolver = beans.select(AbstractCachingInterceptor.class).get();
+        buildIndex(providerNames, resolver).forEach(event::addDeploymentProblem);
+    }
+
+    /**
+     * @param binding the caching annotation type of an interceptor
+     * @param method an intercepted method
+     * @return the indexed method, null if the method was not indexed
+     */
+    CachedMethod cachedMethod(final Class<? extends Annotation> binding, final Method method) {
+        Map<Method, CachedMethod> methods = index.get(binding);
+        return methods == null ? null : methods.get(method);
+    }
+
+    /**
+     * @param cacheClass a cached class
+     * @param resolver resolves the settings of cached classes that were not indexed
+     * @return the settings of the cached class, resolved once for all interceptors
+     */
+    CacheDescriptor descriptor(final Class<?> cacheClass, final Function<Class<?>, CacheDescriptor> resolver) {
+        CacheDescriptor descriptor = descriptors.get(cacheClass);
+        return descriptor == null ? descriptors.computeIfAbsent(cacheClass, resolver) : descriptor;
+    }
+
+    /**
+     * @param cacheName the name of a cache
+     * @return the classes cached in the cache by the intercepted methods, empty if none is
+     */
+    public Set<Class<?>> cachedClasses(final String cacheName) {
+        return Set.copyOf(cachedClasses.getOrDefault(cacheName, Set.of()));
+    }
+
+    /**
+     * Records an intercepted method
+     * @param binding the caching annotation type
+     * @param method the intercepted method
+     * @param annotation the caching annotation applying to the method, null if none does
+     */
+    void add(final Class<? extends Annotation> binding, final Method method, final Annotation annotation) {
+        if (annotation != null) {
+            discovered.computeIfAbsent(binding, ignored -> new LinkedHashMap<>()).put(method, annotation);
+            try {
+                Class<?> cacheClass = CachedMethod.resolve(method, annotation).cacheClass();
+                if (!Object.class.equals(cacheClass)) {
+                    cachedClasses.computeIfAbsent(AbstractCachingInterceptor.cacheName(cacheClass),
+                            ignored -> ConcurrentHashMap.newKeySet()).add(cacheClass);
+                }
+            } catch (CacheRuntimeException e) {
+                //Reported by buildIndex
+            }
+        }
+    }
+
+    /**
+     * Resolves the discovered methods and the settings of their cached classes, checking that every call can find its
+     * cache key and cache provider
+     * @param providerNames the names of the available cache providers
+     * @param resolver resolves the settings of the cached classes
+     * @return the problems found, empty if the index was built
+     */
+    List<CacheRuntimeException> buildIndex(final Set<String> providerNames, final AbstractCachingInterceptor resolver) {
+        List<CacheRuntimeException> problems = new ArrayList<>();
+        Map<Class<? extends Annotation>, Map<Method, CachedMethod>> built = new HashMap<>();
+        Set<Class<?>> cacheClasses = new LinkedHashSet<>();
+        discovered.forEach((binding, methods) -> {
+            Map<Method, CachedMethod> resolved = new HashMap<>();
+            methods.forEach((method, annotation) -> {
+                try {
+                    CachedMethod cachedMethod = CachedMethod.resolve(method, annotation);
+                    if (Object.class.equals(cachedMethod.cacheClass())) {
+                        throw new CacheRuntimeException("%s does not name its cached class, set the class in @%s",
+                                method, binding.getSimpleName());
+                    }
+                    checkCacheKey(method, binding, cachedMethod);
+                    resolved.put(method, cachedMethod);
+                    cacheClasses.add(cachedMethod.cacheClass());
+                } catch (CacheRuntimeException e) {
+                    problems.add(e);
+                }
+            });
+            built.put(binding, Map.copyOf(resolved));
+        });
+
+        for (Class<?> cacheClass : cacheClasses) {
+            try {
+                checkProvider(cacheClass, providerNames, resolver.getDefaultProviderName());
+                descriptor(cacheClass, resolver::resolveDescriptor);
+            } catch (CacheRuntimeException e) {
+                problems.add(e);
+            }
+        }
+        if (problems.isEmpty()) {
+            index = Map.copyOf(built);
+            discovered.clear();
+            log.fine(() -> "Indexed " + built.values().stream().mapToInt(Map::size).sum() + " cached methods of "
+                    + cacheClasses.size() + " cached classes");
+        }
+        return problems;
+    }
+
+    /**
+     * Mirrors the rules of {@link CacheKeyPlans}: a single parameter is the key, else the key is read from the parameter
+     * of the cached class if the class carries a key, else the {@link CacheKey} parameter is the key. Updates read the key
+     * from the returned object if its class carries a key, so they only need a parameter key if it does not.
+     */
+    private static void checkCacheKey(final Method method, final Class<? extends Annotation> binding, final CachedMethod cachedMethod) {
+        Class<?> cacheClass = cachedMethod.cacheClass();
+        if (cachedMethod.kind() == CachedMethod.Kind.ALL) {
+            return;
+        }
+        if (cachedMethod.kind() == CachedMethod.Kind.BULK) {
+            if (!Map.class.isAssignableFrom(method.getReturnType())) { //The keys are read from the returned objects
+                checkObjectKey(cacheClass);
+            }
+            return;
+        }
+        if (CacheUpdate.class.equals(binding)) {
+            //The key is read from the returned object if its class carries one, else from the parameters
+            if (CacheKeyPlans.hasObjectKey(cacheClass) || !hasParameterKey(method, cacheClass)) {
+                checkObjectKey(cacheClass);
+            }
+            return;
+        }
+        if (!hasParameterKey(method, cacheClass)) {
+            throw new NoCacheKeyException("Could not identify the cache key for method %s in %s", method.getName(), method.getDeclaringClass());
+        }
+    }
+
+    private static boolean hasParameterKey(final Method method, final Class<?> cacheClass) {
+        if (GeneratedMetadata.INSTANCE.keyExtractor(method, cacheClass) != null) {
+            return true;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 1) {
+            if (parameterTypes[0].equals(cacheClass)) {
+                checkObjectKey(cacheClass);
+            }
+            return true;
+        }
+        if (Arrays.asList(parameterTypes).contains(cacheClass) && CacheKeyPlans.hasObjectKey(cacheClass)) {
+            checkObjectKey(cacheClass);
+            return true;
+        }
+        return Arrays.stream(method.getParameterAnnotations())
+                .anyMatch(annotations -> Arrays.stream(annotations).anyMatch(CacheKey.class::isInstance));
+    }
+
+    /**
+     * Mirrors the rules of {@link CacheKeyPlans}: the first {@link CacheKey} field of the class or else of its closest
+     * superclass, read through its get&lt;Field&gt; getter
+     */
+    private static void checkObjectKey(final Class<?> cacheClass) {
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(cacheClass);
+        if (generated != null && generated.keyAccessor() != null) {
+            return;
+        }
+        for (Class<?> type = cacheClass; type != null && !Object.class.equals(type); type = type.getSuperclass()) {
+            Field keyField = Arrays.stream(type.getDeclaredFields())
+                    .filter(field -> field.isAnnotationPresent(CacheKey.class))
+                    .findFirst()
+                    .orElse(null);
+            if (keyField != null) {
+                String getterName = "get" + StringUtils.capitalize(keyField.getName());
+                try {
+                    type.getDeclaredMethod(getterName);
+                } catch (NoSuchMethodException e) {
+                    throw new CacheRuntimeException(e, "Field %s does not have a getter named %s", keyField.getName(), getterName);
+                }
+                return;
+            }
+        }
+        throw new NoCacheKeyException("No cache key found in %s (Missing CacheKey annotation)", cacheClass.getCanonicalName());
+    }
+
+    private static void checkProvider(final Class<?> cacheClass, final Set<String> providerNames, final String defaultProviderName) {
+        CachedType generated = GeneratedMetadata.INSTANCE.cachedType(cacheClass);
+        Cachable cachable = generated == null ? cacheClass.getAnnotation(Cachable.class) : null;
+        String providerName = generated != null ? generated.providerName() : cachable == null ? null : cachable.cacheProvider();
+        if (isBlank(providerName)) {
+            if (!providerNames.contains(defaultProviderName)) {
+                throw new CacheRuntimeException("The default cache provider %s of %s does not exist, the providers are %s",
+                        defaultProviderName, cacheClass.getCanonicalName(), providerNames);
+            }
+        } else if (!providerNames.contains(providerName)) {
+            throw new CacheRuntimeException("Unknown cache provider %s for %s, the providers are %s",
+                    providerName, cacheClass.getCanonicalName(), providerNames);
+        }
+    }
+}
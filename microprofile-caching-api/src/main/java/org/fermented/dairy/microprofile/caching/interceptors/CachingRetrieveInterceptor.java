@@ -7,6 +7,18 @@ import jakarta.interceptor.Interceptor;
 import jakarta.interceptor.InvocationContext;
 import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
 import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Dependent
 @Interceptor
@@ -17,9 +29,148 @@ public class CachingRetrieveInterceptor extends AbstractCachingInterceptor{
 
     @AroundInvoke
     public Object doCacheRetrieve(InvocationContext invocationContext) throws Exception {
-        return invocationContext.proceed();
+        CachedMethod cachedMethod = getCachedMethod(CacheRetrieve.class, invocationContext.getMethod());
+        if (cachedMethod.kind() == CachedMethod.Kind.ASYNC) {
+            return doAsyncCacheRetrieve(invocationContext, cachedMethod);
+        }
+        if (cachedMethod.kind() == CachedMethod.Kind.BULK) {
+            return doBulkCacheRetrieve(invocationContext, cachedMethod);
+        }
+        CacheDescriptor descriptor = getDescriptor(cachedMethod.cacheClass());
+        Cache<Object, Object> cache = descriptor.cache(cachedMethod.cachedType());
+        Object cacheKey = cachedMethod.keyExtractor().extract(invocationContext.getParameters());
+
+        try {
+            if (cachedMethod.optional()) {
+                return Optional.ofNullable(cache.loadAndGet(cacheKey, key -> unwrap(proceed(invocationContext)), descriptor.ttl()));
+            }
+            return cache.loadAndGet(cacheKey, key -> proceed(invocationContext), descriptor.ttl());
+        } catch (InvocationException e) {
+            throw e.getCause();
+        }
+    }
 
+    /**
+     * Caches the value the returned stage completes with, not the stage. Providers that are not an
+     * {@link org.fermented.dairy.microprofile.caching.interfaces.AsyncCacheProvider} load on the calling thread,
+     * waiting for the stage to complete.
+     */
+    private CompletableFuture<Object> doAsyncCacheRetrieve(InvocationContext invocationContext, CachedMethod cachedMethod) {
+        CacheDescriptor descriptor = getDescriptor(cachedMethod.cacheClass());
+        Cache<Object, Object> cache = descriptor.cache(cachedMethod.cachedType());
+        Object cacheKey = cachedMethod.keyExtractor().extract(invocationContext.getParameters());
+
+        if (cachedMethod.optional()) {
+            return cache.loadAndGetAsync(cacheKey, key -> proceedAsync(invocationContext).thenApply(CachingRetrieveInterceptor::unwrap),
+                    descriptor.ttl()).<Object>thenApply(Optional::ofNullable).toCompletableFuture();
+        }
+        return cache.loadAndGetAsync(cacheKey, key -> proceedAsync(invocationContext), descriptor.ttl())
+                .toCompletableFuture();
     }
 
+    /**
+     * Serves a collection of keys (or cached objects) from the cache, see {@link CacheRetrieve#bulk()}, invoking the
+     * intercepted method once with only the missing elements. The method returns either a Map of the cached objects by key, or a Collection of them in
+     * which case the keys are read from the returned objects.
+     */
+    private Object doBulkCacheRetrieve(InvocationContext invocationContext, CachedMethod cachedMethod) throws Exception {
+        Class<?> returnType = invocationContext.getMethod().getReturnType();
+        boolean returnsMap = Map.class.isAssignableFrom(returnType);
+        Class<?> cacheClass = cachedMethod.cacheClass();
+        int keysParameter = cachedMethod.keysParameter();
+
+        CacheDescriptor descriptor = getDescriptor(cacheClass);
+        Cache<Object, Object> cache = descriptor.cache(cachedMethod.valueType());
+
+        Collection<?> params = (Collection<?>) invocationContext.getParameters()[keysParameter];
+        Map<Object, Object> paramsByKey = new LinkedHashMap<>();
+        for (Object param : params) {
+            paramsByKey.putIfAbsent(CacheKeyPlans.fromParameter(param, cacheClass), param);
+        }
 
+        Map<Object, Object> cached;
+        try {
+            cached = cache.loadAllAndGet(paramsByKey.keySet(),
+                    missing -> proceedWithMissing(invocationContext, keysParameter, paramsByKey, missing, cacheClass, returnsMap),
+                    descriptor.ttl());
+        } catch (InvocationException e) {
+            throw e.getCause();
+        }
+
+        if (returnsMap) {
+            return cached;
+        }
+        return returnType.isAssignableFrom(ArrayList.class) ? new ArrayList<>(cached.values()) : new LinkedHashSet<>(cached.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> proceedWithMissing(InvocationContext invocationContext,
+                                                          int keysParameter,
+                                                          Map<Object, Object> paramsByKey,
+                                                          Set<Object> missing,
+                                                          Class<?> cacheClass,
+                                                          boolean returnsMap) {
+        Object[] parameters = invocationContext.getParameters().clone();
+        Collection<Object> missingParams = invocationContext.getMethod().getParameterTypes()[keysParameter].isAssignableFrom(ArrayList.class)
+                ? new ArrayList<>(missing.size())
+                : new LinkedHashSet<>();
+        missing.forEach(key -> missingParams.add(paramsByKey.get(key)));
+        parameters[keysParameter] = missingParams;
+        invocationContext.setParameters(parameters);
+
+        Object loaded = proceed(invocationContext);
+        if (loaded == null) { //None of the missing keys has a value
+            return Map.of();
+        }
+        if (returnsMap) {
+            return (Map<Object, Object>) loaded;
+        }
+        Map<Object, Object> loadedByKey = new HashMap<>();
+        for (Object value : (Collection<Object>) loaded) {
+            loadedByKey.put(CacheKeyPlans.fromObject(value, cacheClass), value);
+        }
+        return loadedByKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> proceedAsync(InvocationContext invocationContext) {
+        try {
+            CompletionStage<Object> stage = (CompletionStage<Object>) invocationContext.proceed();
+            return stage == null ? CompletableFuture.completedFuture(null) : stage;
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Optionals are cached unwrapped, see {@link CachedMethod#cachedType()}
+     */
+    private static Object unwrap(Object optional) {
+        return optional == null ? null : ((Optional<?>) optional).orElse(null);
+    }
+
+    private static Object proceed(InvocationContext invocationContext) {
+        try {
+            return invocationContext.proceed();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvocationException(e);
+        }
+    }
+
+    /**
+     * Carries checked exceptions thrown by the intercepted method through the provider's loader {@link java.util.function.Function}
+     */
+    private static final class InvocationException extends RuntimeException {
+
+        InvocationException(Exception cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata.CachedType;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Looks up the cache metadata generated at compile time, see {@link GeneratedCacheMetadata}. Empty unless the
+ * microprofile-caching-processor ran over the application.
+ */
+@Log
+final class GeneratedMetadata {
+
+    static final GeneratedMetadata INSTANCE = new GeneratedMetadata(load());
+
+    private final List<GeneratedCacheMetadata> metadata;
+
+    GeneratedMetadata(final List<GeneratedCacheMetadata> metadata) {
+        this.metadata = List.copyOf(metadata);
+    }
+
+    /**
+     * @param type a cached type
+     * @return the generated metadata of the type, null if none was generated
+     */
+    CachedType cachedType(final Class<?> type) {
+        for (GeneratedCacheMetadata generated : metadata) {
+            CachedType cachedType = generated.cachedType(type);
+            if (cachedType != null) {
+                return cachedType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param method the intercepted method
+     * @param cacheClass the cached type
+     * @return the generated key extractor of the method, null if none was generated
+     */
+    CacheKeyExtractor keyExtractor(final Method method, final Class<?> cacheClass) {
+        if (metadata.isEmpty()) {
+            return null;
+        }
+        String signature = GeneratedCacheMetadata.signature(method);
+        for (GeneratedCacheMetadata generated : metadata) {
+            Function<Object[], Object> extractor = generated.keyExtractor(signature, cacheClass);
+            if (extractor != null) {
+                return extractor::apply;
+            }
+        }
+        return null;
+    }
+
+    private static List<GeneratedCacheMetadata> load() {
+        List<GeneratedCacheMetadata> loaded = new ArrayList<>();
+        Iterator<GeneratedCacheMetadata> providers = ServiceLoader.load(GeneratedCacheMetadata.class).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                loaded.add(providers.next());
+            } catch (ServiceConfigurationError e) { //Stale registration, the types it covers fall back to reflection
+                log.log(Level.WARNING, e, () -> "Skipping generated cache metadata that cannot be loaded");
+            }
+        }
+        if (!loaded.isEmpty()) {
+            log.fine(() -> "Loaded " + loaded.size() + " generated cache metadata classes");
+        }
+        return loaded;
+    }
+}
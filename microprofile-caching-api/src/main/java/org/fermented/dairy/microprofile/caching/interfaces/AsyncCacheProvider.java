@@ -0,0 +1,42 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A {@link CacheProvider} that loads values without blocking the calling thread. Cache hits complete immediately,
+ * misses complete once the stage returned by the getter completes.
+ */
+public interface AsyncCacheProvider extends CacheProvider {
+
+    /**
+     *
+     * @param key The cache key
+     * @param cacheName The CacheName
+     * @param getter The Function that starts loading the data based on the cache key
+     * @param tClass The class of the value the getter's stage completes with
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @param cacheOptionalEmpties If getter's stage completes with an Empty Optional that gets cached if true, doesn't put if otherwise
+     * @return a stage completing with the object either fetched from the cache or loaded by the getter, or
+     * exceptionally if the load failed. Failed loads are not cached.
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
+    <T, K> CompletionStage<T> loadAndGetFromCacheAsync(K key, String cacheName, Function<K, CompletionStage<T>> getter, Class<T> tClass, long ttl, boolean cacheOptionalEmpties);
+
+    /**
+     * See {@link #loadAndGetFromCacheAsync(Object, String, Function, Class, long, boolean) loadAndGetFromCacheAsync}. This will not cache Optionals loaded by the getter if they are empty.
+     *
+     * @param key The cache key
+     * @param cacheName The CacheName
+     * @param getter The Function that starts loading the data based on the cache key
+     * @param tClass The class of the value the getter's stage completes with
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @return a stage completing with the object either fetched from the cache or loaded by the getter
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
+    default <T, K> CompletionStage<T> loadAndGetFromCacheAsync(K key, String cacheName, Function<K, CompletionStage<T>> getter, Class<T> tClass, long ttl) {
+        return loadAndGetFromCacheAsync(key, cacheName, getter, tClass, ttl, false);
+    }
+}
@@ -0,0 +1,107 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A handle on a single cache of a {@link CacheProvider}, see {@link CacheProvider#getCache(String, Class, Class)}.
+ * Resolve a handle once and keep it: providers may bind it to the storage of the cache, so its calls skip looking the
+ * cache up by name.
+ *
+ * @param <K> the key type
+ * @param <V> the value type, values are returned only if they are instances of it
+ */
+public interface Cache<K, V> {
+
+    /**
+     * @param provider the provider holding the cache
+     * @param cacheName the name of the cache
+     * @param valueType the class of the values
+     * @return a handle passing the name of the cache to the provider on every call
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    static <K, V> Cache<K, V> byName(CacheProvider provider, String cacheName, Class<V> valueType) {
+        return new NamedCache<>(provider, cacheName, valueType);
+    }
+
+    /**
+     * @return the name of the cache
+     */
+    String getName();
+
+    /**
+     * See {@link CacheProvider#loadAndGetFromCache(Object, String, Function, Class, long, boolean)}
+     *
+     * @param key The cache key
+     * @param getter The Function that loads the data based on the cache key
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @param cacheOptionalEmpties If getter Function returns an Empty Optional that gets cached if true, doesn't put if otherwise
+     * @return the object either fetched from the cache or loaded by the getter
+     */
+    V loadAndGet(K key, Function<K, V> getter, long ttl, boolean cacheOptionalEmpties);
+
+    /**
+     * See {@link CacheProvider#loadAndGetFromCache(Object, String, Function, Class, long)}
+     */
+    V loadAndGet(K key, Function<K, V> getter, long ttl);
+
+    /**
+     * See {@link CacheProvider#loadAllAndGetFromCache(Collection, String, Function, Class, long)}
+     *
+     * @param keys The cache keys
+     * @param batchGetter The Function that loads the data of the missing keys
+     * @param ttl The time to live (in ms). cache entries expire after ttl ms
+     * @return the objects either fetched from the cache or loaded by the batchGetter, by key in the order of the keys
+     */
+    Map<K, V> loadAllAndGet(Collection<K> keys, Function<Set<K>, Map<K, V>> batchGetter, long ttl);
+
+    /**
+     * See {@link AsyncCacheProvider#loadAndGetFromCacheAsync(Object, String, Function, Class, long)}. Caches of providers
+     * that are not an {@link AsyncCacheProvider} load on the calling thread, waiting for the stage to complete.
+     *
+     * @param key The cache key
+     * @param getter The Function that starts loading the data based on the cache key
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @return a stage completing with the object either fetched from the cache or loaded by the getter
+     */
+    CompletionStage<V> loadAndGetAsync(K key, Function<K, CompletionStage<V>> getter, long ttl);
+
+    /**
+     * See {@link CacheProvider#putCacheEntry(Object, String, Object, long)}
+     *
+     * @param key The cache key
+     * @param value The new value, null invalidates the entry
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     */
+    void put(K key, V value, long ttl);
+
+    /**
+     * @param key the key of the cached object to invalidate
+     */
+    void invalidate(K key);
+
+    /**
+     * @param keys the keys of the cached objects to invalidate
+     */
+    void invalidateAll(Collection<K> keys);
+
+    /**
+     * See {@link CacheProvider#streamKeys(String)}
+     */
+    Stream<K> streamKeys();
+
+    /**
+     * See {@link CacheProvider#size(String)}
+     */
+    long size();
+
+    /**
+     * Remove all cache entries
+     */
+    void clear();
+}
@@ -0,0 +1,66 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Per cache settings handed to a {@link CacheProvider} through {@link CacheProvider#configureCache(String, CacheOptions)}.
+ * Providers ignore the settings they do not support.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CacheOptions {
+
+    public static final CacheOptions DEFAULT = CacheOptions.builder().build();
+
+    /**
+     * Maximum time (in ms) a caller waits for a load of the same key that another caller already started
+     */
+    @Builder.Default
+    long loadTimeout = 10000L; //10 s
+
+    /**
+     * Maximum number of entries held by the cache, 0 or less for an unbounded cache. Bounded caches evict the entries
+     * least likely to be requested again.
+     */
+    @Builder.Default
+    long maximumSize = 0L;
+
+    /**
+     * Time (in ms) after which a cached value is reloaded by its next request, on the requesting thread, while the
+     * current value keeps being served to the other requests. 0 or less, or not less than the TTL, disables refreshing.
+     */
+    @Builder.Default
+    long refreshAfterWrite = 0L;
+
+    /**
+     * Time (in ms) negative results (null and empty Optionals) are cached for, 0 or less to not cache null and to cache
+     * empty Optionals like other values, if requested. While set, both are cached for this time whether requested or not.
+     */
+    @Builder.Default
+    long negativeTtl = 0L;
+
+    /**
+     * Maximum number of negative results held by the cache, apart from the maximum size of the other entries. 0 or less
+     * for no limit. Once reached, the oldest negative results are evicted first.
+     */
+    @Builder.Default
+    long maximumNegativeSize = 10000L;
+
+    /**
+     * How strongly the cache holds its values. Strong values are only removed on expiry or eviction, soft and weak ones
+     * also when the GC collects them. Changing it only affects the entries written afterwards.
+     */
+    @Builder.Default
+    ValueStrength valueStrength = ValueStrength.DEFAULT;
+
+    /**
+     * @return the value strength applied by the cache, {@link ValueStrength#DEFAULT} resolved by the maximum size
+     */
+    public ValueStrength getEffectiveValueStrength() {
+        if (valueStrength != ValueStrength.DEFAULT) {
+            return valueStrength;
+        }
+        return maximumSize > 0 ? ValueStrength.STRONG : ValueStrength.SOFT;
+    }
+}
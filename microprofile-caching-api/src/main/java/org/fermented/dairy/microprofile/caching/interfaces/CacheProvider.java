@@ -1,7 +1,19 @@
 package org.fermented.dairy.microprofile.caching.interfaces;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.stream.Stream;
+
 public interface CacheProvider {
 
     /**
@@ -34,6 +46,63 @@ public interface CacheProvider {
         return loadAndGetFromCache(key, cacheName, getter, tClass, ttl, false);
     }
 
+    /**
+     * Bulk variant of {@link #loadAndGetFromCache(Object, String, Function, Class, long, boolean) loadAndGetFromCache}.
+     * Providers supporting bulk loads pass exactly the missing keys to a single call of the batch getter. This default
+     * looks the keys up one by one, and calls the batch getter once, on the first missing key, with that key and the
+     * keys after it, as it cannot tell which of those are cached; the values loaded for keys found cached are dropped.
+     *
+     * @param keys The cache keys
+     * @param cacheName The CacheName
+     * @param batchGetter The Function that loads the data of the missing keys. Keys absent from the returned map, or
+     *                    mapped to null, are not cached; a null map loads none of the keys
+     * @param tClass The class of the returned objects
+     * @param ttl The time to live (in ms). cache entries expire after ttl ms
+     * @param cacheOptionalEmpties If batchGetter Function returns Empty Optionals those get cached if true, don't get put otherwise
+     * @return the objects either fetched from the cache or loaded by the batchGetter, by key in the order of the keys
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
+    default <T, K> Map<K, T> loadAllAndGetFromCache(Collection<K> keys, String cacheName, Function<Set<K>, Map<K, T>> batchGetter, Class<T> tClass, long ttl, boolean cacheOptionalEmpties) {
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, T> loaded = new HashMap<>();
+        AtomicBoolean batchLoaded = new AtomicBoolean();
+        Map<K, T> result = new LinkedHashMap<>();
+        for (int index = 0; index < distinctKeys.size(); index++) {
+            List<K> unresolved = distinctKeys.subList(index, distinctKeys.size());
+            K key = distinctKeys.get(index);
+            T value = loadAndGetFromCache(key, cacheName, missing -> {
+                if (batchLoaded.compareAndSet(false, true)) {
+                    Map<K, T> batch = batchGetter.apply(Collections.unmodifiableSet(new LinkedHashSet<>(unresolved)));
+                    if (batch != null) {
+                        loaded.putAll(batch);
+                    }
+                }
+                return loaded.get(missing);
+            }, tClass, ttl, cacheOptionalEmpties);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * See {@link #loadAllAndGetFromCache(Collection, String, Function, Class, long, boolean) loadAllAndGetFromCache}. This will not cache Optionals loaded by the batchGetter if they are empty.
+     *
+     * @param keys The cache keys
+     * @param cacheName The CacheName
+     * @param batchGetter The Function that loads the data of the missing keys
+     * @param tClass The class of the returned objects
+     * @param ttl The time to live (in ms). cache entries expire after ttl ms
+     * @return the objects either fetched from the cache or loaded by the batchGetter, by key in the order of the keys
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
+    default <T, K> Map<K, T> loadAllAndGetFromCache(Collection<K> keys, String cacheName, Function<Set<K>, Map<K, T>> batchGetter, Class<T> tClass, long ttl) {
+        return loadAllAndGetFromCache(keys, cacheName, batchGetter, tClass, ttl, false);
+    }
+
     /**
      *
      * @param key the key of the cached object to invalidate
@@ -42,11 +111,89 @@ public interface CacheProvider {
      */
     <K> void invalidateCacheEntry(K key, String cacheName);
 
+    /**
+     *
+     * @param keys the keys of the cached objects to invalidate
+     * @param cacheName the name of the cache
+     * @param <K> the key type
+     */
+    default <K> void invalidateCacheEntries(Collection<K> keys, String cacheName) {
+        keys.forEach(key -> invalidateCacheEntry(key, cacheName));
+    }
+
+    /**
+     * Loads the value of a key with the getter, whether cached or not, and puts it into the cache as the new entry.
+     * The default invalidates the entry before loading the value, so readers miss in between; providers that can
+     * replace an entry in place override this.
+     *
+     * @param key The cache key
+     * @param cacheName The CacheName
+     * @param getter The Function that loads the new value based on the cache key
+     * @param tClass The class of the value
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @param cacheOptionalEmpties If getter returns an Empty Optional that gets cached if true, doesn't put if otherwise
+     * @return the value loaded by the getter
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
     default <T, K> T replaceCacheEntry(K key, String cacheName, Function<K, T> getter, Class<T> tClass, long ttl, boolean cacheOptionalEmpties){
         invalidateCacheEntry(key, cacheName);
         return loadAndGetFromCache(key, cacheName, getter, tClass, ttl, cacheOptionalEmpties);
     }
 
+    /**
+     * Puts a value into the cache as the new entry of the key, a null value invalidates the entry. See
+     * {@link #replaceCacheEntry(Object, String, Function, Class, long, boolean) replaceCacheEntry}.
+     *
+     * @param key The cache key
+     * @param cacheName The CacheName
+     * @param value The new value
+     * @param ttl The time to live (in ms). cache entry expires after ttl ms
+     * @param <T> Cached object type
+     * @param <K> Key type
+     */
+    @SuppressWarnings("unchecked")
+    default <T, K> void putCacheEntry(K key, String cacheName, T value, long ttl) {
+        if (value == null) {
+            invalidateCacheEntry(key, cacheName);
+            return;
+        }
+        replaceCacheEntry(key, cacheName, k -> value, (Class<T>) value.getClass(), ttl, true);
+    }
+
+    /**
+     * Applies per cache settings to a cache. Settings survive clearing and dropping of the cache. Providers without
+     * per cache settings ignore this.
+     * @param cacheName the name of the cache
+     * @param options the settings of the cache
+     */
+    default void configureCache(String cacheName, CacheOptions options) {
+    }
+
+    /**
+     * Gets the counters of a cache
+     * @param cacheName The name of the cache
+     * @return the counters, empty if the cache does not exist or the provider does not count
+     */
+    default Optional<CacheStats> getStats(String cacheName) {
+        return Optional.empty();
+    }
+
+    /**
+     * Gets a handle on a cache, to be resolved once and kept by callers that use the cache repeatedly. The default
+     * handle passes the name of the cache on every call, see {@link Cache#byName(CacheProvider, String, Class)};
+     * providers override this to bind the handle to the storage of the cache.
+     * @param cacheName The name of the cache
+     * @param keyType The class of the keys
+     * @param valueType The class of the values, values are returned only if they are instances of it
+     * @return the handle on the cache
+     * @param <K> Key type
+     * @param <V> Cached object type
+     */
+    default <K, V> Cache<K, V> getCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+        return Cache.byName(this, cacheName, valueType);
+    }
+
     /**
      * Gets all cache names
      * @return Collection of cache names
@@ -61,7 +208,28 @@ public interface CacheProvider {
     Collection<Object> getKeys(String cacheName);
 
     /**
-     * Remove all cache entries in a cache
+     * Streams the keys of a cache lazily, weakly consistent with concurrent writes, so large caches can be enumerated
+     * (and paged with skip and limit) without copying all their keys. The default streams {@link #getKeys(String)}.
+     * @param cacheName The name of the cache
+     * @return the keys in the cache, in no particular order
+     */
+    default Stream<Object> streamKeys(String cacheName) {
+        return getKeys(cacheName).stream();
+    }
+
+    /**
+     * Gets the number of entries in a cache without enumerating them. The count is an estimate, it may include expired
+     * entries that have not been removed yet. The default counts {@link #getKeys(String)}.
+     * @param cacheName The name of the cache
+     * @return the estimated number of entries in the cache, 0 if the cache does not exist
+     */
+    default long size(String cacheName) {
+        return getKeys(cacheName).size();
+    }
+
+    /**
+     * Remove all cache entries in a cache. Providers managed by CDI also clear the cache on the other nodes, through
+     * the {@link org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster}.
      * @param cacheName The name of the cache to clear
      */
     void clearCache(String cacheName);
@@ -0,0 +1,74 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the counters of a cache, see {@link CacheProvider#getStats(String)}. All counts are totals since the
+ * cache was created.
+ */
+@Value
+@Builder
+public class CacheStats {
+
+    /**
+     * Number of load latency buckets, bucket i counts the loads that took at most {@link #loadLatencyUpperBound(int)}
+     */
+    public static final int LOAD_LATENCY_BUCKETS = 28;
+
+    public static final CacheStats EMPTY = CacheStats.builder().build();
+
+    long hitCount;
+
+    long missCount;
+
+    long loadSuccessCount;
+
+    long loadFailureCount;
+
+    /**
+     * Total time (in ns) spent loading, successfully or not
+     */
+    long totalLoadTime;
+
+    /**
+     * Number of callers that gave up waiting for another caller's load of the same key
+     */
+    long loadTimeoutCount;
+
+    @Builder.Default
+    Map<EvictionCause, Long> evictionCounts = Map.of();
+
+    /**
+     * Number of loads per latency bucket, not cumulative
+     */
+    @Builder.Default
+    List<Long> loadLatencyHistogram = List.of();
+
+    /**
+     * @param bucket the index of a load latency bucket
+     * @return the upper bound (in ns) of the bucket, from ~1 µs doubling up to ~69 s, the last bucket is unbounded
+     */
+    public static long loadLatencyUpperBound(int bucket) {
+        return bucket >= LOAD_LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : 1L << (bucket + 10);
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return the ratio of requests served from the cache, 1 if there were no requests
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0d : (double) hitCount / requestCount;
+    }
+
+    public long getEvictionCount(EvictionCause cause) {
+        return evictionCounts.getOrDefault(cause, 0L);
+    }
+}
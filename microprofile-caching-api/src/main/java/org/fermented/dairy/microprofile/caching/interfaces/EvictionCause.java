@@ -0,0 +1,22 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+/**
+ * Why a cache entry was removed by the cache itself, rather than invalidated
+ */
+public enum EvictionCause {
+
+    /**
+     * Removed to keep the cache within its maximum size or memory budget
+     */
+    SIZE,
+
+    /**
+     * Removed after its time to live passed
+     */
+    EXPIRED,
+
+    /**
+     * Removed after the garbage collector cleared its value
+     */
+    COLLECTED
+}
@@ -0,0 +1,51 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache metadata resolved at compile time by the annotation processor of the microprofile-caching-processor module,
+ * which generates an implementation per package and registers it for the {@link java.util.ServiceLoader}. The
+ * interceptors use it in place of reflecting over the caching annotations for the cached types and intercepted methods
+ * it covers, and fall back to reflection for the others.
+ */
+public interface GeneratedCacheMetadata {
+
+    /**
+     * @param type a cached type
+     * @return the resolved {@link org.fermented.dairy.microprofile.caching.annotations.Cachable} settings of the type,
+     * null if this metadata does not cover it
+     */
+    CachedType cachedType(Class<?> type);
+
+    /**
+     * @param method the intercepted method, see {@link #signature(Method)}
+     * @param cacheClass the cached type the method caches
+     * @return a function extracting the cache key from the parameters of the method, null if this metadata does not
+     * cover the method
+     */
+    Function<Object[], Object> keyExtractor(String method, Class<?> cacheClass);
+
+    /**
+     * @param method a method
+     * @return the signature identifying the method in {@link #keyExtractor(String, Class)}: the binary name of the
+     * declaring class, '#', the method name and the parameter type names in parentheses, separated by ','
+     */
+    static String signature(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName()
+                + Arrays.stream(method.getParameterTypes()).map(Class::getTypeName).collect(Collectors.joining(",", "(", ")"));
+    }
+
+    /**
+     * @param cacheName the name of the cache
+     * @param ttl the time to live (in ms) set by the annotation, before config overrides
+     * @param providerName the name of the provider, blank for the default provider
+     * @param options the cache options set by the annotation, before config overrides
+     * @param keyAccessor reads the {@link org.fermented.dairy.microprofile.caching.annotations.CacheKey} field of an
+     *                    instance, null if it could not be generated
+     */
+    record CachedType(String cacheName, long ttl, String providerName, CacheOptions options, Function<Object, Object> keyAccessor) {
+    }
+}
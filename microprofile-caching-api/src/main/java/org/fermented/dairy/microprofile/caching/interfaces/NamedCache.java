@@ -0,0 +1,94 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The default {@link Cache} handle, passing the name of the cache to its provider on every call
+ */
+final class NamedCache<K, V> implements Cache<K, V> {
+
+    private final CacheProvider provider;
+
+    private final String cacheName;
+
+    private final Class<V> valueType;
+
+    NamedCache(final CacheProvider provider, final String cacheName, final Class<V> valueType) {
+        this.provider = provider;
+        this.cacheName = cacheName;
+        this.valueType = valueType;
+    }
+
+    @Override
+    public String getName() {
+        return cacheName;
+    }
+
+    @Override
+    public V loadAndGet(final K key, final Function<K, V> getter, final long ttl, final boolean cacheOptionalEmpties) {
+        return provider.loadAndGetFromCache(key, cacheName, getter, valueType, ttl, cacheOptionalEmpties);
+    }
+
+    @Override
+    public V loadAndGet(final K key, final Function<K, V> getter, final long ttl) {
+        return provider.loadAndGetFromCache(key, cacheName, getter, valueType, ttl);
+    }
+
+    @Override
+    public Map<K, V> loadAllAndGet(final Collection<K> keys, final Function<Set<K>, Map<K, V>> batchGetter, final long ttl) {
+        return provider.loadAllAndGetFromCache(keys, cacheName, batchGetter, valueType, ttl);
+    }
+
+    @Override
+    public CompletionStage<V> loadAndGetAsync(final K key, final Function<K, CompletionStage<V>> getter, final long ttl) {
+        if (provider instanceof AsyncCacheProvider asyncCacheProvider) {
+            return asyncCacheProvider.loadAndGetFromCacheAsync(key, cacheName, getter, valueType, ttl);
+        }
+        try {
+            return CompletableFuture.completedFuture(provider.loadAndGetFromCache(key, cacheName,
+                    missing -> getter.apply(missing).toCompletableFuture().join(), valueType, ttl));
+        } catch (CompletionException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void put(final K key, final V value, final long ttl) {
+        provider.putCacheEntry(key, cacheName, value, ttl);
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        provider.invalidateCacheEntry(key, cacheName);
+    }
+
+    @Override
+    public void invalidateAll(final Collection<K> keys) {
+        provider.invalidateCacheEntries(keys, cacheName);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Stream<K> streamKeys() {
+        return (Stream<K>) provider.streamKeys(cacheName);
+    }
+
+    @Override
+    public long size() {
+        return provider.size(cacheName);
+    }
+
+    @Override
+    public void clear() {
+        provider.clearCache(cacheName);
+    }
+}
@@ -0,0 +1,22 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+/**
+ * Converts cached values to and from bytes, for cache providers that store values outside the Java heap. Provide a
+ * CDI bean implementing this interface to replace the default, Java serialization based, codec.
+ */
+public interface ValueCodec {
+
+    /**
+     * @param value the value to store, never null
+     * @return the encoded value
+     */
+    byte[] encode(Object value);
+
+    /**
+     * @param bytes the encoded value
+     * @param tClass the expected class of the value, Object if not known
+     * @return the decoded value
+     * @param <T> the expected type of the value
+     */
+    <T> T decode(byte[] bytes, Class<T> tClass);
+}
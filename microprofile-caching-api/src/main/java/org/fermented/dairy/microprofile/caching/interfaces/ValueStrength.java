@@ -0,0 +1,28 @@
+package org.fermented.dairy.microprofile.caching.interfaces;
+
+/**
+ * How strongly a cache holds its values, see {@link CacheOptions#getValueStrength()}
+ */
+public enum ValueStrength {
+
+    /**
+     * SOFT for caches without a maximum size, so that an unbounded cache cannot exhaust the heap, STRONG for caches
+     * with one
+     */
+    DEFAULT,
+
+    /**
+     * Values are held until they expire or are evicted, bound the cache with a maximum size
+     */
+    STRONG,
+
+    /**
+     * Values can be collected when the heap runs low, the GC then clears many (often the hottest) entries at once
+     */
+    SOFT,
+
+    /**
+     * Values can be collected once nothing else holds them
+     */
+    WEAK
+}
@@ -0,0 +1,390 @@
+package org.fermented.dairy.microprofile.caching.invalidation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import lombok.extern.java.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.providers.SerializableValueCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the invalidations of this node to the other nodes of the application, and applies theirs to the local
+ * providers, so that removing an entry on one node removes its copies on all nodes. The providers publish the clearing
+ * of their caches themselves; invalidations applied from another node are not published again.
+ * <p>
+ * Invalidations are queued and sent in batches, every org.fermented.diary.caching.invalidation.batchWindow ms, which
+ * must be positive. Duplicates within a batch are sent once, and key invalidations of a cache that is cleared in the
+ * same batch are dropped. Keys are encoded with Java serialization, and must decode to equal keys on the other nodes. Messages are not
+ * authenticated, so only keys of the classes in {@link #KEY_CLASSES} and of the classes matched by
+ * org.fermented.diary.caching.invalidation.keyClasses (an {@link ObjectInputFilter} pattern) are decoded, enum keys
+ * included: an enum is only decoded if its class is matched by the pattern.
+ * <p>
+ * The transport is the {@link InvalidationTransport} bean, if there is one, otherwise the one selected by
+ * org.fermented.diary.caching.invalidation.transport: none (the default, invalidations stay local), multicast or
+ * loopback.
+ * <p>
+ * Message layout: magic (int), sender id (two longs), invalidation count (int), then per invalidation provider name
+ * and cache name (modified UTF-8), whether it has a key (boolean), key length (int) and key.
+ */
+@Log
+@ApplicationScoped
+public class InvalidationBroadcaster {
+
+    /**
+     * Maximum size of a message, batches that do not fit are split over several messages
+     */
+    public static final int MAX_MESSAGE_SIZE = 60000;
+
+    private static final int MAGIC = 0x43494E56; //CINV
+
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * The classes of the keys that are always decoded, as an {@link ObjectInputFilter} pattern
+     */
+    static final String KEY_CLASSES = "java.lang.String;java.lang.Number;java.lang.Long;java.lang.Integer;"
+            + "java.lang.Short;java.lang.Byte;java.lang.Double;java.lang.Float;java.lang.Character;java.lang.Boolean;"
+            + "java.math.BigInteger;java.math.BigDecimal;java.util.UUID;java.time.*";
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.transport", defaultValue = "none")
+    private String transportName;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.multicast.group", defaultValue = "239.255.42.99")
+    private String multicastGroup;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.multicast.port", defaultValue = "4446")
+    private Integer multicastPort;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.multicast.timeToLive", defaultValue = "1")
+    private Integer multicastTimeToLive;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.batchWindow", defaultValue = "20")
+    private Long batchWindow;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.invalidation.keyClasses")
+    private Optional<String> keyClasses;
+
+    @Inject
+    private Instance<InvalidationTransport> transports;
+
+    @Inject
+    private Map<String, CacheProvider> cacheProviderMap;
+
+    private final UUID nodeId = UUID.randomUUID();
+
+    private final Object pendingLock = new Object();
+
+    /**
+     * Set while this thread applies invalidations received from another node, which must not be published again
+     */
+    private final ThreadLocal<Boolean> applying = ThreadLocal.withInitial(() -> false);
+
+    private Set<Invalidation> pending = new LinkedHashSet<>();
+
+    private InvalidationTransport transport;
+
+    private SerializableValueCodec keyCodec;
+
+    private ScheduledExecutorService flusher;
+
+    public InvalidationBroadcaster() {
+    }
+
+    InvalidationBroadcaster(final Map<String, CacheProvider> cacheProviderMap, final long batchWindow) {
+        this.cacheProviderMap = cacheProviderMap;
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Creates the broadcaster on startup, so that it receives invalidations before this node publishes any
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) final Object event) {
+        log.fine(() -> "Cache invalidation transport: " + (transport == null ? "none" : transport.getClass().getSimpleName()));
+    }
+
+    @PostConstruct
+    void init() {
+        InvalidationTransport configuredTransport = getTransport();
+        if (configuredTransport != null) {
+            start(configuredTransport, new SerializableValueCodec(keyFilter(keyClasses.orElse(null))));
+        }
+    }
+
+    /**
+     * @param extraKeyClasses an {@link ObjectInputFilter} pattern of the classes of the application's keys, null if
+     *                        the keys are all of the {@link #KEY_CLASSES}
+     * @return the filter accepting only the key classes, bounded to the size of a message
+     */
+    static ObjectInputFilter keyFilter(final String extraKeyClasses) {
+        //java.lang.Enum is read as the superclass of any enum, it lets through only the enums the pattern matches
+        String extra = extraKeyClasses == null || extraKeyClasses.isBlank() ? "" : extraKeyClasses.strip() + ";java.lang.Enum;";
+        return ObjectInputFilter.Config.createFilter("maxdepth=10;maxrefs=1000;maxbytes=" + MAX_MESSAGE_SIZE
+                + ";maxarray=" + MAX_MESSAGE_SIZE + ";" + KEY_CLASSES + ";" + extra + "!*");
+    }
+
+    /**
+     * Starts receiving invalidations, and sending them every batch window
+     * @throws CacheRuntimeException if the batch window is not positive
+     */
+    void start(final InvalidationTransport invalidationTransport, final SerializableValueCodec codec) {
+        if (batchWindow <= 0) {
+            throw new CacheRuntimeException("org.fermented.diary.caching.invalidation.batchWindow must be positive, was %d",
+                    batchWindow);
+        }
+        this.keyCodec = codec;
+        this.transport = invalidationTransport;
+        invalidationTransport.start(this::receive);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, batchWindow, batchWindow, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (transport != null) {
+            flush();
+            transport.stop();
+        }
+    }
+
+    /**
+     * Queues the invalidation of a key for the other nodes, the caller invalidates it locally
+     * @param providerName the name of the provider of the cache
+     * @param cacheName the name of the cache
+     * @param key the key to invalidate
+     */
+    public void publish(final String providerName, final String cacheName, final Object key) {
+        if (transport != null && !applying.get()) {
+            enqueue(new Invalidation(providerName, cacheName, key));
+        }
+    }
+
+    /**
+     * Queues the clearing of a cache for the other nodes, the caller clears it locally
+     * @param providerName the name of the provider of the cache
+     * @param cacheName the name of the cache
+     */
+    public void publishClear(final String providerName, final String cacheName) {
+        if (transport != null && !applying.get()) {
+            enqueue(new Invalidation(providerName, cacheName, null));
+        }
+    }
+
+    /**
+     * Clears a cache on this node and the other nodes
+     * @param cacheProvider the provider of the cache
+     * @param cacheName the name of the cache
+     */
+    public void clearCache(final CacheProvider cacheProvider, final String cacheName) {
+        cacheProvider.clearCache(cacheName);
+        publishClear(cacheProvider.getProviderName(), cacheName);
+    }
+
+    private void enqueue(final Invalidation invalidation) {
+        synchronized (pendingLock) {
+            pending.add(invalidation);
+        }
+    }
+
+    /**
+     * Sends the queued invalidations
+     */
+    void flush() {
+        Set<Invalidation> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashSet<>();
+        }
+        try {
+            for (byte[] message : encode(coalesce(batch))) {
+                transport.send(message);
+            }
+        } catch (RuntimeException e) { //Keep flushing later batches
+            log.log(Level.WARNING, e, () -> "Could not send " + batch.size() + " cache invalidations");
+        }
+    }
+
+    private static List<Invalidation> coalesce(final Set<Invalidation> batch) {
+        Set<Invalidation> clears = batch.stream()
+                .filter(invalidation -> invalidation.key() == null)
+                .collect(Collectors.toSet());
+        return batch.stream()
+                .filter(invalidation -> invalidation.key() == null
+                        || !clears.contains(new Invalidation(invalidation.providerName(), invalidation.cacheName(), null)))
+                .toList();
+    }
+
+    private List<byte[]> encode(final List<Invalidation> invalidations) {
+        List<byte[]> messages = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        int size = HEADER_SIZE;
+        for (Invalidation invalidation : invalidations) {
+            byte[] invalidationRecord = encodeRecord(invalidation);
+            if (invalidationRecord == null) {
+                continue;
+            }
+            if (size + invalidationRecord.length > MAX_MESSAGE_SIZE && !records.isEmpty()) {
+                messages.add(encodeMessage(records));
+                records = new ArrayList<>();
+                size = HEADER_SIZE;
+            }
+            records.add(invalidationRecord);
+            size += invalidationRecord.length;
+        }
+        if (!records.isEmpty()) {
+            messages.add(encodeMessage(records));
+        }
+        return messages;
+    }
+
+    private byte[] encodeRecord(final Invalidation invalidation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(invalidation.providerName());
+            output.writeUTF(invalidation.cacheName());
+            output.writeBoolean(invalidation.key() != null);
+            if (invalidation.key() != null) {
+                byte[] key = keyCodec.encode(invalidation.key());
+                output.writeInt(key.length);
+                output.write(key);
+            }
+        } catch (IOException | CacheRuntimeException e) {
+            log.log(Level.WARNING, e, () -> "Could not encode the invalidation of " + invalidation + ", not sent");
+            return null;
+        }
+        byte[] invalidationRecord = bytes.toByteArray();
+        if (HEADER_SIZE + invalidationRecord.length > MAX_MESSAGE_SIZE) {
+            log.warning(() -> "Invalidation of " + invalidation + " does not fit a message, not sent");
+            return null;
+        }
+        return invalidationRecord;
+    }
+
+    private byte[] encodeMessage(final List<byte[]> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeLong(nodeId.getMostSignificantBits());
+            output.writeLong(nodeId.getLeastSignificantBits());
+            output.writeInt(records.size());
+            for (byte[] invalidationRecord : records) {
+                output.write(invalidationRecord);
+            }
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not encode invalidation message");
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Applies the invalidations of a message sent by another node to the local providers
+     */
+    void receive(final byte[] message) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (input.readInt() != MAGIC) {
+                return;
+            }
+            if (new UUID(input.readLong(), input.readLong()).equals(nodeId)) {
+                return; //Already applied locally
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String providerName = input.readUTF();
+                String cacheName = input.readUTF();
+                Object key = null;
+                if (input.readBoolean()) {
+                    int keyLength = input.readInt();
+                    if (keyLength < 0 || keyLength > input.available()) {
+                        throw new IOException("Invalid key length " + keyLength);
+                    }
+                    byte[] keyBytes = new byte[keyLength];
+                    input.readFully(keyBytes);
+                    try {
+                        key = keyCodec.decode(keyBytes, Object.class);
+                    } catch (CacheRuntimeException e) { //Rejected by the key filter
+                        log.log(Level.WARNING, e, () -> "Could not decode an invalidation key of cache " + cacheName);
+                        continue;
+                    }
+                }
+                apply(providerName, cacheName, key);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, e, () -> "Could not apply invalidation message");
+        }
+    }
+
+    private void apply(final String providerName, final String cacheName, final Object key) {
+        CacheProvider cacheProvider = cacheProviderMap.get(providerName);
+        if (cacheProvider == null) {
+            return;
+        }
+        applying.set(true);
+        try {
+            if (key == null) {
+                cacheProvider.clearCache(cacheName);
+            } else {
+                cacheProvider.invalidateCacheEntry(key, cacheName);
+            }
+        } finally {
+            applying.remove();
+        }
+    }
+
+    private InvalidationTransport getTransport() {
+        if (transports.isResolvable()) {
+            return transports.get();
+        }
+        return switch (transportName) {
+            case "none" -> null;
+            case "multicast" -> new MulticastInvalidationTransport(multicastGroup, multicastPort, multicastTimeToLive);
+            case "loopback" -> new LoopbackInvalidationTransport("default");
+            default -> throw new CacheRuntimeException("Unknown cache invalidation transport %s", transportName);
+        };
+    }
+
+    /**
+     * @param key the key to invalidate, null to clear the cache
+     */
+    private record Invalidation(String providerName, String cacheName, Object key) {
+    }
+}
@@ -0,0 +1,29 @@
+package org.fermented.dairy.microprofile.caching.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries the invalidation messages of an {@link InvalidationBroadcaster} between the nodes of an application. A
+ * transport delivers the messages it sends to the receivers of all nodes, possibly including the sending node, which
+ * ignores its own messages. Delivery is best effort, a lost message leaves entries to expire with their TTL.
+ * <p>
+ * Provide a CDI bean implementing this interface to replace the built-in transports.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Starts receiving messages
+     * @param receiver called with every message received, on a thread of the transport
+     */
+    void start(Consumer<byte[]> receiver);
+
+    /**
+     * @param message the message to send to all nodes, at most {@link InvalidationBroadcaster#MAX_MESSAGE_SIZE} bytes
+     */
+    void send(byte[] message);
+
+    /**
+     * Stops receiving messages and releases the resources of the transport
+     */
+    void stop();
+}
@@ -0,0 +1,45 @@
+package org.fermented.dairy.microprofile.caching.invalidation;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Transport between the nodes of a single JVM, connected by channel name. Messages are delivered on the sending thread.
+ * Meant for tests, and for several applications sharing a server.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private static final Map<String, Set<Consumer<byte[]>>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+
+    private Consumer<byte[]> receiver;
+
+    /**
+     * @param channel the name of the channel, nodes only receive the messages sent on their channel
+     */
+    public LoopbackInvalidationTransport(final String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(final Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet()).add(receiver);
+    }
+
+    @Override
+    public void send(final byte[] message) {
+        CHANNELS.getOrDefault(channel, Set.of()).forEach(channelReceiver -> channelReceiver.accept(message.clone()));
+    }
+
+    @Override
+    public void stop() {
+        CHANNELS.computeIfPresent(channel, (name, receivers) -> {
+            receivers.remove(receiver);
+            return receivers.isEmpty() ? null : receivers;
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package org.fermented.dairy.microprofile.caching.invalidation;
+
+import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Transport sending each message as a single UDP datagram to a multicast group. Every node joined to the group on the
+ * same port receives it, including nodes on the same machine. The datagrams are not acknowledged, lost ones are not
+ * sent again.
+ */
+@Log
+public class MulticastInvalidationTransport implements InvalidationTransport {
+
+    private final InetSocketAddress group;
+
+    private final int timeToLive;
+
+    private MulticastSocket socket;
+
+    private Thread receiverThread;
+
+    /**
+     * @param group the multicast group address, for example 239.255.42.99
+     * @param port the port all nodes listen on
+     * @param timeToLive the number of network hops datagrams may take, 1 to stay on the local network
+     */
+    public MulticastInvalidationTransport(final String group, final int port, final int timeToLive) {
+        try {
+            this.group = new InetSocketAddress(InetAddress.getByName(group), port);
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Unknown invalidation multicast group %s", group);
+        }
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public void start(final Consumer<byte[]> receiver) {
+        try {
+            socket = new MulticastSocket(group.getPort());
+            socket.setTimeToLive(timeToLive);
+            socket.joinGroup(group, null);
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not join invalidation multicast group %s", group);
+        }
+        receiverThread = new Thread(() -> receive(receiver), "cache-invalidation-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    @Override
+    public void send(final byte[] message) {
+        try {
+            socket.send(new DatagramPacket(message, message.length, group));
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not send invalidation message to %s", group);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (socket != null) {
+            socket.close(); //Ends the receiver thread
+        }
+    }
+
+    private void receive(final Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[InvalidationBroadcaster.MAX_MESSAGE_SIZE];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOf(packet.getData(), packet.getLength()));
+            } catch (SocketException e) {
+                return; //Closed
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, e, () -> "Could not receive invalidation message from " + group);
+            }
+        }
+    }
+}
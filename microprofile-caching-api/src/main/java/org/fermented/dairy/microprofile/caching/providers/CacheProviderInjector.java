@@ -3,7 +3,6 @@ package org.fermented.dairy.microprofile.caching.providers;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.Produces;
-import jakarta.enterprise.inject.spi.CDI;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
 
 import java.util.Map;
@@ -14,8 +13,7 @@ public class CacheProviderInjector {
 
 
     @Produces
-    public Map<String, CacheProvider> buildCacheProviderMap() {
-        Instance<CacheProvider> cacheProviders = CDI.current().select(CacheProvider.class);
+    public Map<String, CacheProvider> buildCacheProviderMap(final Instance<CacheProvider> cacheProviders) {
         return cacheProviders.stream()
                 .collect(Collectors.toMap(
                                 CacheProvider::getProviderName,
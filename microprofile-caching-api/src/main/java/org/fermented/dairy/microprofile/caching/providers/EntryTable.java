@@ -0,0 +1,164 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * The entries of a {@link LocalCache}, by key. Long and Integer keys, the usual ids, are kept unboxed in a
+ * {@link LongKeyTable} each, created on the first such key; other keys are kept in a ConcurrentHashMap. The table is
+ * chosen per key, so a cache never declares its key type and may mix key types.
+ *
+ * @param <V> the value type
+ */
+final class EntryTable<V> {
+
+    private final Map<Object, V> objects = new ConcurrentHashMap<>();
+
+    private volatile LongKeyTable<V> longs;
+
+    private volatile LongKeyTable<V> ints;
+
+    V get(final Object key) {
+        if (key instanceof Long id) {
+            LongKeyTable<V> table = longs;
+            return table == null ? null : table.get(id);
+        }
+        if (key instanceof Integer id) {
+            LongKeyTable<V> table = ints;
+            return table == null ? null : table.get(id);
+        }
+        return objects.get(key);
+    }
+
+    V put(final Object key, final V value) {
+        if (key instanceof Long id) {
+            return longs().put(id, value);
+        }
+        if (key instanceof Integer id) {
+            return ints().put(id, value);
+        }
+        return objects.put(key, value);
+    }
+
+    /**
+     * @return the current value of the key, null if the value was put
+     */
+    V putIfAbsent(final Object key, final V value) {
+        if (key instanceof Long id) {
+            return longs().putIfAbsent(id, value);
+        }
+        if (key instanceof Integer id) {
+            return ints().putIfAbsent(id, value);
+        }
+        return objects.putIfAbsent(key, value);
+    }
+
+    V remove(final Object key) {
+        if (key instanceof Long id) {
+            LongKeyTable<V> table = longs;
+            return table == null ? null : table.remove(id);
+        }
+        if (key instanceof Integer id) {
+            LongKeyTable<V> table = ints;
+            return table == null ? null : table.remove(id);
+        }
+        return objects.remove(key);
+    }
+
+    boolean remove(final Object key, final V expected) {
+        if (key instanceof Long id) {
+            LongKeyTable<V> table = longs;
+            return table != null && table.remove(id, expected);
+        }
+        if (key instanceof Integer id) {
+            LongKeyTable<V> table = ints;
+            return table != null && table.remove(id, expected);
+        }
+        return objects.remove(key, expected);
+    }
+
+    /**
+     * Passes the entries to the action, weakly consistent with concurrent writes. Long and Integer keys are boxed.
+     */
+    void forEach(final BiConsumer<Object, ? super V> action) {
+        objects.forEach(action);
+        LongKeyTable<V> longTable = longs;
+        if (longTable != null) {
+            longTable.forEach((id, value) -> action.accept(id, value));
+        }
+        LongKeyTable<V> intTable = ints;
+        if (intTable != null) {
+            intTable.forEach((id, value) -> action.accept((int) id, value));
+        }
+    }
+
+    /**
+     * Streams the keys lazily, weakly consistent with concurrent writes
+     * @param valueFilter selects the entries whose key is streamed
+     */
+    Stream<Object> keys(final Predicate<? super V> valueFilter) {
+        Stream<Object> keys = objects.entrySet().stream()
+                .filter(entry -> valueFilter.test(entry.getValue()))
+                .map(Map.Entry::getKey);
+        LongKeyTable<V> longTable = longs;
+        if (longTable != null) {
+            keys = Stream.concat(keys, longTable.keys(valueFilter).boxed());
+        }
+        LongKeyTable<V> intTable = ints;
+        if (intTable != null) {
+            keys = Stream.concat(keys, intTable.keys(valueFilter).mapToObj(id -> (int) id));
+        }
+        return keys;
+    }
+
+    long size() {
+        LongKeyTable<V> longTable = longs;
+        LongKeyTable<V> intTable = ints;
+        return objects.size()
+                + (longTable == null ? 0L : longTable.size())
+                + (intTable == null ? 0L : intTable.size());
+    }
+
+    void clear() {
+        objects.clear();
+        LongKeyTable<V> longTable = longs;
+        if (longTable != null) {
+            longTable.clear();
+        }
+        LongKeyTable<V> intTable = ints;
+        if (intTable != null) {
+            intTable.clear();
+        }
+    }
+
+    private LongKeyTable<V> longs() {
+        LongKeyTable<V> table = longs;
+        if (table == null) {
+            synchronized (this) {
+                table = longs;
+                if (table == null) {
+                    table = new LongKeyTable<>();
+                    longs = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private LongKeyTable<V> ints() {
+        LongKeyTable<V> table = ints;
+        if (table == null) {
+            synchronized (this) {
+                table = ints;
+                if (table == null) {
+                    table = new LongKeyTable<>();
+                    ints = table;
+                }
+            }
+        }
+        return table;
+    }
+}
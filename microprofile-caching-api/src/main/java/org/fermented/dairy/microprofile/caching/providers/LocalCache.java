@@ -0,0 +1,994 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * A single named cache of the {@link LocalHashMapCacheProvider}. Concurrent misses on the same key are coalesced into
+ * a single load: the first caller runs the getter, the others wait (without spinning) on the future of that load.
+ * <p>
+ * If the options set a maximum size, the cache is bounded by a {@link TinyLfuPolicy}. Writes and removals update the
+ * policy under a lock, hits are recorded only if the lock is free, so readers never wait on each other.
+ * <p>
+ * Values are held strongly, or through a soft or weak reference, as set by the {@link ValueStrength} of the options.
+ * Strong entries hold their value directly, without a reference object.
+ * <p>
+ * Long and Integer keys are held unboxed, in open addressing tables without a node per entry, see {@link EntryTable}.
+ * <p>
+ * Expired entries, and entries whose value was collected, are removed by {@link #cleanUp(long)}, run periodically by
+ * {@link LocalCacheMaintenance}. Writes queue a timer for the new entry, the maintenance moves the queued timers into a
+ * {@link TimerWheel} and removes the entries whose timers fire.
+ * <p>
+ * Caches with a refresh after write shorter than the TTL reload an entry once it is due for refresh. The first caller
+ * finding it due reloads it on its own thread, so that getters run in the context of the call that supplied them, while
+ * the other callers keep being served the current value.
+ * <p>
+ * Values can also be loaded asynchronously, by getters returning a {@link CompletionStage}. Synchronous and
+ * asynchronous loads of a key share the same in-flight future, so either kind of caller joins the other's load.
+ * <p>
+ * Values can also be written directly, replacing the current entry in place so that readers never miss in between.
+ * A load does not replace an entry written after it started, its result is older than the write.
+ * <p>
+ * Invalidations fence the loads in flight: they bump the invalidation generation of the key's stripe, and a load whose
+ * stripe generation changed while it ran returns its result without keeping it cached.
+ * <p>
+ * Hits, misses, loads and evictions are counted by a {@link StatsCounter}.
+ * <p>
+ * If the options set a negative TTL, null results are cached as a sentinel, and empty Optionals as they are, for that
+ * time. Negative entries are kept out of the size policy, they are bounded on their own, oldest first.
+ * <p>
+ * The live entries can be copied out with {@link #forEachLive(EntryVisitor)} and put back with
+ * {@link #restore(Object, Object, long)}, see {@link LocalCacheSnapshot}.
+ */
+@Log
+class LocalCache {
+
+    /**
+     * Completes loads of keys that a batch getter did not return, never published
+     */
+    private static final CacheEntry ABSENT = new StrongEntry(null, 0L);
+
+    /**
+     * Cached in place of null results, strongly reachable so that it is never collected
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * Number of invalidation generation stripes, a power of 2
+     */
+    private static final int GENERATION_STRIPES = 64;
+
+    private final EntryTable<CacheEntry> entries = new EntryTable<>();
+
+    private final Map<Object, CompletableFuture<CacheEntry>> loads = new ConcurrentHashMap<>();
+
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final Queue<Timer> scheduled = new ConcurrentLinkedQueue<>();
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    private final TimerWheel<Timer> timerWheel = new TimerWheel<>(Timer::expiresAt, System.nanoTime());
+
+    private final StatsCounter stats = new StatsCounter();
+
+    private final Queue<NegativeMark> negativeMarks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong negativeCount = new AtomicLong();
+
+    /**
+     * Invalidation generations, by stripe of keys. Striped rather than per key so that invalidations do not leave a
+     * generation behind per key, at the cost of fencing loads of other keys of the stripe too.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Getter
+    private volatile CacheOptions options;
+
+    private volatile TinyLfuPolicy policy;
+
+    /**
+     * Set once the provider dropped the cache, handles bound to it resolve the cache by name again
+     */
+    @Getter
+    private volatile boolean dropped;
+
+    LocalCache(final CacheOptions options) {
+        setOptions(options);
+    }
+
+    void setOptions(final CacheOptions options) {
+        policyLock.lock();
+        try {
+            this.options = options;
+            if (options.getMaximumSize() <= 0) {
+                policy = null;
+                return;
+            }
+            policy = new TinyLfuPolicy(options.getMaximumSize());
+            entries.forEach((key, entry) -> policy.recordWrite(key).forEach(this::evict));
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    <T, K> T loadAndGet(final K key,
+                        final Function<K, T> getter,
+                        final Class<T> tClass,
+                        final long ttl,
+                        final boolean cacheOptionalEmpties) {
+        CacheEntry value = entries.get(key);
+        long now = System.nanoTime();
+        if (value != null && value.isLiveAt(now)) {
+            stats.recordHit();
+            recordAccess(key);
+            if (isRefreshDueAt(value, now)) { //Reload on this thread, other callers are served the current value meanwhile
+                CacheEntry refreshed = refresh(key, getter, ttl, cacheOptionalEmpties);
+                return (refreshed == null ? value : refreshed).getValue(tClass);
+            }
+            return value.getValue(tClass); //Cache hit, return cached value
+        }
+        //cache miss, absent, Soft reference has been cleaned up or cache is expired
+        stats.recordMiss();
+        return load(key, getter, ttl, cacheOptionalEmpties).getValue(tClass);
+    }
+
+    /**
+     * Bulk variant of {@link #loadAndGet(Object, Function, Class, long, boolean)}. The keys that are neither cached nor
+     * being loaded by another caller are loaded with a single call of the batch getter.
+     */
+    <T, K> Map<K, T> loadAllAndGet(final Collection<K> keys,
+                                   final Function<Set<K>, Map<K, T>> batchGetter,
+                                   final Class<T> tClass,
+                                   final long ttl,
+                                   final boolean cacheOptionalEmpties) {
+        Map<K, CacheEntry> found = new HashMap<>();
+        Map<K, CompletableFuture<CacheEntry>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<CacheEntry>> inFlight = new HashMap<>();
+        List<K> refreshDue = new ArrayList<>();
+        long now = System.nanoTime();
+        for (K key : keys) {
+            if (found.containsKey(key) || owned.containsKey(key) || inFlight.containsKey(key)) {
+                continue; //Requested more than once
+            }
+            CacheEntry value = entries.get(key);
+            if (value != null && value.isLiveAt(now)) {
+                stats.recordHit();
+                recordAccess(key);
+                found.put(key, value);
+                if (isRefreshDueAt(value, now)) {
+                    refreshDue.add(key);
+                }
+                continue;
+            }
+            stats.recordMiss();
+            CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+            CompletableFuture<CacheEntry> loadInFlight = loads.putIfAbsent(key, loading);
+            CacheEntry current = entries.get(key);
+            if (loadInFlight != null) {
+                inFlight.put(key, loadInFlight);
+            } else if (current != null && current.isLive()) { //Loaded by another caller since the miss
+                loads.remove(key, loading);
+                loading.complete(current);
+                found.put(key, current);
+            } else {
+                owned.put(key, loading);
+            }
+        }
+        if (!refreshDue.isEmpty()) { //Reload on this thread, other callers are served the current values meanwhile
+            refreshAll(refreshDue, batchGetter, ttl, cacheOptionalEmpties).forEach((key, entry) -> {
+                if (entry != ABSENT) { //Not returned by the batch getter, the current value is kept
+                    found.put(key, entry);
+                }
+            });
+        }
+        if (!owned.isEmpty()) {
+            found.putAll(loadAllInto(owned, batchGetter, ttl, cacheOptionalEmpties));
+        }
+        inFlight.forEach((key, loading) -> found.put(key, await(loading)));
+
+        Map<K, T> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            CacheEntry entry = found.get(key);
+            T value = entry == null ? null : entry.getValue(tClass);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asynchronous variant of {@link #loadAndGet(Object, Function, Class, long, boolean)}. Misses join the in-flight
+     * load of the key if there is one, without blocking; they are not bound by the load timeout.
+     */
+    <T, K> CompletableFuture<T> loadAndGetAsync(final K key,
+                                                final Function<K, CompletionStage<T>> getter,
+                                                final Class<T> tClass,
+                                                final long ttl,
+                                                final boolean cacheOptionalEmpties) {
+        CacheEntry value = entries.get(key);
+        long now = System.nanoTime();
+        if (value != null && value.isLiveAt(now)) {
+            stats.recordHit();
+            recordAccess(key);
+            if (isRefreshDueAt(value, now)) { //Start the reload on this thread, serve the current value until it completes
+                refreshAsync(key, getter, ttl, cacheOptionalEmpties);
+            }
+            try {
+                return CompletableFuture.completedFuture(value.getValue(tClass)); //Cache hit, return cached value
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        stats.recordMiss();
+        return loadAsync(key, getter, ttl, cacheOptionalEmpties).thenApply(entry -> entry.getValue(tClass));
+    }
+
+    private <T, K> CompletableFuture<CacheEntry> loadAsync(final K key,
+                                                           final Function<K, CompletionStage<T>> getter,
+                                                           final long ttl,
+                                                           final boolean cacheOptionalEmpties) {
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> inFlight = loads.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        CacheEntry current = entries.get(key);
+        if (current != null && current.isLive()) { //Loaded by another caller since the miss
+            loads.remove(key, loading);
+            loading.complete(current);
+            return loading;
+        }
+        return loadIntoAsync(key, getter, ttl, cacheOptionalEmpties, loading);
+    }
+
+    private <T, K> CacheEntry load(final K key,
+                                   final Function<K, T> getter,
+                                   final long ttl,
+                                   final boolean cacheOptionalEmpties) {
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> inFlight = loads.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        CacheEntry current = entries.get(key);
+        if (current != null && current.isLive()) { //Loaded by another caller since the miss
+            loads.remove(key, loading);
+            loading.complete(current);
+            return current;
+        }
+        return loadInto(key, getter, ttl, cacheOptionalEmpties, loading);
+    }
+
+    /**
+     * Reloads an entry due for refresh on the calling thread
+     * @return the reloaded entry, null if the key is already being loaded or the reload failed
+     */
+    private <T, K> CacheEntry refresh(final K key,
+                                      final Function<K, T> getter,
+                                      final long ttl,
+                                      final boolean cacheOptionalEmpties) {
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, loading) != null) {
+            return null; //Already loading or refreshing
+        }
+        try {
+            return loadInto(key, getter, ttl, cacheOptionalEmpties, loading);
+        } catch (RuntimeException e) { //The current value is served until it expires
+            log.log(Level.WARNING, e, () -> "Refresh of cache entry " + key + " failed");
+            return null;
+        }
+    }
+
+    private <T, K> void refreshAsync(final K key,
+                                     final Function<K, CompletionStage<T>> getter,
+                                     final long ttl,
+                                     final boolean cacheOptionalEmpties) {
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, loading) != null) {
+            return; //Already loading or refreshing
+        }
+        loadIntoAsync(key, getter, ttl, cacheOptionalEmpties, loading).whenComplete((entry, failure) -> {
+            if (failure != null) { //The current value is served until it expires
+                log.log(Level.WARNING, failure, () -> "Refresh of cache entry " + key + " failed");
+            }
+        });
+    }
+
+    /**
+     * Reloads entries due for refresh on the calling thread, with a single call of the batch getter
+     * @return the reloaded entries, without the keys already being loaded, empty if the reload failed
+     */
+    private <T, K> Map<K, CacheEntry> refreshAll(final List<K> keys,
+                                                 final Function<Set<K>, Map<K, T>> batchGetter,
+                                                 final long ttl,
+                                                 final boolean cacheOptionalEmpties) {
+        Map<K, CompletableFuture<CacheEntry>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+            if (loads.putIfAbsent(key, loading) == null) { //Skip keys already loading or refreshing
+                owned.put(key, loading);
+            }
+        }
+        if (owned.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return loadAllInto(owned, batchGetter, ttl, cacheOptionalEmpties);
+        } catch (RuntimeException e) { //The current values are served until they expire
+            log.log(Level.WARNING, e, () -> "Refresh of cache entries " + owned.keySet() + " failed");
+            return Map.of();
+        }
+    }
+
+    /**
+     * Runs the batch getter for the keys, publishes the loaded entries and completes the in-flight loads registered for
+     * the keys. Keys the batch getter did not return complete with {@link #ABSENT}.
+     */
+    private <T, K> Map<K, CacheEntry> loadAllInto(final Map<K, CompletableFuture<CacheEntry>> owned,
+                                                  final Function<Set<K>, Map<K, T>> batchGetter,
+                                                  final long ttl,
+                                                  final boolean cacheOptionalEmpties) {
+        Map<K, Long> loadGenerations = new HashMap<>();
+        owned.keySet().forEach(key -> loadGenerations.put(key, generation(key)));
+        long start = System.nanoTime();
+        try {
+            Map<K, T> results;
+            try {
+                results = batchGetter.apply(Collections.unmodifiableSet(owned.keySet()));
+            } catch (RuntimeException | Error e) {
+                stats.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            Map<K, CacheEntry> loaded = new HashMap<>();
+            owned.forEach((key, loading) -> {
+                T result = results == null ? null : results.get(key);
+                CacheEntry entry = result == null
+                        ? ABSENT
+                        : publishLoaded(key, result, ttl, cacheOptionalEmpties, start, loadGenerations.get(key));
+                loading.complete(entry);
+                loaded.put(key, entry);
+            });
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            owned.values().forEach(loading -> loading.completeExceptionally(e));
+            throw e;
+        } finally {
+            owned.forEach(loads::remove);
+        }
+    }
+
+    /**
+     * Runs the getter, publishes the loaded entry and completes the in-flight load registered for the key
+     */
+    private <T, K> CacheEntry loadInto(final K key,
+                                       final Function<K, T> getter,
+                                       final long ttl,
+                                       final boolean cacheOptionalEmpties,
+                                       final CompletableFuture<CacheEntry> loading) {
+        long loadGeneration = generation(key);
+        long start = System.nanoTime();
+        try {
+            T result = getter.apply(key);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            CacheEntry loaded = publishLoaded(key, result, ttl, cacheOptionalEmpties, start, loadGeneration);
+            loading.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, loading);
+        }
+    }
+
+    /**
+     * Starts the getter, once its stage completes publishes the loaded entry and completes the in-flight load
+     * registered for the key
+     */
+    private <T, K> CompletableFuture<CacheEntry> loadIntoAsync(final K key,
+                                                               final Function<K, CompletionStage<T>> getter,
+                                                               final long ttl,
+                                                               final boolean cacheOptionalEmpties,
+                                                               final CompletableFuture<CacheEntry> loading) {
+        long loadGeneration = generation(key);
+        long start = System.nanoTime();
+        CompletionStage<T> stage;
+        try {
+            stage = getter.apply(key);
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            loading.completeExceptionally(e);
+            loads.remove(key, loading);
+            return loading;
+        }
+        stage.whenComplete((result, failure) -> {
+            if (failure == null) {
+                stats.recordLoadSuccess(System.nanoTime() - start);
+            } else {
+                stats.recordLoadFailure(System.nanoTime() - start);
+            }
+            try {
+                if (failure == null) {
+                    loading.complete(publishLoaded(key, result, ttl, cacheOptionalEmpties, start, loadGeneration));
+                } else {
+                    loading.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause()
+                            : failure);
+                }
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+            } finally {
+                loads.remove(key, loading);
+            }
+        });
+        return loading;
+    }
+
+    /**
+     * Writes a value, replacing the current entry of the key in place
+     */
+    void write(final Object key, final Object value, final long ttl, final boolean cacheOptionalEmpties) {
+        publish(key, value, ttl, cacheOptionalEmpties);
+    }
+
+    /**
+     * Publishes a loaded result, unless the key was written since the load started. If the key was invalidated since,
+     * the result is returned to the callers of the load but not kept.
+     * @param loadStart the start of the load (System.nanoTime)
+     * @param loadGeneration the invalidation generation of the key when the load started
+     */
+    private <T> CacheEntry publishLoaded(final Object key,
+                                         final T result,
+                                         final long ttl,
+                                         final boolean cacheOptionalEmpties,
+                                         final long loadStart,
+                                         final long loadGeneration) {
+        CacheEntry current = entries.get(key);
+        if (current != null && current.isLive() && current.getCreatedAt() - loadStart > 0) {
+            return current; //Written while loading, the write is newer than the result
+        }
+        CacheEntry published = publish(key, result, ttl, cacheOptionalEmpties);
+        //Checked after publishing: an invalidation bumping the generation later also removes the published entry
+        if (generation(key) != loadGeneration) {
+            remove(key, published); //Invalidated while loading, the result may predate the invalidation
+        }
+        return published;
+    }
+
+    private long generation(final Object key) {
+        return generations.get(stripe(key));
+    }
+
+    private static int stripe(final Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private <T> CacheEntry publish(final Object key, final T result, final long ttl, final boolean cacheOptionalEmpties) {
+        boolean emptyOptional = result instanceof Optional<?> optionalResult && optionalResult.isEmpty();
+        long negativeTtl = options.getNegativeTtl();
+        if ((result == null || emptyOptional) && negativeTtl > 0) {
+            CacheEntry negative = new NegativeEntry(result == null ? NULL_VALUE : result, negativeTtl); //Never collected, nor refreshed
+            putNegative(key, negative);
+            return negative;
+        }
+        CacheEntry loaded = newEntry(key, result, ttl);
+        if (result == null || emptyOptional && !cacheOptionalEmpties) {
+            discard(key);
+        } else {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private CacheEntry await(final CompletableFuture<CacheEntry> inFlight) {
+        long loadTimeout = options.getLoadTimeout();
+        try {
+            return inFlight.get(loadTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            stats.recordLoadTimeout();
+            throw new CacheRuntimeException(e, "cache value load not completed within %d ms", loadTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheRuntimeException(e, "interrupted while waiting for cache value load");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new CacheRuntimeException(e.getCause(), "cache value load failed");
+        }
+    }
+
+    private void recordAccess(final Object key) {
+        TinyLfuPolicy currentPolicy = policy;
+        if (currentPolicy != null && policyLock.tryLock()) { //Lossy, skip recording rather than contend with writers
+            try {
+                currentPolicy.recordAccess(key);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void put(final Object key, final CacheEntry entry) {
+        scheduled.add(newTimer(key, entry.getExpiresAt()));
+        if (policy == null) {
+            entries.put(key, entry);
+            return;
+        }
+        policyLock.lock();
+        try {
+            entries.put(key, entry);
+            if (policy != null) {
+                policy.recordWrite(key).forEach(this::evict);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a negative entry outside the size policy, evicting the oldest negative entry past the maximum negative size
+     */
+    private void putNegative(final Object key, final CacheEntry entry) {
+        scheduled.add(newTimer(key, entry.getExpiresAt()));
+        if (policy == null) {
+            entries.put(key, entry);
+        } else {
+            policyLock.lock();
+            try {
+                entries.put(key, entry);
+                if (policy != null) { //The key may have held a value
+                    policy.recordRemoval(key);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+
+        long maximumNegativeSize = options.getMaximumNegativeSize();
+        if (maximumNegativeSize <= 0) {
+            return;
+        }
+        negativeMarks.add(new NegativeMark(key, entry));
+        if (negativeCount.incrementAndGet() > maximumNegativeSize) {
+            NegativeMark oldest = negativeMarks.poll();
+            if (oldest != null) {
+                negativeCount.decrementAndGet();
+                if (entries.remove(oldest.key(), oldest.entry())) { //Already replaced or removed otherwise
+                    stats.recordEviction(EvictionCause.SIZE);
+                }
+            }
+        }
+    }
+
+    private static Timer newTimer(final Object key, final long expiresAt) {
+        return key instanceof Long id ? new LongTimer(id, expiresAt) : new ObjectTimer(key, expiresAt);
+    }
+
+    private CacheEntry newEntry(final Object key, final Object value, final long ttl) {
+        return switch (options.getEffectiveValueStrength()) {
+            case SOFT -> new ReferenceEntry(new KeyedSoftReference(key, value, collected), ttl);
+            case WEAK -> new ReferenceEntry(new KeyedWeakReference(key, value, collected), ttl);
+            default -> new StrongEntry(value, ttl);
+        };
+    }
+
+    /**
+     * An entry is due for refresh once it is older than the refresh after write of the cache, unless it expires before
+     * that. Derived from the entry's write and expiry times, so entries do not carry a refresh time of their own.
+     */
+    private boolean isRefreshDueAt(final CacheEntry entry, final long now) {
+        long refreshAfterWrite = TimeUnit.MILLISECONDS.toNanos(options.getRefreshAfterWrite());
+        return refreshAfterWrite > 0
+                && refreshAfterWrite < entry.getExpiresAt() - entry.getCreatedAt()
+                && entry.getCreatedAt() + refreshAfterWrite - now < 0
+                && !(entry instanceof NegativeEntry);
+    }
+
+    private boolean remove(final Object key, final CacheEntry entry) {
+        if (policy == null) {
+            return entries.remove(key, entry);
+        }
+        policyLock.lock();
+        try {
+            boolean removed = entries.remove(key, entry);
+            if (removed && policy != null) {
+                policy.recordRemoval(key);
+            }
+            return removed;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry the policy evicted, called under the policy lock
+     */
+    private void evict(final Object key) {
+        if (entries.remove(key) != null) {
+            stats.recordEviction(EvictionCause.SIZE);
+        }
+    }
+
+    /**
+     * Removes the entry of the key, and fences the loads of the key in flight: their results are not cached, and later
+     * misses start a new load rather than join them
+     */
+    void invalidate(final Object key) {
+        generations.incrementAndGet(stripe(key));
+        loads.remove(key);
+        discard(key);
+    }
+
+    private void discard(final Object key) {
+        if (policy == null) {
+            entries.remove(key);
+            return;
+        }
+        policyLock.lock();
+        try {
+            entries.remove(key);
+            if (policy != null) {
+                policy.recordRemoval(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Restores an entry from a snapshot, unless the key was loaded since
+     * @param ttl the remaining time to live (in ms)
+     */
+    void restore(final Object key, final Object value, final long ttl) {
+        CacheEntry restored = newEntry(key, value, ttl);
+        if (policy == null) {
+            if (entries.putIfAbsent(key, restored) == null) {
+                scheduled.add(newTimer(key, restored.getExpiresAt()));
+            }
+            return;
+        }
+        policyLock.lock();
+        try {
+            if (entries.putIfAbsent(key, restored) == null) {
+                scheduled.add(newTimer(key, restored.getExpiresAt()));
+                if (policy != null) {
+                    policy.recordWrite(key).forEach(this::evict);
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the live entries, with the time they have left to live, to the visitor
+     */
+    void forEachLive(final EntryVisitor visitor) {
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            Object value = entry.get();
+            long remaining = entry.getExpiresAt() - now;
+            if (value != null && value != NULL_VALUE && remaining >= 0) { //Negative entries are short lived, not worth keeping
+                visitor.visit(key, value, TimeUnit.NANOSECONDS.toMillis(remaining));
+            }
+        });
+    }
+
+    Set<Object> getKeys() {
+        long now = System.nanoTime();
+        Set<Object> keys = new HashSet<>();
+        entries.forEach((key, entry) -> {
+            if (entry.isLiveAt(now)) { //Skip expired entries not yet removed by the maintenance
+                keys.add(key);
+            }
+        });
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Streams the keys of the live entries lazily, without copying them, weakly consistent with concurrent writes
+     */
+    Stream<Object> streamKeys() {
+        long now = System.nanoTime();
+        return entries.keys(entry -> entry.isLiveAt(now));
+    }
+
+    CacheStats getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * @return the number of entries, including expired entries not yet removed, without visiting them
+     */
+    long size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes expired entries and entries whose value was collected. Skipped if a clean up is already running.
+     * @param now the current time (System.nanoTime)
+     */
+    void cleanUp(final long now) {
+        if (!maintenanceLock.tryLock()) {
+            return;
+        }
+        try {
+            Timer timer;
+            while ((timer = scheduled.poll()) != null) {
+                timerWheel.schedule(timer);
+            }
+            timerWheel.advance(now, expired -> expire(expired.key(), now));
+
+            Reference<?> reference;
+            while ((reference = collected.poll()) != null) {
+                reclaim((KeyedReference) reference);
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void expire(final Object key, final long now) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null && !entry.isLiveAt(now) && remove(key, entry)) { //The key may have been loaded again since the timer was scheduled
+            stats.recordEviction(EvictionCause.EXPIRED);
+        }
+    }
+
+    private void reclaim(final KeyedReference reference) {
+        CacheEntry entry = entries.get(reference.key());
+        if (entry instanceof ReferenceEntry referenceEntry && referenceEntry.value == reference && remove(reference.key(), entry)) {
+            stats.recordEviction(EvictionCause.COLLECTED);
+        }
+    }
+
+    void drop() {
+        dropped = true;
+    }
+
+    void clear() {
+        for (int stripe = 0; stripe < GENERATION_STRIPES; stripe++) {
+            generations.incrementAndGet(stripe);
+        }
+        loads.clear();
+        policyLock.lock();
+        try {
+            entries.clear();
+            negativeMarks.clear();
+            negativeCount.set(0L);
+            if (policy != null) {
+                policy.clear();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+
+        /**
+         * @param key the key of the entry
+         * @param value the cached value
+         * @param ttl the remaining time to live (in ms)
+         */
+        void visit(Object key, Object value, long ttl);
+    }
+
+    /**
+     * A negative entry in insertion order, removed when it reaches the head of the queue while over the limit
+     */
+    private record NegativeMark(Object key, CacheEntry entry) {
+    }
+
+    /**
+     * Expiry timer of an entry, holds the key only so that timers of evicted entries do not keep their values reachable
+     */
+    private interface Timer {
+
+        Object key();
+
+        long expiresAt();
+    }
+
+    private record ObjectTimer(Object key, long expiresAt) implements Timer {
+    }
+
+    /**
+     * Timer of a Long key, holds the key unboxed like the {@link EntryTable} does
+     */
+    private record LongTimer(long id, long expiresAt) implements Timer {
+
+        @Override
+        public Object key() {
+            return id;
+        }
+    }
+
+    /**
+     * Reference to a cached value that remembers its key, to remove the entry once the value is collected
+     */
+    private interface KeyedReference {
+
+        Object key();
+
+        Object get();
+    }
+
+    private static final class KeyedSoftReference extends SoftReference<Object> implements KeyedReference {
+
+        @SuppressWarnings("java:S1948") // There is no plan to serialize this object
+        private final Object key;
+
+        KeyedSoftReference(final Object key, final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+    }
+
+    private static final class KeyedWeakReference extends WeakReference<Object> implements KeyedReference {
+
+        @SuppressWarnings("java:S1948") // There is no plan to serialize this object
+        private final Object key;
+
+        KeyedWeakReference(final Object key, final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+    }
+
+    /**
+     * Entry holding its value directly
+     */
+    private static final class StrongEntry extends CacheEntry {
+
+        private final Object value;
+
+        StrongEntry(final Object value, final long ttl) {
+            super(ttl);
+            this.value = value;
+        }
+
+        @Override
+        Object get() {
+            return value;
+        }
+    }
+
+    /**
+     * Entry of a null result or empty Optional, held directly and never refreshed
+     */
+    private static final class NegativeEntry extends CacheEntry {
+
+        private final Object value;
+
+        NegativeEntry(final Object value, final long ttl) {
+            super(ttl);
+            this.value = value;
+        }
+
+        @Override
+        Object get() {
+            return value;
+        }
+    }
+
+    /**
+     * Entry holding its value through a soft or weak reference, the reference is created before the entry so that its
+     * allocation does not count against the TTL
+     */
+    private static final class ReferenceEntry extends CacheEntry {
+
+        private final KeyedReference value;
+
+        ReferenceEntry(final KeyedReference value, final long ttl) {
+            super(ttl);
+            this.value = value;
+        }
+
+        @Override
+        Object get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * An entry is its value (or a reference to it) and two primitive times, 32 bytes with compressed oops. Loads are
+     * coordinated through the in-flight futures of the cache, not through the entries.
+     */
+    abstract static class CacheEntry {
+
+        @Getter
+        private final long createdAt; //System.nanoTime
+
+        @Getter
+        private final long expiresAt; //System.nanoTime
+
+        CacheEntry(final long ttl) {
+            long now = System.nanoTime();
+            this.createdAt = now;
+            this.expiresAt = now + TimeUnit.MILLISECONDS.toNanos(ttl);
+        }
+
+        boolean isLive() {
+            return isLiveAt(System.nanoTime());
+        }
+
+        /**
+         * @return the cached value, null if it was collected
+         */
+        abstract Object get();
+
+        boolean isLiveAt(final long now) {
+            return get() != null && expiresAt - now >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T getValue(final Class<T> tClass) {
+            Object cached = get();
+            if (cached == null || cached == NULL_VALUE) {
+                return null;
+            }
+            if (tClass.isInstance(cached)) { //Declared types may be interfaces or superclasses of the loaded values
+                return (T) cached;
+            }
+            throw new CacheRuntimeException("Cached Object is of the incorrect type");
+        }
+    }
+}
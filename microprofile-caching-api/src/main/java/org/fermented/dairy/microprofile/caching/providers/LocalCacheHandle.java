@@ -0,0 +1,113 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Cache} handle of the {@link LocalHashMapCacheProvider}, bound to its {@link LocalCache}. Calls go straight
+ * to the cache, without looking it up by name, until the provider drops the cache; the handle then resolves the cache
+ * of its name again.
+ */
+final class LocalCacheHandle<K, V> implements Cache<K, V> {
+
+    private final String cacheName;
+
+    private final Class<V> valueType;
+
+    private final Function<String, LocalCache> resolver;
+
+    private volatile LocalCache cache;
+
+    LocalCacheHandle(final String cacheName, final Class<V> valueType, final Function<String, LocalCache> resolver) {
+        this.cacheName = cacheName;
+        this.valueType = valueType;
+        this.resolver = resolver;
+        this.cache = resolver.apply(cacheName);
+    }
+
+    @Override
+    public String getName() {
+        return cacheName;
+    }
+
+    @Override
+    public V loadAndGet(final K key, final Function<K, V> getter, final long ttl, final boolean cacheOptionalEmpties) {
+        checkTtl(ttl);
+        return cache().loadAndGet(key, getter, valueType, ttl, cacheOptionalEmpties);
+    }
+
+    @Override
+    public V loadAndGet(final K key, final Function<K, V> getter, final long ttl) {
+        return loadAndGet(key, getter, ttl, false);
+    }
+
+    @Override
+    public Map<K, V> loadAllAndGet(final Collection<K> keys, final Function<Set<K>, Map<K, V>> batchGetter, final long ttl) {
+        checkTtl(ttl);
+        return cache().loadAllAndGet(keys, batchGetter, valueType, ttl, false);
+    }
+
+    @Override
+    public CompletionStage<V> loadAndGetAsync(final K key, final Function<K, CompletionStage<V>> getter, final long ttl) {
+        if (ttl < 0) {
+            return CompletableFuture.failedFuture(new CacheRuntimeException("TTL cannot be negative"));
+        }
+        return cache().loadAndGetAsync(key, getter, valueType, ttl, false);
+    }
+
+    @Override
+    public void put(final K key, final V value, final long ttl) {
+        checkTtl(ttl);
+        cache().write(key, value, ttl, true);
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        cache().invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll(final Collection<K> keys) {
+        LocalCache current = cache();
+        keys.forEach(current::invalidate);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Stream<K> streamKeys() {
+        return (Stream<K>) cache().streamKeys();
+    }
+
+    @Override
+    public long size() {
+        return cache().size();
+    }
+
+    @Override
+    public void clear() {
+        cache().clear();
+    }
+
+    private LocalCache cache() {
+        LocalCache current = cache;
+        if (current.isDropped()) {
+            current = resolver.apply(cacheName);
+            cache = current;
+        }
+        return current;
+    }
+
+    private static void checkTtl(final long ttl) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import lombok.extern.java.Log;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Runs the maintenance of all registered {@link LocalCache}s (expiry and reclaiming of collected values) on a single
+ * background daemon thread, so that the read and write paths of the caches never sweep.
+ */
+@Log
+final class LocalCacheMaintenance {
+
+    static final long MAINTENANCE_PERIOD = 1000L; //1 s, the resolution of the finest timer wheel
+
+    private static final List<Supplier<Collection<LocalCache>>> REGISTERED = new CopyOnWriteArrayList<>();
+
+    private LocalCacheMaintenance() {
+    }
+
+    /**
+     * @param caches supplies the caches to maintain, called on each maintenance run
+     */
+    static void register(final Supplier<Collection<LocalCache>> caches) {
+        REGISTERED.add(caches);
+        Scheduler.start();
+    }
+
+    /**
+     * @param caches the supplier passed to {@link #register(Supplier)}, its caches are no longer maintained
+     */
+    static void unregister(final Supplier<Collection<LocalCache>> caches) {
+        REGISTERED.remove(caches);
+    }
+
+    private static void run() {
+        long now = System.nanoTime();
+        for (Supplier<Collection<LocalCache>> caches : REGISTERED) {
+            for (LocalCache cache : caches.get()) {
+                try {
+                    cache.cleanUp(now);
+                } catch (RuntimeException e) {
+                    log.log(Level.WARNING, "Local cache maintenance failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Holder, starts the maintenance thread on first registration
+     */
+    private static final class Scheduler {
+
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-cache-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            EXECUTOR.scheduleWithFixedDelay(LocalCacheMaintenance::run, MAINTENANCE_PERIOD, MAINTENANCE_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        private Scheduler() {
+        }
+
+        static void start() {
+            //Loading the class schedules the maintenance
+        }
+    }
+}
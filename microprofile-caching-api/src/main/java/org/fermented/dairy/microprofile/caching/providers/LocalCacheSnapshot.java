@@ -0,0 +1,252 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import lombok.extern.java.Log;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueCodec;
+
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the live entries of {@link LocalCache}s to a file, and restores them, so that a restarted application starts
+ * with warm caches. Keys and values are encoded by a {@link ValueCodec}, entries that it cannot encode are skipped.
+ * <p>
+ * Expiry times are written as wall clock times, entries that expired while the application was down are not restored.
+ * The file is written through a {@link FileChannel} to a temporary file that then replaces the previous snapshot, so a
+ * crash while writing never leaves a partial snapshot behind. It is read memory mapped, and the records are decoded
+ * in parallel.
+ * <p>
+ * A snapshot file is only as trustworthy as the directory it sits in, so the default codec decodes the records of a
+ * cache through a {@link #filter(Collection, String) filter} that only accepts the classes declared as cached in that
+ * cache, the usual JDK value types and the classes configured by the provider.
+ * <p>
+ * File layout: magic (int), then records of cache name length (int), cache name (UTF-8), value kind (byte), expiry
+ * time (long, epoch ms), key length (int), key, value length (int), value.
+ */
+@Log
+final class LocalCacheSnapshot {
+
+    private static final int MAGIC = 0x4C435331; //LCS1
+
+    private static final byte VALUE = 0;
+
+    private static final byte EMPTY_OPTIONAL = 1;
+
+    private static final byte PRESENT_OPTIONAL = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The JDK classes of keys and of the fields of cached values that are always decoded
+     */
+    private static final String VALUE_CLASSES = "java.lang.String;java.lang.Number;java.lang.Long;java.lang.Integer;"
+            + "java.lang.Short;java.lang.Byte;java.lang.Double;java.lang.Float;java.lang.Character;java.lang.Boolean;"
+            + "java.math.BigInteger;java.math.BigDecimal;java.util.UUID;java.time.*";
+
+    private LocalCacheSnapshot() {
+    }
+
+    /**
+     * @param path the snapshot file, replaced if it exists
+     * @param caches the caches to write, by name
+     * @param codec encodes the keys and values
+     * @return the number of entries written
+     */
+    static long write(final Path path, final Map<String, LocalCache> caches, final ValueCodec codec) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        AtomicLong written = new AtomicLong();
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RecordWriter writer = new RecordWriter(channel);
+            writer.buffer.putInt(MAGIC);
+            for (Map.Entry<String, LocalCache> cache : caches.entrySet()) {
+                byte[] cacheName = cache.getKey().getBytes(StandardCharsets.UTF_8);
+                long now = System.currentTimeMillis();
+                cache.getValue().forEachLive((key, value, ttl) -> {
+                    if (writer.write(cacheName, key, value, now + ttl, codec)) {
+                        written.incrementAndGet();
+                    }
+                });
+            }
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not write cache snapshot %s", path);
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not replace cache snapshot %s", path);
+        }
+        return written.get();
+    }
+
+    /**
+     * @param path the snapshot file
+     * @param caches looks up the cache, by name, to restore entries into
+     * @param codecs looks up the codec, by cache name, decoding the keys and values of the cache
+     * @return the number of entries restored
+     */
+    static long read(final Path path, final Function<String, LocalCache> caches, final Function<String, ValueCodec> codecs) {
+        List<SnapshotRecord> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new CacheRuntimeException("%s is not a cache snapshot", path);
+            }
+            long now = System.currentTimeMillis();
+            while (buffer.hasRemaining()) {
+                SnapshotRecord snapshotRecord = SnapshotRecord.read(buffer);
+                if (snapshotRecord.expiresAt() > now) { //Skip the entries that expired since the snapshot, undecoded
+                    records.add(snapshotRecord);
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            log.log(Level.WARNING, e, () -> "Truncated cache snapshot " + path + ", restoring the complete records");
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not read cache snapshot %s", path);
+        }
+
+        return records.parallelStream()
+                .filter(snapshotRecord -> snapshotRecord.restore(caches, codecs.apply(snapshotRecord.cacheName())))
+                .count();
+    }
+
+    /**
+     * @param cachedClasses the classes declared as cached in a cache
+     * @param extraClasses an {@link ObjectInputFilter} pattern of the other classes the values of the cache are made of,
+     *                     null if none
+     * @return the filter accepting only the cached classes, the extra classes and the JDK value types
+     */
+    static ObjectInputFilter filter(final Collection<Class<?>> cachedClasses, final String extraClasses) {
+        String cached = cachedClasses.stream()
+                .map(cachedClass -> cachedClass.getName() + ";")
+                .collect(Collectors.joining());
+        String extra = extraClasses == null || extraClasses.isBlank() ? "" : extraClasses.strip() + ";";
+        //java.lang.Enum is read as the superclass of any enum, it lets through only the enums accepted otherwise
+        return ObjectInputFilter.Config.createFilter(VALUE_CLASSES + ";" + cached + extra + "java.lang.Enum;!*");
+    }
+
+    /**
+     * Buffers the records and writes them to the channel whenever the buffer is full
+     */
+    private static final class RecordWriter {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private RecordWriter(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private boolean write(final byte[] cacheName, final Object key, final Object value, final long expiresAt, final ValueCodec codec) {
+            byte kind;
+            byte[] keyBytes;
+            byte[] valueBytes;
+            try {
+                keyBytes = codec.encode(key);
+                if (value instanceof Optional<?> optionalValue) {
+                    kind = optionalValue.isPresent() ? PRESENT_OPTIONAL : EMPTY_OPTIONAL;
+                    valueBytes = optionalValue.isPresent() ? codec.encode(optionalValue.get()) : new byte[0];
+                } else {
+                    kind = VALUE;
+                    valueBytes = codec.encode(value);
+                }
+            } catch (CacheRuntimeException e) {
+                log.log(Level.FINE, e, () -> "Skipping cache entry that cannot be encoded");
+                return false;
+            }
+
+            int recordSize = 3 * Integer.BYTES + cacheName.length + Byte.BYTES + Long.BYTES + keyBytes.length + valueBytes.length;
+            try {
+                if (recordSize > buffer.remaining()) {
+                    flush();
+                }
+                ByteBuffer target = recordSize > buffer.capacity() ? ByteBuffer.allocate(recordSize) : buffer;
+                target.putInt(cacheName.length).put(cacheName)
+                        .put(kind)
+                        .putLong(expiresAt)
+                        .putInt(keyBytes.length).put(keyBytes)
+                        .putInt(valueBytes.length).put(valueBytes);
+                if (target != buffer) { //Larger than the buffer, written on its own
+                    writeFully(target.flip());
+                }
+            } catch (IOException e) {
+                throw new CacheRuntimeException(e, "Could not write cache snapshot");
+            }
+            return true;
+        }
+
+        private void flush() throws IOException {
+            writeFully(buffer.flip());
+            buffer.clear();
+        }
+
+        private void writeFully(final ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * A record of the snapshot, its key and value still encoded
+     */
+    private record SnapshotRecord(String cacheName, byte kind, long expiresAt, byte[] key, byte[] value) {
+
+        private static SnapshotRecord read(final ByteBuffer buffer) {
+            String cacheName = new String(bytes(buffer), StandardCharsets.UTF_8);
+            byte kind = buffer.get();
+            long expiresAt = buffer.getLong();
+            return new SnapshotRecord(cacheName, kind, expiresAt, bytes(buffer), bytes(buffer));
+        }
+
+        private static byte[] bytes(final ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Corrupt record length " + length);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private boolean restore(final Function<String, LocalCache> caches, final ValueCodec codec) {
+            long ttl = expiresAt - System.currentTimeMillis();
+            if (ttl <= 0) {
+                return false;
+            }
+            try {
+                Object decodedValue = switch (kind) {
+                    case EMPTY_OPTIONAL -> Optional.empty();
+                    case PRESENT_OPTIONAL -> Optional.of(codec.decode(value, Object.class));
+                    default -> codec.decode(value, Object.class);
+                };
+                caches.apply(cacheName).restore(codec.decode(key, Object.class), decodedValue, ttl);
+                return true;
+            } catch (CacheRuntimeException e) { //Classes changed since the snapshot, leave the entry to be loaded
+                log.log(Level.FINE, e, () -> "Skipping cache entry that cannot be decoded");
+                return false;
+            }
+        }
+    }
+}
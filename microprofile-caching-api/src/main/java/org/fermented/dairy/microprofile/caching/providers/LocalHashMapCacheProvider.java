@@ -1,27 +1,115 @@
 package org.fermented.dairy.microprofile.caching.providers;
 
-import lombok.Getter;
+import lombok.extern.java.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
-import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.AsyncCacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueCodec;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+import org.fermented.dairy.microprofile.caching.interceptors.CachingExtension;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
 
-import java.lang.ref.SoftReference;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.stream.Stream;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
 
+/**
+ * Cache provider keeping the cached values on the heap, in {@link LocalCache}s.
+ * <p>
+ * If a snapshot path is configured, the live entries are written to it on shutdown (and periodically, if a snapshot
+ * period is configured) and restored from it when the provider starts, see {@link LocalCacheSnapshot}.
+ */
+@Log
 @ApplicationScoped
-public class LocalHashMapCacheProvider implements CacheProvider {
+public class LocalHashMapCacheProvider implements AsyncCacheProvider {
 
-    private static final long CACHE_FETCH_TIMEOUT = 10000L; //10 s
+    private static final Map<String, LocalCache> CACHES = new ConcurrentHashMap<>();
 
-    private static final Map<String, Map<Object, CacheEntry>> CACHES = new ConcurrentHashMap<>();
+    private static final Map<String, CacheOptions> CACHE_OPTIONS = new ConcurrentHashMap<>();
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.local.snapshot.path")
+    private Optional<String> snapshotPath;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.local.snapshot.period", defaultValue = "0") //Only on shutdown
+    private Long snapshotPeriod;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.local.snapshot.classes")
+    private Optional<String> snapshotClasses;
+
+    @Inject
+    private Instance<ValueCodec> valueCodecs;
+
+    @Inject
+    private CachingExtension cachingExtension;
+
+    @Inject
+    private Instance<InvalidationBroadcaster> invalidationBroadcaster;
+
+    private final Supplier<Collection<LocalCache>> maintained = CACHES::values;
+
+    private ScheduledExecutorService snapshotScheduler;
+
+    @PostConstruct
+    void init() {
+        LocalCacheMaintenance.register(maintained);
+        if (snapshotPath == null || snapshotPath.isEmpty()) {
+            return;
+        }
+        Path path = Path.of(snapshotPath.get());
+        if (Files.exists(path)) {
+            try {
+                long restored = restoreSnapshot(path);
+                log.info(() -> "Restored " + restored + " cache entries from " + path);
+            } catch (CacheRuntimeException e) { //Start cold rather than not at all
+                log.log(Level.WARNING, e, () -> "Could not restore cache snapshot " + path);
+            }
+        }
+        if (snapshotPeriod > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "local-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(() -> writeScheduledSnapshot(path),
+                    snapshotPeriod, snapshotPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        LocalCacheMaintenance.unregister(maintained);
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        if (snapshotPath != null && snapshotPath.isPresent()) {
+            writeScheduledSnapshot(Path.of(snapshotPath.get()));
+        }
+    }
 
     @Override
     public <T, K> T loadAndGetFromCache(final K key,
@@ -34,141 +122,201 @@ public class LocalHashMapCacheProvider implements CacheProvider {
             throw new CacheRuntimeException("TTL cannot be negative");
         }
 
-        CacheEntry value = getCache(cacheName)
-                .get(key);
+        return getCache(cacheName).loadAndGet(key, getter, tClass, ttl, cacheOptionalEmpties);
+    }
 
-        if (value == null) { //cache miss, add fetched value
-            value = getNewCacheEntry(key, cacheName, getter, ttl, cacheOptionalEmpties);
-            return value.getValue(tClass);
+    @Override
+    public <T, K> Map<K, T> loadAllAndGetFromCache(final Collection<K> keys,
+                                                   final String cacheName,
+                                                   final Function<Set<K>, Map<K, T>> batchGetter,
+                                                   final Class<T> tClass,
+                                                   final long ttl,
+                                                   final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
         }
 
-        LocalDateTime cacheFetchTimeout = LocalDateTime.now().plus(CACHE_FETCH_TIMEOUT, ChronoUnit.MILLIS);
+        return getCache(cacheName).loadAllAndGet(keys, batchGetter, tClass, ttl, cacheOptionalEmpties);
+    }
 
-        while (value.isLocked()) {
-            if (cacheFetchTimeout.isBefore(LocalDateTime.now())) {
-                throw new CacheRuntimeException("cache value lock not released within timeout");
-            }
+    @Override
+    public <T, K> CompletionStage<T> loadAndGetFromCacheAsync(final K key,
+                                                              final String cacheName,
+                                                              final Function<K, CompletionStage<T>> getter,
+                                                              final Class<T> tClass,
+                                                              final long ttl,
+                                                              final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            return CompletableFuture.failedFuture(new CacheRuntimeException("TTL cannot be negative"));
         }
 
-        if (value.getValue() == null ||
-                value.getExpiry().isBefore(LocalDateTime.now())) { //cache miss, Soft reference has been cleaned up or cache is expired
-            updateCacheValue(key, cacheName, getter, ttl, value, cacheOptionalEmpties);
-            return value.getValue(tClass);
-        }
-        return value.getValue(tClass); //Cache hit, return cached value
+        return getCache(cacheName).loadAndGetAsync(key, getter, tClass, ttl, cacheOptionalEmpties);
     }
 
-    private <T, K> void updateCacheValue(K key, String cacheName, Function<K, T> getter, long ttl, CacheEntry value, boolean cacheOptionalEmpties) {
-        try {
-            value.lock();
-            T result = getter.apply(key);
-            if((result instanceof @SuppressWarnings("rawtypes")Optional optionalResult) && optionalResult.isEmpty() && !cacheOptionalEmpties) {
-                getCache(cacheName).remove(key);
-            }
-            value.setValue(result);
-            value.updateTTL(ttl);
-        } finally {
-            value.unlock();
+    @Override
+    public <T, K> T replaceCacheEntry(final K key,
+                                      final String cacheName,
+                                      final Function<K, T> getter,
+                                      final Class<T> tClass,
+                                      final long ttl,
+                                      final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
         }
+
+        T value = getter.apply(key);
+        getCache(cacheName).write(key, value, ttl, cacheOptionalEmpties);
+        return value;
     }
 
-    private <T, K> CacheEntry getNewCacheEntry(final K key,
-                                               final String cacheName,
-                                               final Function<K, T> getter,
-                                               final long ttl,
-                                               final boolean cacheOptionalEmpties) {
-        CacheEntry value = new CacheEntry();
-        try {
-            getCache(cacheName).put(key, value);
-            value.lock();
-            T result = getter.apply(key);
-            if(result instanceof Optional<?> optionalResult && optionalResult.isEmpty() && !cacheOptionalEmpties) {
-                getCache(cacheName).remove(key);
-            }
-            value.setValue(result);
-            value.updateTTL(ttl);
-        } finally {
-            value.unlock();
+    @Override
+    public <T, K> void putCacheEntry(final K key, final String cacheName, final T value, final long ttl) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
         }
-        return value;
+
+        getCache(cacheName).write(key, value, ttl, true);
     }
 
     @Override
     public <K> void invalidateCacheEntry(final K key, final String cacheName) {
-        getCache(cacheName).remove(key);
+        getCache(cacheName).invalidate(key);
 
     }
 
+    @Override
+    public <K> void invalidateCacheEntries(final Collection<K> keys, final String cacheName) {
+        LocalCache cache = getCache(cacheName);
+        keys.forEach(cache::invalidate);
+    }
+
     @Override
     public Collection<String> getCacheNames() {
         return CACHES.keySet();
     }
 
+    @Override
+    public Optional<CacheStats> getStats(final String cacheName) {
+        return Optional.ofNullable(CACHES.get(cacheName)).map(LocalCache::getStats);
+    }
+
     @Override
     public Collection<Object> getKeys(final String cacheName) {
-        Map<Object, CacheEntry> cache = getCache(cacheName);
-        cache.entrySet().stream()
-                .filter(entry -> !entry.getValue().isLocked())//Being updated anyway
-                .filter(entry -> entry.getValue().getExpiry().isBefore(LocalDateTime.now()))
-                .forEach(entry -> cache.remove(entry.getKey()));
-        return getCache(cacheName).keySet();
+        return getCache(cacheName).getKeys();
     }
 
     @Override
-    public void clearCache(final String cacheName) {
-        getCache(cacheName).clear();
+    public Stream<Object> streamKeys(final String cacheName) {
+        LocalCache cache = CACHES.get(cacheName);
+        return cache == null ? Stream.empty() : cache.streamKeys();
     }
 
     @Override
-    public String getProviderName() {
-        return "LocalHashMapCache";
+    public long size(final String cacheName) {
+        LocalCache cache = CACHES.get(cacheName);
+        return cache == null ? 0L : cache.size();
     }
 
+    @Override
+    public void clearCache(final String cacheName) {
+        getCache(cacheName).clear();
+        if (invalidationBroadcaster != null && invalidationBroadcaster.isResolvable()) {
+            invalidationBroadcaster.get().publishClear(getProviderName(), cacheName);
+        }
+    }
 
-    private Map<Object, CacheEntry> getCache(final String cacheName) {
-        if (!CACHES.containsKey(cacheName) || CACHES.get(cacheName) == null) {//NOSONAR: javaS3824: compile issue otherwise
-            CACHES.put(cacheName, new ConcurrentHashMap<>());
+    @Override
+    public void configureCache(final String cacheName, final CacheOptions options) {
+        if (options.getValueStrength() == ValueStrength.STRONG && options.getMaximumSize() <= 0) {
+            log.warning(() -> "Cache " + cacheName + " holds its values strongly without a maximum size, it can grow until the heap runs out");
+        }
+        CACHE_OPTIONS.put(cacheName, options);
+        LocalCache cache = CACHES.get(cacheName);
+        if (cache != null) {
+            cache.setOptions(options);
         }
-        return CACHES.get(cacheName);
     }
 
+    /**
+     * Gets a handle bound to the {@link LocalCache} of the name, so its calls skip the lookup of the cache by name. The
+     * handle resolves the cache again once it is dropped.
+     */
     @Override
-    public void dropAllCaches(){
-        CACHES.clear();
+    public <K, V> Cache<K, V> getCache(final String cacheName, final Class<K> keyType, final Class<V> valueType) {
+        return new LocalCacheHandle<>(cacheName, valueType, this::getCache);
     }
 
-    @Getter
-    private static class CacheEntry extends ReentrantLock {
+    @Override
+    public String getProviderName() {
+        return "LocalHashMapCache";
+    }
 
-        CacheEntry() {
-            expiry = LocalDateTime.now();
-        }
 
-        private LocalDateTime expiry;
+    private LocalCache getCache(final String cacheName) {
+        return CACHES.computeIfAbsent(cacheName,
+                name -> new LocalCache(CACHE_OPTIONS.getOrDefault(name, CacheOptions.DEFAULT)));
+    }
 
-        @SuppressWarnings({"java:S1948", // There is no plan to serialize this object, ignore that this field is not serializable
-                "rawtypes" //Can't generify this right now
-        })
-        private SoftReference value;
+    /**
+     * Writes the live entries of all caches to a snapshot file
+     * @param path the snapshot file, replaced if it exists
+     * @return the number of entries written
+     */
+    public long writeSnapshot(final Path path) {
+        return LocalCacheSnapshot.write(path, CACHES, getValueCodec());
+    }
 
-        public void setValue(final Object value) {
-            this.value = new SoftReference<>(value);
+    /**
+     * Restores the entries of a snapshot file that have not expired yet. Keys loaded since the start are kept.
+     * <p>
+     * Unless there is a {@link ValueCodec} bean, an entry is only decoded if it is made of the classes cached in its
+     * cache by the intercepted methods, JDK value types and the classes matched by
+     * org.fermented.diary.caching.local.snapshot.classes (an {@link java.io.ObjectInputFilter} pattern).
+     * @param path the snapshot file
+     * @return the number of entries restored
+     */
+    public long restoreSnapshot(final Path path) {
+        if (valueCodecs != null && valueCodecs.isResolvable()) {
+            ValueCodec valueCodec = valueCodecs.get();
+            return LocalCacheSnapshot.read(path, this::getCache, cacheName -> valueCodec);
         }
+        Map<String, ValueCodec> codecs = new ConcurrentHashMap<>();
+        return LocalCacheSnapshot.read(path, this::getCache, cacheName -> codecs.computeIfAbsent(cacheName,
+                name -> new SerializableValueCodec(LocalCacheSnapshot.filter(cachedClasses(name),
+                        snapshotClasses == null ? null : snapshotClasses.orElse(null)))));
+    }
 
-        @SuppressWarnings({"unchecked", "DataFlowIssue"})
-        public <T> T getValue(final Class<T> tClass) {
-            if (value != null && value.get() != null) {
-                if (tClass.equals(value.get().getClass())) {
-                    return (T) value.get();
-                } else {
-                    throw new CacheRuntimeException("Cached Object is of the incorrect type");
-                }
-            }
-            return null;
-        }
+    private Set<Class<?>> cachedClasses(final String cacheName) {
+        return cachingExtension == null ? Set.of() : cachingExtension.cachedClasses(cacheName);
+    }
 
-        public void updateTTL(final long ttl) {
-            expiry = LocalDateTime.now().plus(ttl, ChronoUnit.MILLIS);
+    private void writeScheduledSnapshot(final Path path) {
+        try {
+            long written = writeSnapshot(path);
+            log.fine(() -> "Wrote " + written + " cache entries to " + path);
+        } catch (CacheRuntimeException e) {
+            log.log(Level.WARNING, e, () -> "Could not write cache snapshot " + path);
         }
     }
+
+    private ValueCodec getValueCodec() {
+        return valueCodecs != null && valueCodecs.isResolvable() ? valueCodecs.get() : new SerializableValueCodec();
+    }
+
+    /**
+     * Runs the pending maintenance (removal of expired entries and of entries whose value was collected) of all caches
+     * on the calling thread, instead of waiting for the background maintenance
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        CACHES.values().forEach(cache -> cache.cleanUp(now));
+    }
+
+    @Override
+    public void dropAllCaches(){
+        CACHES.forEach((name, cache) -> {
+            CACHES.remove(name, cache);
+            cache.drop(); //After the removal, so that handles resolving it again get a new cache
+        });
+    }
 }
@@ -0,0 +1,304 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Concurrent hash table of primitive long keys, without a boxed key or a node per entry: keys and values live in two
+ * parallel arrays, probed linearly.
+ * <p>
+ * The table is split into segments by the high bits of the key hash. Writes lock their segment, reads never lock.
+ * A slot's key is written once, before its first value is published, and never changes afterwards, so a reader that
+ * sees a value sees its key. Removed values leave a tombstone that only the same key reuses; tombstones are dropped when
+ * the segment is rehashed into a new table, which is then published as a whole.
+ * <p>
+ * Reads are weakly consistent, like those of a ConcurrentHashMap: a read racing with a write may return the value from
+ * just before it.
+ *
+ * @param <V> the value type
+ */
+final class LongKeyTable<V> {
+
+    private static final int SEGMENT_BITS = 4;
+
+    private static final int MIN_CAPACITY = 8;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final Object TOMBSTONE = new Object();
+
+    /**
+     * Shared by the segments until their first write, a single empty slot ends every probe
+     */
+    private static final Table EMPTY = new Table(1);
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    LongKeyTable() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the key, null if absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(final long key) {
+        int hash = hash(key);
+        Table table = segmentFor(hash).table;
+        for (int i = hash & table.mask; ; i = (i + 1) & table.mask) {
+            Object value = SLOTS.getAcquire(table.values, i);
+            if (value == null) {
+                return null;
+            }
+            if (table.keys[i] == key) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+        }
+    }
+
+    /**
+     * @param key the key
+     * @param value the new value of the key, not null
+     * @return the previous value of the key, null if absent
+     */
+    V put(final long key, final V value) {
+        Segment segment = segmentFor(hash(key));
+        segment.lock.lock();
+        try {
+            return segment.put(key, value, false);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @param key the key
+     * @param value the value of the key, if absent
+     * @return the current value of the key, null if the value was put
+     */
+    V putIfAbsent(final long key, final V value) {
+        Segment segment = segmentFor(hash(key));
+        segment.lock.lock();
+        try {
+            return segment.put(key, value, true);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the removed value, null if absent
+     */
+    V remove(final long key) {
+        Segment segment = segmentFor(hash(key));
+        segment.lock.lock();
+        try {
+            return segment.remove(key, null);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * @param key the key
+     * @param expected the value to remove
+     * @return whether the key held the expected value, and was removed
+     */
+    boolean remove(final long key, final V expected) {
+        Segment segment = segmentFor(hash(key));
+        segment.lock.lock();
+        try {
+            return segment.remove(key, expected) != null;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Passes the entries to the action, weakly consistent with concurrent writes
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(final LongEntryConsumer<? super V> action) {
+        for (Segment segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.values.length; i++) {
+                Object value = SLOTS.getAcquire(table.values, i);
+                if (value != null && value != TOMBSTONE) {
+                    action.accept(table.keys[i], (V) value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the keys lazily, segment by segment, weakly consistent with concurrent writes
+     * @param valueFilter selects the entries whose key is streamed
+     */
+    @SuppressWarnings("unchecked")
+    LongStream keys(final Predicate<? super V> valueFilter) {
+        return Arrays.stream(segments).flatMapToLong(segment -> {
+            Table table = segment.table;
+            return IntStream.range(0, table.values.length)
+                    .filter(i -> {
+                        Object value = SLOTS.getAcquire(table.values, i);
+                        return value != null && value != TOMBSTONE && valueFilter.test((V) value);
+                    })
+                    .mapToLong(i -> table.keys[i]);
+        });
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.table = EMPTY;
+                segment.size = 0;
+                segment.used = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    private Segment segmentFor(final int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static int hash(final long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L; //Fibonacci hashing, sequential ids spread over all segments and slots
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    @FunctionalInterface
+    interface LongEntryConsumer<V> {
+
+        void accept(long key, V value);
+    }
+
+    /**
+     * The keys and values of a segment, replaced as a whole on rehash
+     */
+    private static final class Table {
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private final int mask;
+
+        private Table(final int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Table table = EMPTY;
+
+        private volatile int size; //Live slots, written under the lock
+
+        private int used; //Live and tombstone slots, under the lock
+
+        @SuppressWarnings("unchecked")
+        private <V> V put(final long key, final V value, final boolean onlyIfAbsent) {
+            int hash = hash(key);
+            Table current = table;
+            int i = hash & current.mask;
+            for (; ; i = (i + 1) & current.mask) {
+                Object slot = current.values[i];
+                if (slot == null) {
+                    break;
+                }
+                if (current.keys[i] == key) {
+                    if (slot != TOMBSTONE && onlyIfAbsent) {
+                        return (V) slot;
+                    }
+                    SLOTS.setRelease(current.values, i, value);
+                    if (slot == TOMBSTONE) {
+                        size++;
+                        return null;
+                    }
+                    return (V) slot;
+                }
+            }
+            if ((used + 1) * 4L > current.values.length * 3L) { //Keep a quarter of the slots empty, probes stay short
+                current = rehash(size + 1);
+                i = hash & current.mask;
+                while (current.values[i] != null) { //The new table has neither tombstones nor this key
+                    i = (i + 1) & current.mask;
+                }
+            }
+            current.keys[i] = key;
+            SLOTS.setRelease(current.values, i, value);
+            size++;
+            used++;
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> V remove(final long key, final V expected) {
+            Table current = table;
+            for (int i = hash(key) & current.mask; ; i = (i + 1) & current.mask) {
+                Object slot = current.values[i];
+                if (slot == null) {
+                    return null;
+                }
+                if (current.keys[i] == key) {
+                    if (slot == TOMBSTONE || expected != null && slot != expected) {
+                        return null;
+                    }
+                    SLOTS.setRelease(current.values, i, TOMBSTONE);
+                    size--;
+                    return (V) slot;
+                }
+            }
+        }
+
+        /**
+         * Copies the live entries into a new table, at most half full once the new entries are in
+         */
+        private Table rehash(final int entries) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < entries * 2) {
+                capacity <<= 1;
+            }
+            Table current = table;
+            Table rehashed = new Table(capacity);
+            for (int i = 0; i < current.values.length; i++) {
+                Object value = current.values[i];
+                if (value != null && value != TOMBSTONE) {
+                    int slot = hash(current.keys[i]) & rehashed.mask;
+                    while (rehashed.values[slot] != null) {
+                        slot = (slot + 1) & rehashed.mask;
+                    }
+                    rehashed.keys[slot] = current.keys[i];
+                    rehashed.values[slot] = value;
+                }
+            }
+            table = rehashed; //Volatile write publishes the filled arrays
+            used = size;
+            return rehashed;
+        }
+    }
+}
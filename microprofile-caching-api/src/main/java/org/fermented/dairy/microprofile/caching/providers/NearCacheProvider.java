@@ -0,0 +1,274 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.AsyncCacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Two tier cache provider: a small, bounded {@link LocalCache} per cache (L1) in front of another provider (L2),
+ * selected by name. L1 misses load through the L2, so concurrent L1 misses of a key make a single L2 request.
+ * <p>
+ * L1 entries live for the L1 TTL, or the TTL of the request if shorter, which bounds how long an L1 serves a value
+ * invalidated in a shared L2 by another node. Invalidating or clearing through this provider clears both tiers.
+ */
+@ApplicationScoped
+public class NearCacheProvider implements AsyncCacheProvider {
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.nearCache.l2", defaultValue = "OffHeapCache")
+    private String l2ProviderName;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.nearCache.l1MaximumSize", defaultValue = "1000")
+    private Long l1MaximumSize;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.nearCache.l1Ttl", defaultValue = "10000")
+    private Long l1Ttl;
+
+    @Inject
+    private Instance<Map<String, CacheProvider>> cacheProviderMap;
+
+    @Inject
+    private Instance<InvalidationBroadcaster> invalidationBroadcaster;
+
+    private final Map<String, LocalCache> l1Caches = new ConcurrentHashMap<>();
+
+    private final Map<String, CacheOptions> cacheOptions = new ConcurrentHashMap<>();
+
+    private final Supplier<Collection<LocalCache>> maintained = l1Caches::values;
+
+    private volatile CacheProvider l2;
+
+    public NearCacheProvider() {
+    }
+
+    NearCacheProvider(final CacheProvider l2, final long l1MaximumSize, final long l1Ttl) {
+        this.l2 = l2;
+        this.l1MaximumSize = l1MaximumSize;
+        this.l1Ttl = l1Ttl;
+    }
+
+    @PostConstruct
+    void init() {
+        LocalCacheMaintenance.register(maintained);
+    }
+
+    @PreDestroy
+    void destroy() {
+        LocalCacheMaintenance.unregister(maintained);
+    }
+
+    @Override
+    public <T, K> T loadAndGetFromCache(final K key,
+                                        final String cacheName,
+                                        final Function<K, T> getter,
+                                        final Class<T> tClass,
+                                        final long ttl,
+                                        final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        return getL1(cacheName).loadAndGet(key,
+                missing -> l2().loadAndGetFromCache(missing, cacheName, getter, tClass, ttl, cacheOptionalEmpties),
+                tClass, Math.min(l1Ttl, ttl), cacheOptionalEmpties);
+    }
+
+    @Override
+    public <T, K> CompletionStage<T> loadAndGetFromCacheAsync(final K key,
+                                                              final String cacheName,
+                                                              final Function<K, CompletionStage<T>> getter,
+                                                              final Class<T> tClass,
+                                                              final long ttl,
+                                                              final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            return CompletableFuture.failedFuture(new CacheRuntimeException("TTL cannot be negative"));
+        }
+
+        return getL1(cacheName).loadAndGetAsync(key, missing -> {
+            if (l2() instanceof AsyncCacheProvider asyncL2) {
+                return asyncL2.loadAndGetFromCacheAsync(missing, cacheName, getter, tClass, ttl, cacheOptionalEmpties);
+            }
+            return CompletableFuture.completedFuture(l2().loadAndGetFromCache(missing, cacheName,
+                    l2Missing -> getter.apply(l2Missing).toCompletableFuture().join(), tClass, ttl, cacheOptionalEmpties));
+        }, tClass, Math.min(l1Ttl, ttl), cacheOptionalEmpties);
+    }
+
+    @Override
+    public <T, K> Map<K, T> loadAllAndGetFromCache(final Collection<K> keys,
+                                                   final String cacheName,
+                                                   final Function<Set<K>, Map<K, T>> batchGetter,
+                                                   final Class<T> tClass,
+                                                   final long ttl,
+                                                   final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        return getL1(cacheName).loadAllAndGet(keys,
+                missing -> l2().loadAllAndGetFromCache(missing, cacheName, batchGetter, tClass, ttl, cacheOptionalEmpties),
+                tClass, Math.min(l1Ttl, ttl), cacheOptionalEmpties);
+    }
+
+    @Override
+    public <T, K> T replaceCacheEntry(final K key,
+                                      final String cacheName,
+                                      final Function<K, T> getter,
+                                      final Class<T> tClass,
+                                      final long ttl,
+                                      final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        T value = l2().replaceCacheEntry(key, cacheName, getter, tClass, ttl, cacheOptionalEmpties);
+        getL1(cacheName).write(key, value, Math.min(l1Ttl, ttl), cacheOptionalEmpties);
+        return value;
+    }
+
+    @Override
+    public <T, K> void putCacheEntry(final K key, final String cacheName, final T value, final long ttl) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        l2().putCacheEntry(key, cacheName, value, ttl);
+        getL1(cacheName).write(key, value, Math.min(l1Ttl, ttl), true);
+    }
+
+    @Override
+    public <K> void invalidateCacheEntry(final K key, final String cacheName) {
+        getL1(cacheName).invalidate(key);
+        l2().invalidateCacheEntry(key, cacheName);
+    }
+
+    @Override
+    public <K> void invalidateCacheEntries(final Collection<K> keys, final String cacheName) {
+        LocalCache l1 = getL1(cacheName);
+        keys.forEach(l1::invalidate);
+        l2().invalidateCacheEntries(keys, cacheName);
+    }
+
+    @Override
+    public void configureCache(final String cacheName, final CacheOptions options) {
+        cacheOptions.put(cacheName, options);
+        LocalCache l1 = l1Caches.get(cacheName);
+        if (l1 != null) {
+            l1.setOptions(l1Options(options));
+        }
+        l2().configureCache(cacheName, options);
+    }
+
+    /**
+     * @return the stats of the L1 of the cache, its misses are the requests made to the L2
+     */
+    @Override
+    public Optional<CacheStats> getStats(final String cacheName) {
+        return Optional.ofNullable(l1Caches.get(cacheName)).map(LocalCache::getStats);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l1Caches.keySet();
+    }
+
+    @Override
+    public Collection<Object> getKeys(final String cacheName) {
+        Set<Object> keys = new HashSet<>(getL1(cacheName).getKeys());
+        keys.addAll(l2().getKeys(cacheName));
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Streams the keys of the L2 cache, the L1 cache only holds copies of L2 entries
+     */
+    @Override
+    public Stream<Object> streamKeys(final String cacheName) {
+        return l2().streamKeys(cacheName);
+    }
+
+    /**
+     * Gets the size of the L2 cache, the L1 cache only holds copies of L2 entries
+     */
+    @Override
+    public long size(final String cacheName) {
+        return l2().size(cacheName);
+    }
+
+    @Override
+    public void clearCache(final String cacheName) {
+        getL1(cacheName).clear();
+        l2().clearCache(cacheName);
+        if (invalidationBroadcaster != null && invalidationBroadcaster.isResolvable()) {
+            invalidationBroadcaster.get().publishClear(getProviderName(), cacheName);
+        }
+    }
+
+    /**
+     * Drops the L1 caches and clears their L2 caches, leaving the other caches of the L2 provider alone
+     */
+    @Override
+    public void dropAllCaches() {
+        for (String cacheName : Set.copyOf(l1Caches.keySet())) {
+            l1Caches.remove(cacheName);
+            l2().clearCache(cacheName);
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return "NearCache";
+    }
+
+    /**
+     * The L2 is looked up on first use, the provider map holds this provider as well
+     */
+    private CacheProvider l2() {
+        CacheProvider provider = l2;
+        if (provider == null) {
+            provider = cacheProviderMap.get().get(l2ProviderName);
+            if (provider == null || provider.getProviderName().equals(getProviderName())) {
+                throw new CacheRuntimeException("No cache provider named %s to use as the near cache L2", l2ProviderName);
+            }
+            l2 = provider;
+        }
+        return provider;
+    }
+
+    private LocalCache getL1(final String cacheName) {
+        return l1Caches.computeIfAbsent(cacheName,
+                name -> new LocalCache(l1Options(cacheOptions.getOrDefault(name, CacheOptions.DEFAULT))));
+    }
+
+    private CacheOptions l1Options(final CacheOptions options) {
+        long maximumSize = options.getMaximumSize() > 0 ? Math.min(l1MaximumSize, options.getMaximumSize()) : l1MaximumSize;
+        return options.toBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(0L) //The L2 refreshes, the L1 TTL is short
+                .negativeTtl(options.getNegativeTtl() > 0 ? Math.min(l1Ttl, options.getNegativeTtl()) : 0L)
+                .build();
+    }
+}
@@ -0,0 +1,264 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueCodec;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Cache provider keeping the cached values outside the Java heap, encoded by a {@link ValueCodec}, in an
+ * {@link OffHeapStore} of a fixed memory budget. Only the index (key to record address) lives on the heap. Once the
+ * budget is used up, the oldest values are dropped to make room.
+ * <p>
+ * Values are decoded on every hit, so callers get a copy rather than the cached instance. The values inside Optionals
+ * are decoded without their class, which codecs that need it do not support.
+ */
+@ApplicationScoped
+public class OffHeapCacheProvider implements CacheProvider {
+
+    private static final byte VALUE = 0;
+
+    private static final byte EMPTY_OPTIONAL = 1;
+
+    private static final byte PRESENT_OPTIONAL = 2;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.offHeap.capacity", defaultValue = "67108864") //64 MB
+    private Long capacity;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.offHeap.slabSize", defaultValue = "1048576") //1 MB
+    private Integer slabSize;
+
+    @Inject
+    private Instance<ValueCodec> valueCodecs;
+
+    @Inject
+    private Instance<InvalidationBroadcaster> invalidationBroadcaster;
+
+    private final Map<String, Map<Object, Long>> indexes = new ConcurrentHashMap<>();
+
+    private final Map<String, StatsCounter> stats = new ConcurrentHashMap<>();
+
+    private OffHeapStore store;
+
+    private ValueCodec valueCodec;
+
+    public OffHeapCacheProvider() {
+    }
+
+    OffHeapCacheProvider(final long capacity, final int slabSize, final ValueCodec valueCodec) {
+        this.store = new OffHeapStore(capacity, slabSize);
+        this.valueCodec = valueCodec;
+    }
+
+    @PostConstruct
+    void init() {
+        store = new OffHeapStore(capacity, slabSize);
+        valueCodec = valueCodecs.isResolvable() ? valueCodecs.get() : new SerializableValueCodec();
+    }
+
+    @Override
+    public <T, K> T loadAndGetFromCache(final K key,
+                                        final String cacheName,
+                                        final Function<K, T> getter,
+                                        final Class<T> tClass,
+                                        final long ttl,
+                                        final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        Map<Object, Long> index = getIndex(cacheName);
+        StatsCounter cacheStats = getStatsCounter(cacheName);
+        Long address = index.get(key);
+        if (address != null) {
+            OffHeapStore.OffHeapRecord offHeapRecord = store.read(address);
+            if (offHeapRecord != null && offHeapRecord.isLiveAt(System.nanoTime())) {
+                cacheStats.recordHit();
+                return decode(offHeapRecord, tClass); //Cache hit, return cached value
+            }
+            if (offHeapRecord != null && index.remove(key, address)) {
+                cacheStats.recordEviction(EvictionCause.EXPIRED);
+            }
+        }
+
+        //cache miss, absent, dropped to make room or cache is expired
+        cacheStats.recordMiss();
+        T result = load(key, getter, cacheStats);
+        store(index, cacheStats, key, result, ttl, cacheOptionalEmpties);
+        return result;
+    }
+
+    @Override
+    public <T, K> T replaceCacheEntry(final K key,
+                                      final String cacheName,
+                                      final Function<K, T> getter,
+                                      final Class<T> tClass,
+                                      final long ttl,
+                                      final boolean cacheOptionalEmpties) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        T value = getter.apply(key);
+        store(getIndex(cacheName), getStatsCounter(cacheName), key, value, ttl, cacheOptionalEmpties);
+        return value;
+    }
+
+    @Override
+    public <T, K> void putCacheEntry(final K key, final String cacheName, final T value, final long ttl) {
+        if (ttl < 0) {
+            throw new CacheRuntimeException("TTL cannot be negative");
+        }
+
+        store(getIndex(cacheName), getStatsCounter(cacheName), key, value, ttl, true);
+    }
+
+    @Override
+    public <K> void invalidateCacheEntry(final K key, final String cacheName) {
+        getIndex(cacheName).remove(key);
+    }
+
+    @Override
+    public Optional<CacheStats> getStats(final String cacheName) {
+        return Optional.ofNullable(stats.get(cacheName)).map(StatsCounter::snapshot);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return indexes.keySet();
+    }
+
+    @Override
+    public Collection<Object> getKeys(final String cacheName) {
+        long now = System.nanoTime();
+        Set<Object> keys = new HashSet<>();
+        for (Map.Entry<Object, Long> entry : getIndex(cacheName).entrySet()) {
+            if (store.expiresAt(entry.getValue()) - now >= 0) { //Skip expired records not yet overwritten
+                keys.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public Stream<Object> streamKeys(final String cacheName) {
+        Map<Object, Long> index = indexes.get(cacheName);
+        if (index == null) {
+            return Stream.empty();
+        }
+        long now = System.nanoTime();
+        return index.entrySet().stream()
+                .filter(entry -> store.expiresAt(entry.getValue()) - now >= 0) //Skip expired records not yet overwritten
+                .map(Map.Entry::getKey);
+    }
+
+    @Override
+    public long size(final String cacheName) {
+        Map<Object, Long> index = indexes.get(cacheName);
+        return index == null ? 0L : index.size();
+    }
+
+    @Override
+    public void clearCache(final String cacheName) {
+        getIndex(cacheName).clear();
+        if (invalidationBroadcaster != null && invalidationBroadcaster.isResolvable()) {
+            invalidationBroadcaster.get().publishClear(getProviderName(), cacheName);
+        }
+    }
+
+    @Override
+    public void dropAllCaches() {
+        indexes.clear();
+        stats.clear();
+    }
+
+    @Override
+    public String getProviderName() {
+        return "OffHeapCache";
+    }
+
+    /**
+     * @return the number of bytes allocated outside the heap, up to the configured capacity
+     */
+    public long getAllocatedBytes() {
+        return store.allocated();
+    }
+
+    private Map<Object, Long> getIndex(final String cacheName) {
+        return indexes.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+
+    private StatsCounter getStatsCounter(final String cacheName) {
+        return stats.computeIfAbsent(cacheName, name -> new StatsCounter());
+    }
+
+    private static <T, K> T load(final K key, final Function<K, T> getter, final StatsCounter cacheStats) {
+        long start = System.nanoTime();
+        try {
+            T result = getter.apply(key);
+            cacheStats.recordLoadSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException | Error e) {
+            cacheStats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a value as the new record of the key, the index points to the previous record until then
+     */
+    private void store(final Map<Object, Long> index, final StatsCounter cacheStats, final Object key, final Object value, final long ttl, final boolean cacheOptionalEmpties) {
+        if (value == null) {
+            index.remove(key);
+        } else if (value instanceof Optional<?> optionalValue && optionalValue.isEmpty()) {
+            if (cacheOptionalEmpties) {
+                put(index, cacheStats, key, EMPTY_OPTIONAL, new byte[0], ttl);
+            } else {
+                index.remove(key);
+            }
+        } else if (value instanceof Optional<?> optionalValue) {
+            put(index, cacheStats, key, PRESENT_OPTIONAL, valueCodec.encode(optionalValue.get()), ttl);
+        } else {
+            put(index, cacheStats, key, VALUE, valueCodec.encode(value), ttl);
+        }
+    }
+
+    private void put(final Map<Object, Long> index, final StatsCounter cacheStats, final Object key, final byte kind, final byte[] bytes, final long ttl) {
+        if (!store.write(index, cacheStats, key, kind, bytes, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl))) {
+            index.remove(key); //Larger than a slab, not cached
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decode(final OffHeapStore.OffHeapRecord offHeapRecord, final Class<T> tClass) {
+        Object cached = switch (offHeapRecord.kind()) {
+            case EMPTY_OPTIONAL -> Optional.empty();
+            case PRESENT_OPTIONAL -> Optional.of(valueCodec.decode(offHeapRecord.bytes(), Object.class));
+            default -> valueCodec.decode(offHeapRecord.bytes(), tClass);
+        };
+        if (tClass.isInstance(cached)) {
+            return (T) cached;
+        }
+        throw new CacheRuntimeException("Cached Object is of the incorrect type");
+    }
+}
@@ -0,0 +1,224 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Log structured store of encoded values in direct (off-heap) byte buffers. The memory budget is split into slabs that
+ * are filled one after the other; once all slabs are in use, the oldest slab is recycled, dropping the records written
+ * to it from their indexes. Overwritten and invalidated records keep their space until their slab is recycled.
+ * <p>
+ * Records are addressed by a long packing the slab, the generation of the slab (incremented on every recycling) and
+ * the offset in the slab, so an index only holds one long per key. Writes are serialized by a lock, reads are
+ * optimistic and only retry under the lock if a write overlapped them.
+ * <p>
+ * Record layout: value length (int), expiry time (long, System.nanoTime), value kind (byte), value bytes.
+ */
+class OffHeapStore {
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Byte.BYTES;
+
+    private static final int EXPIRES_AT_OFFSET = Integer.BYTES;
+
+    private static final int KIND_OFFSET = Integer.BYTES + Long.BYTES;
+
+    private static final int MAX_SLABS = 1 << 15;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final Slab[] slabs;
+
+    private final int slabSize;
+
+    private int current;
+
+    /**
+     * @param capacity the memory budget (in bytes) of all slabs together
+     * @param slabSize the size (in bytes) of a slab, the maximum size of a record
+     */
+    OffHeapStore(final long capacity, final int slabSize) {
+        if (slabSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Slab size must be larger than " + HEADER_SIZE + " bytes");
+        }
+        this.slabSize = slabSize;
+        this.slabs = new Slab[(int) Math.min(MAX_SLABS, Math.max(1, capacity / slabSize))];
+    }
+
+    /**
+     * Writes a record and maps the key to it in the index
+     * @param index the index of the cache the record belongs to
+     * @param stats the counters of the cache the record belongs to
+     * @param key the key of the record
+     * @param kind the kind of the value, opaque to the store
+     * @param bytes the encoded value
+     * @param expiresAt the expiry time of the record (System.nanoTime)
+     * @return false if the record is larger than a slab, and was not written
+     */
+    boolean write(final Map<Object, Long> index, final StatsCounter stats, final Object key, final byte kind, final byte[] bytes, final long expiresAt) {
+        int recordSize = HEADER_SIZE + bytes.length;
+        if (recordSize > slabSize) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            Slab slab = slabs[current];
+            if (slab == null) { //Slabs are allocated on first use
+                slab = slabs[current] = new Slab(slabSize);
+            } else if (slab.position + recordSize > slabSize) {
+                current = (current + 1) % slabs.length;
+                slab = slabs[current];
+                if (slab == null) {
+                    slab = slabs[current] = new Slab(slabSize);
+                } else {
+                    slab.recycle();
+                }
+            }
+            int offset = slab.position;
+            slab.buffer.putInt(offset, bytes.length);
+            slab.buffer.putLong(offset + EXPIRES_AT_OFFSET, expiresAt);
+            slab.buffer.put(offset + KIND_OFFSET, kind);
+            slab.buffer.put(offset + HEADER_SIZE, bytes);
+            slab.position += recordSize;
+
+            long address = address(current, slab.generation, offset);
+            slab.owners.add(new Owner(index, stats, key, address));
+            index.put(key, address);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param address the address of the record
+     * @return the record, null if its slab was recycled since it was written
+     */
+    OffHeapRecord read(final long address) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                OffHeapRecord offHeapRecord = readAt(address);
+                if (lock.validate(stamp)) {
+                    return offHeapRecord;
+                }
+            } catch (RuntimeException e) { //Read a record being overwritten, retry under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readAt(address);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param address the address of the record
+     * @return the expiry time of the record, or of a recycled record
+     */
+    long expiresAt(final long address) {
+        long stamp = lock.readLock();
+        try {
+            Slab slab = slabs[slabOf(address)];
+            if (slab == null || slab.generation != generationOf(address)) {
+                return Long.MIN_VALUE;
+            }
+            return slab.buffer.getLong(offsetOf(address) + EXPIRES_AT_OFFSET);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the number of bytes allocated off-heap
+     */
+    long allocated() {
+        long stamp = lock.readLock();
+        try {
+            long allocated = 0L;
+            for (Slab slab : slabs) {
+                allocated += slab == null ? 0 : slab.buffer.capacity();
+            }
+            return allocated;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private OffHeapRecord readAt(final long address) {
+        Slab slab = slabs[slabOf(address)];
+        if (slab == null || slab.generation != generationOf(address)) {
+            return null;
+        }
+        int offset = offsetOf(address);
+        int length = slab.buffer.getInt(offset);
+        if (length < 0 || length > slabSize - offset - HEADER_SIZE) {
+            throw new IllegalStateException("Corrupt record length " + length);
+        }
+        byte[] bytes = new byte[length];
+        slab.buffer.get(offset + HEADER_SIZE, bytes);
+        return new OffHeapRecord(slab.buffer.get(offset + KIND_OFFSET), slab.buffer.getLong(offset + EXPIRES_AT_OFFSET), bytes);
+    }
+
+    private static long address(final int slab, final int generation, final int offset) {
+        return ((long) slab << 48) | ((long) (generation & 0xffff) << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int slabOf(final long address) {
+        return (int) (address >>> 48);
+    }
+
+    private static int generationOf(final long address) {
+        return (int) (address >>> 32) & 0xffff;
+    }
+
+    private static int offsetOf(final long address) {
+        return (int) address;
+    }
+
+    /**
+     * A record read from the store
+     * @param kind the kind of the value
+     * @param expiresAt the expiry time (System.nanoTime)
+     * @param bytes the encoded value
+     */
+    record OffHeapRecord(byte kind, long expiresAt, byte[] bytes) {
+
+        boolean isLiveAt(final long now) {
+            return expiresAt - now >= 0;
+        }
+    }
+
+    /**
+     * Index entry pointing to a record, dropped from the index when the slab of the record is recycled
+     */
+    private record Owner(Map<Object, Long> index, StatsCounter stats, Object key, long address) {
+    }
+
+    private static final class Slab {
+        private final ByteBuffer buffer;
+        private final List<Owner> owners = new ArrayList<>();
+        private int position;
+        private int generation;
+
+        private Slab(final int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+
+        private void recycle() {
+            for (Owner owner : owners) {
+                if (owner.index().remove(owner.key(), owner.address())) {
+                    owner.stats().recordEviction(EvictionCause.SIZE);
+                }
+            }
+            owners.clear();
+            position = 0;
+            generation = (generation + 1) & 0xffff;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Default {@link ValueCodec}, encodes values with Java serialization. Cached values have to be {@link Serializable}.
+ * Bytes that may come from outside the application must be decoded by a codec with an {@link ObjectInputFilter} that
+ * only accepts the expected classes.
+ */
+public class SerializableValueCodec implements ValueCodec {
+
+    private final ObjectInputFilter filter;
+
+    public SerializableValueCodec() {
+        this(null);
+    }
+
+    /**
+     * @param filter the filter deserialization applies to the decoded classes, null for the JVM-wide filter
+     */
+    public SerializableValueCodec(final ObjectInputFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public byte[] encode(final Object value) {
+        if (!(value instanceof Serializable)) {
+            throw new CacheRuntimeException("%s is not Serializable", value.getClass().getCanonicalName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+        } catch (IOException e) {
+            throw new CacheRuntimeException(e, "Could not serialize %s", value.getClass().getCanonicalName());
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(final byte[] bytes, final Class<T> tClass) {
+        Object value;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            if (filter != null) {
+                input.setObjectInputFilter(filter);
+            }
+            value = input.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheRuntimeException(e, "Could not deserialize %s", tClass.getCanonicalName());
+        }
+        if (!tClass.isInstance(value)) {
+            throw new CacheRuntimeException("Cached Object is of the incorrect type");
+        }
+        return tClass.cast(value);
+    }
+}
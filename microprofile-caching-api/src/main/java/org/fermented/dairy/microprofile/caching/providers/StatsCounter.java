@@ -0,0 +1,107 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single cache. Striped ({@link LongAdder}) so that concurrent hits do not contend on a shared counter.
+ */
+final class StatsCounter {
+
+    private static final EvictionCause[] EVICTION_CAUSES = EvictionCause.values();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loadSuccesses = new LongAdder();
+
+    private final LongAdder loadFailures = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    private final LongAdder loadTimeouts = new LongAdder();
+
+    private final LongAdder[] evictions = new LongAdder[EVICTION_CAUSES.length];
+
+    private final LongAdder[] loadLatencies = new LongAdder[CacheStats.LOAD_LATENCY_BUCKETS];
+
+    StatsCounter() {
+        for (int i = 0; i < evictions.length; i++) {
+            evictions[i] = new LongAdder();
+        }
+        for (int i = 0; i < loadLatencies.length; i++) {
+            loadLatencies[i] = new LongAdder();
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordMisses(final int count) {
+        misses.add(count);
+    }
+
+    /**
+     * @param loadTime the time (in ns) the load took
+     */
+    void recordLoadSuccess(final long loadTime) {
+        loadSuccesses.increment();
+        recordLoadTime(loadTime);
+    }
+
+    /**
+     * @param loadTime the time (in ns) until the load failed
+     */
+    void recordLoadFailure(final long loadTime) {
+        loadFailures.increment();
+        recordLoadTime(loadTime);
+    }
+
+    void recordLoadTimeout() {
+        loadTimeouts.increment();
+    }
+
+    void recordEviction(final EvictionCause cause) {
+        evictions[cause.ordinal()].increment();
+    }
+
+    CacheStats snapshot() {
+        Map<EvictionCause, Long> evictionCounts = new EnumMap<>(EvictionCause.class);
+        for (EvictionCause cause : EVICTION_CAUSES) {
+            evictionCounts.put(cause, evictions[cause.ordinal()].sum());
+        }
+        List<Long> loadLatencyHistogram = new ArrayList<>(loadLatencies.length);
+        for (LongAdder loadLatency : loadLatencies) {
+            loadLatencyHistogram.add(loadLatency.sum());
+        }
+        return CacheStats.builder()
+                .hitCount(hits.sum())
+                .missCount(misses.sum())
+                .loadSuccessCount(loadSuccesses.sum())
+                .loadFailureCount(loadFailures.sum())
+                .totalLoadTime(totalLoadTime.sum())
+                .loadTimeoutCount(loadTimeouts.sum())
+                .evictionCounts(Map.copyOf(evictionCounts))
+                .loadLatencyHistogram(List.copyOf(loadLatencyHistogram))
+                .build();
+    }
+
+    private void recordLoadTime(final long loadTime) {
+        long nanos = Math.max(1L, loadTime);
+        totalLoadTime.add(nanos);
+        int bucket = 64 - Long.numberOfLeadingZeros((nanos - 1) >>> 10);
+        loadLatencies[Math.min(bucket, loadLatencies.length - 1)].increment();
+    }
+}
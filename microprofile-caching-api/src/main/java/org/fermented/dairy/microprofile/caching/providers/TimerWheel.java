@@ -0,0 +1,109 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hierarchical timer wheel. Scheduling a timer is O(1); advancing the wheel only visits the buckets whose time span has
+ * passed, cascading timers of coarser wheels down into finer ones as their expiry comes closer.
+ * <p>
+ * The finest wheel has 64 buckets of 2^30 ns (~1.07 s), followed by 64 buckets of ~1.14 min, 32 of ~1.22 h, 4 of
+ * ~1.63 d and an overflow bucket, so timers fire up to about a second after their expiry time.
+ * <p>
+ * Not thread safe, {@link LocalCache} only touches it from its maintenance.
+ *
+ * @param <T> the timer type
+ */
+class TimerWheel<T> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    private static final int[] SHIFTS = {30, 36, 42, 47, 49};
+
+    private final ToLongFunction<T> expiresAt;
+
+    private final Deque<T>[][] wheels;
+
+    private final long origin;
+
+    private long nanos;
+
+    private long size;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(final ToLongFunction<T> expiresAt, final long now) {
+        this.expiresAt = expiresAt;
+        this.origin = now;
+        this.wheels = new Deque[BUCKETS.length][];
+        for (int level = 0; level < BUCKETS.length; level++) {
+            wheels[level] = new Deque[BUCKETS[level]];
+            for (int bucket = 0; bucket < BUCKETS[level]; bucket++) {
+                wheels[level][bucket] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * @param timer the timer to schedule at its expiry time
+     */
+    void schedule(final T timer) {
+        long time = Math.max(expiresAt.applyAsLong(timer) - origin, nanos);
+        long delay = time - nanos;
+        for (int level = 0; level < BUCKETS.length - 1; level++) {
+            if (delay < (1L << SHIFTS[level + 1])) {
+                wheels[level][(int) ((time >>> SHIFTS[level]) & (BUCKETS[level] - 1))].add(timer);
+                size++;
+                return;
+            }
+        }
+        wheels[BUCKETS.length - 1][0].add(timer);
+        size++;
+    }
+
+    /**
+     * Fires all timers in the buckets that passed since the last advance, and reschedules the ones that are not due yet
+     * @param now the current time (System.nanoTime)
+     * @param onExpired called with each expired timer
+     */
+    void advance(final long now, final Consumer<T> onExpired) {
+        long previous = nanos;
+        long current = now - origin;
+        if (current <= previous) {
+            return;
+        }
+        nanos = current;
+        for (int level = 0; level < BUCKETS.length; level++) {
+            long previousTicks = previous >>> SHIFTS[level];
+            long currentTicks = current >>> SHIFTS[level];
+            if (currentTicks <= previousTicks) {
+                break;
+            }
+            expire(level, previousTicks, currentTicks, onExpired);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    private void expire(final int level, final long previousTicks, final long currentTicks, final Consumer<T> onExpired) {
+        Deque<T>[] wheel = wheels[level];
+        int mask = wheel.length - 1;
+        long ticks = Math.min(currentTicks - previousTicks + 1, wheel.length);
+        for (long tick = 0; tick < ticks; tick++) {
+            Deque<T> bucket = wheel[(int) ((previousTicks + tick) & mask)];
+            int pending = bucket.size();
+            for (int i = 0; i < pending; i++) {
+                T timer = bucket.poll();
+                size--;
+                if (expiresAt.applyAsLong(timer) - origin <= nanos) {
+                    onExpired.accept(timer);
+                } else {
+                    schedule(timer);
+                }
+            }
+        }
+    }
+}
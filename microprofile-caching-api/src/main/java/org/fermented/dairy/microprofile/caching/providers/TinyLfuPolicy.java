@@ -0,0 +1,282 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Window TinyLFU eviction policy for a cache bounded to a maximum number of entries.
+ * <p>
+ * New keys enter a small LRU window (1% of the capacity). Keys falling out of the window become candidates for the
+ * segmented LRU main space (probation and protected). A candidate only replaces the probation victim if it was
+ * requested more often, as estimated by a count-min sketch that is periodically halved so old popularity fades.
+ * <p>
+ * Not thread safe, {@link LocalCache} guards it with a lock.
+ */
+class TinyLfuPolicy {
+
+    private final Map<Object, Node> nodes = new HashMap<>();
+
+    private final FrequencySketch sketch;
+
+    private final Segment window = new Segment();
+
+    private final Segment probation = new Segment();
+
+    private final Segment protectedSegment = new Segment();
+
+    private final long maximumSize;
+
+    private final long maxWindow;
+
+    private final long maxProtected;
+
+    TinyLfuPolicy(final long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.maxWindow = Math.max(1, maximumSize / 100);
+        this.maxProtected = (long) ((maximumSize - maxWindow) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Records a request for a key present in the cache
+     * @param key the requested key
+     */
+    void recordAccess(final Object key) {
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        if (node.segment == probation) { //Requested again while on probation, promote
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            while (protectedSegment.size > maxProtected) {
+                Node demoted = protectedSegment.removeFirst();
+                probation.addLast(demoted);
+            }
+        } else {
+            node.segment.moveToLast(node);
+        }
+    }
+
+    /**
+     * Records a key written to the cache
+     * @param key the written key
+     * @return the keys to evict from the cache
+     */
+    List<Object> recordWrite(final Object key) {
+        if (nodes.containsKey(key)) {
+            recordAccess(key);
+            return List.of();
+        }
+        sketch.increment(key);
+        Node node = new Node(key);
+        nodes.put(key, node);
+        window.addLast(node);
+
+        List<Object> evicted = new ArrayList<>(1);
+        while (window.size > maxWindow) {
+            probation.addLast(window.removeFirst());
+        }
+        while (nodes.size() > maximumSize) {
+            evicted.add(evict());
+        }
+        return evicted;
+    }
+
+    /**
+     * Forgets a key removed from the cache
+     * @param key the removed key
+     */
+    void recordRemoval(final Object key) {
+        Node node = nodes.remove(key);
+        if (node != null) {
+            node.segment.remove(node);
+        }
+    }
+
+    void clear() {
+        nodes.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    long size() {
+        return nodes.size();
+    }
+
+    private Object evict() {
+        Node victim = probation.first();
+        Node candidate = probation.last();
+        Node evicted;
+        if (victim == null) { //Main space is all protected, fall back to LRU
+            evicted = protectedSegment.size > 0 ? protectedSegment.first() : window.first();
+        } else if (victim == candidate) {
+            evicted = victim;
+        } else {
+            evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+        }
+        evicted.segment.remove(evicted);
+        nodes.remove(evicted.key);
+        return evicted.key;
+    }
+
+    private static final class Node {
+        private final Object key;
+        private Segment segment;
+        private Node previous;
+        private Node next;
+
+        private Node(final Object key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Doubly linked LRU list, least recently used first
+     */
+    private static final class Segment {
+        private Node head;
+        private Node tail;
+        private long size;
+
+        Node first() {
+            return head;
+        }
+
+        Node last() {
+            return tail;
+        }
+
+        void addLast(final Node node) {
+            node.segment = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        Node removeFirst() {
+            Node node = head;
+            remove(node);
+            return node;
+        }
+
+        void moveToLast(final Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void remove(final Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4 bit counters (16 to a long, one long per cache entry) over four rows. All counters are
+     * halved once the number of increments reaches ten times the cache capacity.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private static final int MAX_COUNT = 15;
+
+        private final long[] table;
+
+        private final int tableMask;
+
+        private final long sampleSize;
+
+        private long additions;
+
+        FrequencySketch(final long maximumSize) {
+            int length = (int) Math.min(1 << 26, Math.max(8, Long.highestOneBit(Math.max(1, maximumSize) - 1) << 1));
+            table = new long[length]; //16 counters per entry
+            tableMask = table.length - 1;
+            sampleSize = 10 * Math.max(1, maximumSize);
+        }
+
+        void increment(final Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                added |= incrementAt(indexOf(hash, row), counterOf(hash, row));
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(final Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int shift = counterOf(hash, row) << 2;
+                frequency = Math.min(frequency, (int) ((table[indexOf(hash, row)] >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        private boolean incrementAt(final int index, final int counter) {
+            int shift = counter << 2;
+            long mask = 0xfL << shift;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << shift;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions >>>= 1;
+        }
+
+        private int indexOf(final int hash, final int row) {
+            long rowHash = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (rowHash >>> 32) & tableMask;
+        }
+
+        private static int counterOf(final int hash, final int row) {
+            return (hash >>> (row << 3)) & 0xf;
+        }
+
+        private static int spread(final int hashCode) {
+            int hash = hashCode * 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.fermented.dairy.microprofile.caching.warming;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.inject.Inject;
+import lombok.extern.java.Log;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.reflect.TypeUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.fermented.dairy.microprofile.caching.annotations.CacheWarm;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Loads the keys returned by the {@link CacheWarm} methods of all beans once the application has started, before it
+ * serves requests. The warm methods run one after the other, the keys of a method are loaded in parallel on a pool of
+ * at most org.fermented.diary.caching.warm.concurrency threads, shared by all warm methods and shut down once warming
+ * is done; keys that fail to load are logged and left to load on request.
+ * <p>
+ * The loader is the public method of the bean with the name given by {@link CacheWarm#loader()} taking a single
+ * parameter the keys can be passed to.
+ */
+@Log
+@ApplicationScoped
+public class CacheWarmer {
+
+    private static final int PROGRESS_STEPS = 10;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.warm.enabled", defaultValue = "true")
+    private Boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.warm.concurrency", defaultValue = "8")
+    private Integer concurrency;
+
+    @Inject
+    private BeanManager beanManager;
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) final Object event) {
+        if (!enabled) {
+            return;
+        }
+        ExecutorService executor = null;
+        try {
+            for (Bean<?> bean : beanManager.getBeans(Object.class, Any.Literal.INSTANCE)) {
+                if (!bean.getTypes().contains(bean.getBeanClass())) { //Producers, the warm methods are those of managed beans
+                    continue;
+                }
+                for (Method method : bean.getBeanClass().getMethods()) {
+                    CacheWarm cacheWarm = method.getAnnotation(CacheWarm.class);
+                    if (cacheWarm != null) {
+                        if (executor == null) {
+                            executor = newExecutor(concurrency);
+                        }
+                        Object reference = beanManager.getReference(bean, bean.getBeanClass(), beanManager.createCreationalContext(bean));
+                        warm(reference, method, cacheWarm, executor);
+                    }
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @param concurrency the maximum number of keys loaded at a time
+     * @return the pool loading the keys of the warm methods
+     */
+    static ExecutorService newExecutor(final int concurrency) {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "cache-warm-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the keys returned by a warm method
+     * @param bean the bean (contextual reference) to call the warm method and the loader on
+     * @param warmMethod the method annotated with {@link CacheWarm}
+     * @param cacheWarm the annotation of the warm method
+     * @param executor the pool to load the keys on, see {@link #newExecutor(int)}
+     * @return the number of keys loaded and failed, and the time taken
+     */
+    WarmResult warm(final Object bean, final Method warmMethod, final CacheWarm cacheWarm, final ExecutorService executor) {
+        String warmName = warmMethod.getDeclaringClass().getSimpleName() + "#" + warmMethod.getName();
+        Method loader = getLoader(warmMethod.getDeclaringClass(), cacheWarm.loader(), keyType(warmMethod));
+        Collection<?> keys;
+        try {
+            keys = (Collection<?>) invoke(warmMethod, bean);
+        } catch (Exception e) {
+            log.log(Level.WARNING, e, () -> "Could not get the keys to warm from " + warmName);
+            return new WarmResult(0, 0, 0L);
+        }
+        if (keys == null || keys.isEmpty()) {
+            return new WarmResult(0, 0, 0L);
+        }
+
+        int total = keys.size();
+        int progressStep = Math.max(1, total / PROGRESS_STEPS);
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        log.info(() -> "Warming " + total + " keys with " + warmName);
+        long start = System.nanoTime();
+
+        List<Future<?>> loads = List.of();
+        try {
+            loads = keys.stream()
+                    .<Future<?>>map(key -> executor.submit(() -> {
+                        try {
+                            Object value = invoke(loader, bean, key);
+                            if (value instanceof CompletionStage<?> stage) {
+                                stage.toCompletableFuture().join();
+                            }
+                            loaded.incrementAndGet();
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            log.log(Level.FINE, e, () -> "Could not warm key " + key + " with " + warmName);
+                        }
+                        int done = loaded.get() + failed.get();
+                        if (done % progressStep == 0 && done < total) {
+                            log.fine(() -> "Warmed " + done + "/" + total + " keys with " + warmName);
+                        }
+                    }))
+                    .toList();
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warning(() -> "Interrupted while warming with " + warmName);
+        } catch (Exception e) {
+            log.log(Level.WARNING, e, () -> "Could not warm with " + warmName);
+        } finally {
+            loads.forEach(load -> load.cancel(true)); //No-op once done, stops the loads left after a failure
+        }
+
+        WarmResult result = new WarmResult(loaded.get(), failed.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info(() -> "Warmed " + result.loaded() + " keys (" + result.failed() + " failed) with " + warmName
+                + " in " + result.elapsed() + " ms");
+        return result;
+    }
+
+    /**
+     * @param warmMethod the method annotated with {@link CacheWarm}
+     * @return the element type of the collection of keys it returns, Object if it cannot be resolved
+     */
+    private static Class<?> keyType(final Method warmMethod) {
+        Type returnType = warmMethod.getGenericReturnType();
+        Type keyType = Collection.class.isAssignableFrom(warmMethod.getReturnType())
+                ? TypeUtils.getTypeArguments(returnType, Collection.class).get(Collection.class.getTypeParameters()[0])
+                : null;
+        Class<?> keyClass = keyType == null ? null : TypeUtils.getRawType(keyType, null);
+        return keyClass == null ? Object.class : keyClass;
+    }
+
+    private static Method getLoader(final Class<?> beanClass, final String loaderName, final Class<?> keyType) {
+        List<Method> loaders = Arrays.stream(beanClass.getMethods())
+                .filter(method -> method.getName().equals(loaderName) && method.getParameterCount() == 1 && !method.isBridge())
+                .filter(method -> ClassUtils.isAssignable(keyType, method.getParameterTypes()[0], true))
+                .toList();
+        if (loaders.isEmpty()) {
+            throw new CacheRuntimeException("No public method %s of %s taking a single %s key to warm caches with",
+                    loaderName, beanClass.getCanonicalName(), keyType.getCanonicalName());
+        }
+        return loaders.stream() //The most specific, as the compiler would pick for a key of the type
+                .filter(loader -> loaders.stream().allMatch(other ->
+                        ClassUtils.isAssignable(loader.getParameterTypes()[0], other.getParameterTypes()[0], true)))
+                .findFirst()
+                .orElseThrow(() -> new CacheRuntimeException("Ambiguous methods %s of %s for %s keys to warm caches with",
+                        loaderName, beanClass.getCanonicalName(), keyType.getCanonicalName()));
+    }
+
+    private static Object invoke(final Method method, final Object bean, final Object... args) throws Exception {
+        try {
+            return method.invoke(bean, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param loaded the number of keys loaded
+     * @param failed the number of keys that failed to load
+     * @param elapsed the time (in ms) taken to load the keys
+     */
+    record WarmResult(int loaded, int failed, long elapsed) {
+    }
+}
@@ -0,0 +1,64 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProviderChild;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithoutGetter;
+import org.fermented.dairy.microprofile.caching.test.entities.CachingClass;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("OptionalGetWithoutIsPresent")
+class CacheKeyPlansTest {
+
+    @DisplayName("when planning the same method twice then reuse the extractor")
+    @Test
+    void whenPlanningTheSameMethodTwiceThenReuseTheExtractor() {
+        Method cachingMethod = getCachingMethod("removeCacheMultiParamObjectAnnotated");
+
+        CacheKeyExtractor first = CacheKeyPlans.forMethod(cachingMethod, CacheEntityWithProvider.class);
+        CacheKeyExtractor second = CacheKeyPlans.forMethod(cachingMethod, CacheEntityWithProvider.class);
+
+        assertSame(first, second, "extractor planned twice");
+    }
+
+    @DisplayName("when extracting from a single parameter then use the parameter or the key inside the cached class")
+    @Test
+    void whenExtractingFromASingleParameterThenUseTheParameterOrTheKeyInsideTheCachedClass() {
+        CacheKeyExtractor extractor = CacheKeyPlans.forMethod(getCachingMethod("removeCacheSingleParamObjectChild"), CacheEntityWithProviderChild.class);
+
+        assertAll("Verify single parameter extraction",
+                () -> assertEquals(1L, extractor.extract(new Object[]{CacheEntityWithProviderChild.builder().id(1L).build()}), "key not read from the cached class"),
+                () -> assertEquals(2L, extractor.extract(new Object[]{2L}), "parameter not used as the key")
+        );
+    }
+
+    @DisplayName("when the cache key field has no getter then throw")
+    @Test
+    void whenTheCacheKeyFieldHasNoGetterThenThrow() {
+        CacheEntityWithoutGetter entity = new CacheEntityWithoutGetter(1L);
+
+        CacheRuntimeException exception = assertThrows(CacheRuntimeException.class, () -> CacheKeyPlans.fromObject(entity, CacheEntityWithoutGetter.class));
+
+        assertEquals("Field id does not have a getter named getId", exception.getMessage(), "incorrect message");
+    }
+
+    @DisplayName("when the cached class has no cache key then throw")
+    @Test
+    void whenTheCachedClassHasNoCacheKeyThenThrow() {
+        assertThrows(NoCacheKeyException.class, () -> CacheKeyPlans.fromObject("value", String.class));
+    }
+
+    private static Method getCachingMethod(String name) {
+        return Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals(name)).findFirst().get();
+    }
+}
@@ -2,8 +2,11 @@ package org.fermented.dairy.microprofile.caching.interceptors;
 
 import jakarta.interceptor.InvocationContext;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eclipse.microprofile.config.Config;
 import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
 import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
 import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProviderChild;
 import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProviderNoKey;
@@ -20,9 +23,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -34,6 +41,12 @@ class CacheRemoveInterceptorTest {
     @Mock
     InvocationContext invocationContext;
 
+    @Mock
+    Config config;
+
+    @Mock
+    InvalidationBroadcaster invalidationBroadcaster;
+
     @Spy
     private Map<String, CacheProvider> cacheProviderMap =
             Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class));
@@ -45,6 +58,8 @@ class CacheRemoveInterceptorTest {
     void setConfig() throws IllegalAccessException {
         FieldUtils.writeField(cacheRemoveInterceptor, "defaultProviderName", "LocalHashMapCache", true);
         FieldUtils.writeField(cacheRemoveInterceptor, "defaultTTL", 300000L, true);
+        cacheProviderMap.values().forEach(provider -> lenient().when(provider.getCache(anyString(), any(), any()))
+                .thenAnswer(invocation -> Cache.byName(provider, invocation.getArgument(0), invocation.getArgument(2))));
     }
 
     @DisplayName("when calling the remove method with a single parameter that is not the cached class then remove")
@@ -59,6 +74,20 @@ class CacheRemoveInterceptorTest {
 
         verify(invocationContext).proceed();
         verify(cacheProviderMap.get("TestCacheProvider")).invalidateCacheEntry(1L, "TestCacheName");
+        verify(invalidationBroadcaster).publish(cacheProviderMap.get("TestCacheProvider").getProviderName(), "TestCacheName", 1L);
+    }
+
+    @DisplayName("when calling the remove all entries method then clear the cache on all nodes")
+    @Test
+    void whenCallingTheRemoveAllEntriesMethodThenClearTheCacheOnAllNodes() throws Exception {
+        Method cachingMethod = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals("removeAllCacheEntries")).findFirst().get();
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+
+        cacheRemoveInterceptor.doCacheRemove(invocationContext);
+
+        verify(invocationContext).proceed();
+        verify(invalidationBroadcaster).clearCache(cacheProviderMap.get("TestCacheProvider"), "TestCacheName");
+        verify(cacheProviderMap.get("TestCacheProvider"), never()).invalidateCacheEntry(any(), anyString());
     }
 
     @DisplayName("when calling the remove method with a single parameter that is the cached class then remove")
@@ -133,4 +162,20 @@ class CacheRemoveInterceptorTest {
         verify(invocationContext).proceed();
         verify(cacheProviderMap.get("TestCacheProvider")).invalidateCacheEntry(1L, "TestCacheName");
     }
-}
\ No newline at end of file
+
+    @DisplayName("when calling the remove method with a collection of the cached class then remove all their keys")
+    @Test
+    void whenCallingTheRemoveMethodWithACollectionOfTheCachedClassThenRemoveAllTheirKeys() throws Exception {
+        Method cachingMethod = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals("removeCacheCollectionParamObject")).findFirst().get();
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{List.of(
+                CacheEntityWithProvider.builder().id(1L).build(),
+                CacheEntityWithProvider.builder().id(2L).build()
+        )});
+
+        cacheRemoveInterceptor.doCacheRemove(invocationContext);
+
+        verify(invocationContext).proceed();
+        verify(cacheProviderMap.get("TestCacheProvider")).invalidateCacheEntries(List.of(1L, 2L), "TestCacheName");
+    }
+}
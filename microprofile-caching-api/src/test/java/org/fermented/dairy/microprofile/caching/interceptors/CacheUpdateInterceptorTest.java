@@ -0,0 +1,151 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import jakarta.interceptor.InvocationContext;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eclipse.microprofile.config.Config;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.invalidation.InvalidationBroadcaster;
+import org.fermented.dairy.microprofile.caching.providers.LocalHashMapCacheProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CachingClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("OptionalGetWithoutIsPresent")
+@ExtendWith(MockitoExtension.class)
+class CacheUpdateInterceptorTest {
+
+    @Mock
+    InvocationContext invocationContext;
+
+    @Mock
+    Config config;
+
+    @Mock
+    InvalidationBroadcaster invalidationBroadcaster;
+
+    @Spy
+    private Map<String, CacheProvider> cacheProviderMap =
+            Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class));
+
+    @InjectMocks
+    CacheUpdateInterceptor cacheUpdateInterceptor;
+
+    @BeforeEach
+    void setConfig() throws IllegalAccessException {
+        FieldUtils.writeField(cacheUpdateInterceptor, "defaultProviderName", "LocalHashMapCache", true);
+        FieldUtils.writeField(cacheUpdateInterceptor, "defaultTTL", 300000L, true);
+        cacheProviderMap.values().forEach(provider -> lenient().when(provider.getCache(anyString(), any(), any()))
+                .thenAnswer(invocation -> Cache.byName(provider, invocation.getArgument(0), invocation.getArgument(2))));
+    }
+
+    @DisplayName("when calling the update method returning the cached class then put the result into the cache under its key")
+    @Test
+    void whenCallingTheUpdateMethodReturningTheCachedClassThenPutTheResultIntoTheCacheUnderItsKey() throws Exception {
+        CacheEntityWithProvider updated = CacheEntityWithProvider.builder().id(1L).name("updated").build();
+        Method cachingMethod = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals("updateCacheSingleParamObject")).findFirst().get();
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.proceed()).thenReturn(updated);
+
+        Object actual = cacheUpdateInterceptor.doCacheUpdate(invocationContext);
+
+        assertSame(updated, actual, "incorrect value returned");
+        verify(cacheProviderMap.get("TestCacheProvider")).putCacheEntry(1L, "TestCacheName", updated, 300000L);
+        verify(invalidationBroadcaster).publish(cacheProviderMap.get("TestCacheProvider").getProviderName(), "TestCacheName", 1L);
+    }
+
+    @DisplayName("when calling the update method returning null then put null under the key from the parameters")
+    @Test
+    void whenCallingTheUpdateMethodReturningNullThenPutNullUnderTheKeyFromTheParameters() throws Exception {
+        Method cachingMethod = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals("updateCacheSingleParamNotObject")).findFirst().get();
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+
+        cacheUpdateInterceptor.doCacheUpdate(invocationContext);
+
+        verify(cacheProviderMap.get("TestCacheProvider")).putCacheEntry(1L, "TestCacheName", null, 300000L);
+    }
+
+    @DisplayName("when calling an update method returning a class without a cache key then put the result under the key from the parameters")
+    @Test
+    void whenCallingAnUpdateMethodReturningAClassWithoutACacheKeyThenPutTheResultUnderTheKeyFromTheParameters() throws Exception {
+        FieldUtils.writeField(cacheUpdateInterceptor, "defaultProviderName", "TestCacheProvider", true);
+        Method cachingMethod = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals("renameCached")).findFirst().get();
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L, "renamed"});
+        when(invocationContext.proceed()).thenReturn("renamed");
+
+        Object actual = cacheUpdateInterceptor.doCacheUpdate(invocationContext);
+
+        assertSame("renamed", actual, "incorrect value returned");
+        verify(cacheProviderMap.get("TestCacheProvider")).putCacheEntry(1L, "java.lang.String", "renamed", 300000L);
+    }
+
+    @DisplayName("given optional and plain update and retrieve methods of a cached class then share the cached values")
+    @Test
+    void givenOptionalAndPlainUpdateAndRetrieveMethodsOfACachedClassThenShareTheCachedValues() throws Exception {
+        LocalHashMapCacheProvider localCacheProvider = new LocalHashMapCacheProvider();
+        Map<String, CacheProvider> localProviders = Map.of("TestCacheProvider", localCacheProvider);
+        FieldUtils.writeField(cacheUpdateInterceptor, "cacheProviderMap", localProviders, true);
+        CachingRetrieveInterceptor cachingRetrieveInterceptor = new CachingRetrieveInterceptor();
+        FieldUtils.writeField(cachingRetrieveInterceptor, "cacheProviderMap", localProviders, true);
+        FieldUtils.writeField(cachingRetrieveInterceptor, "config", config, true);
+        FieldUtils.writeField(cachingRetrieveInterceptor, "defaultProviderName", "LocalHashMapCache", true);
+        FieldUtils.writeField(cachingRetrieveInterceptor, "defaultTTL", 300000L, true);
+        CacheEntityWithProvider optionalUpdated = CacheEntityWithProvider.builder().id(1L).name("optional").build();
+        CacheEntityWithProvider plainUpdated = CacheEntityWithProvider.builder().id(2L).name("plain").build();
+
+        try {
+            when(invocationContext.getMethod()).thenReturn(getCachingMethod("updateCacheOptional"), getCachingMethod("updateCacheSingleParamObject"));
+            when(invocationContext.proceed()).thenReturn(Optional.of(optionalUpdated), plainUpdated);
+            cacheUpdateInterceptor.doCacheUpdate(invocationContext);
+            cacheUpdateInterceptor.doCacheUpdate(invocationContext);
+
+            InvocationContext plainRetrieve = Mockito.mock(InvocationContext.class);
+            when(plainRetrieve.getMethod()).thenReturn(getCachingMethod("getCachedSingleParam"));
+            when(plainRetrieve.getParameters()).thenReturn(new Object[]{1L});
+            InvocationContext optionalRetrieve = Mockito.mock(InvocationContext.class);
+            when(optionalRetrieve.getMethod()).thenReturn(getCachingMethod("getOptionalCachedSingleParam"));
+            when(optionalRetrieve.getParameters()).thenReturn(new Object[]{2L});
+
+            Object plainActual = cachingRetrieveInterceptor.doCacheRetrieve(plainRetrieve);
+            Object optionalActual = cachingRetrieveInterceptor.doCacheRetrieve(optionalRetrieve);
+
+            assertAll("Verify shared values",
+                    () -> assertSame(optionalUpdated, plainActual, "optional update not served to a plain retrieve"),
+                    () -> assertEquals(Optional.of(plainUpdated), optionalActual, "plain update not served to an optional retrieve")
+            );
+            verify(plainRetrieve, never()).proceed();
+            verify(optionalRetrieve, never()).proceed();
+        } finally {
+            localCacheProvider.clearCache("TestCacheName");
+        }
+    }
+
+    private static Method getCachingMethod(String name) {
+        return Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals(name)).findFirst().get();
+    }
+}
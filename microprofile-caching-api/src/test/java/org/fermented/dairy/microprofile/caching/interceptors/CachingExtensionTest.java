@@ -0,0 +1,145 @@
+package org.fermented.dairy.microprofile.caching.interceptors;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eclipse.microprofile.config.Config;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
+import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
+import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CachingClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("OptionalGetWithoutIsPresent")
+@ExtendWith(MockitoExtension.class)
+class CachingExtensionTest {
+
+    private static final Set<String> PROVIDER_NAMES = Set.of("TestCacheProvider", "LocalHashMapCache");
+
+    @Mock
+    Config config;
+
+    @Spy
+    private Map<String, CacheProvider> cacheProviderMap =
+            Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class));
+
+    @InjectMocks
+    AbstractCachingInterceptor resolver;
+
+    CachingExtension cachingExtension = new CachingExtension();
+
+    @BeforeEach
+    void setConfig() throws IllegalAccessException {
+        FieldUtils.writeField(resolver, "defaultProviderName", "LocalHashMapCache", true);
+        FieldUtils.writeField(resolver, "defaultTTL", 300000L, true);
+    }
+
+    @DisplayName("given valid caching annotations when deployed then index the methods and resolve their cached classes once")
+    @Test
+    void givenValidCachingAnnotationsWhenDeployedThenIndexTheMethodsAndResolveTheirCachedClassesOnce() {
+        Method retrieve = discover(CacheRetrieve.class, "getCachedSingleParam");
+        Method optionalRetrieve = discover(CacheRetrieve.class, "getOptionalCachedMultiParam");
+        Method bulkRetrieve = discover(CacheRetrieve.class, "getCachedByIds");
+        Method collectionRetrieve = discover(CacheRetrieve.class, "getCachedFirstOfIds");
+        Method update = discover(CacheUpdate.class, "updateCacheSingleParamObject");
+        Method remove = discover(CacheRemove.class, "removeCacheMultiParamObjectAnnotated");
+        CacheEntityWithProvider entity = CacheEntityWithProvider.builder().id(2L).build();
+
+        List<CacheRuntimeException> problems = cachingExtension.buildIndex(PROVIDER_NAMES, resolver);
+
+        CacheDescriptor descriptor = cachingExtension.descriptor(CacheEntityWithProvider.class,
+                cacheClass -> fail("cached class not resolved at deployment"));
+        assertAll("Verify index",
+                () -> assertTrue(problems.isEmpty(), "problems found: " + problems),
+                () -> assertEquals(CacheEntityWithProvider.class, cachingExtension.cachedMethod(CacheRetrieve.class, retrieve).cacheClass(), "incorrect cached class"),
+                () -> assertEquals(1L, cachingExtension.cachedMethod(CacheRetrieve.class, retrieve).keyExtractor().extract(new Object[]{1L}), "incorrect key"),
+                () -> assertEquals(3L, cachingExtension.cachedMethod(CacheRetrieve.class, optionalRetrieve).keyExtractor().extract(new Object[]{"dummy", 3L}), "incorrect key"),
+                () -> assertEquals(CachedMethod.Kind.BULK, cachingExtension.cachedMethod(CacheRetrieve.class, bulkRetrieve).kind(), "incorrect kind"),
+                () -> assertEquals(0, cachingExtension.cachedMethod(CacheRetrieve.class, bulkRetrieve).keysParameter(), "incorrect keys parameter"),
+                () -> assertEquals(CachedMethod.Kind.VALUE, cachingExtension.cachedMethod(CacheRetrieve.class, collectionRetrieve).kind(), "collection parameter served in bulk without opting in"),
+                () -> assertEquals(List.of(1L, 2L), cachingExtension.cachedMethod(CacheRetrieve.class, collectionRetrieve).keyExtractor().extract(new Object[]{List.of(1L, 2L)}), "incorrect key"),
+                () -> assertEquals(2L, cachingExtension.cachedMethod(CacheUpdate.class, update).keyExtractor().extract(new Object[]{entity}), "incorrect key"),
+                () -> assertEquals(2L, cachingExtension.cachedMethod(CacheRemove.class, remove).keyExtractor().extract(new Object[]{1L, entity}), "incorrect key"),
+                () -> assertNull(cachingExtension.cachedMethod(CacheUpdate.class, retrieve), "indexed for another annotation"),
+                () -> assertEquals("TestCacheName", descriptor.cacheName(), "incorrect cache name"),
+                () -> assertSame(cacheProviderMap.get("TestCacheProvider"), descriptor.provider(), "incorrect provider")
+        );
+        verify(cacheProviderMap.get("TestCacheProvider"), times(1)).configureCache(eq("TestCacheName"), any());
+    }
+
+    @DisplayName("given invalid caching annotations when deployed then report every problem and do not index")
+    @Test
+    void givenInvalidCachingAnnotationsWhenDeployedThenReportEveryProblemAndDoNotIndex() {
+        Method missingKey = discover(CacheRetrieve.class, "getOptionalCachedMultiParamMissingKey");
+        discover(CacheRemove.class, "removeCacheSingleParamObjectNoKey");
+        discover(CacheRemove.class, "removeCacheSingleParamObjectWithoutGetter");
+        discover(CacheRetrieve.class, "getCachedSingleParam");
+
+        List<CacheRuntimeException> problems = cachingExtension.buildIndex(Set.of("LocalHashMapCache"), resolver);
+
+        assertAll("Verify problems",
+                () -> assertEquals(4, problems.size(), "incorrect problems: " + problems),
+                () -> assertInstanceOf(NoCacheKeyException.class, problems.get(0), "missing cache key parameter not reported"),
+                () -> assertInstanceOf(NoCacheKeyException.class, problems.get(1), "missing cache key field not reported"),
+                () -> assertEquals("Field id does not have a getter named getId", problems.get(2).getMessage(), "missing getter not reported"),
+                () -> assertTrue(problems.get(3).getMessage().startsWith("Unknown cache provider TestCacheProvider"), "unknown provider not reported"),
+                () -> assertNull(cachingExtension.cachedMethod(CacheRetrieve.class, missingKey), "indexed despite problems")
+        );
+    }
+
+    @DisplayName("given update methods returning a class without a cache key when deployed then require a parameter key only")
+    @Test
+    void givenUpdateMethodsReturningAClassWithoutACacheKeyWhenDeployedThenRequireAParameterKeyOnly() throws IllegalAccessException {
+        FieldUtils.writeField(resolver, "defaultProviderName", "TestCacheProvider", true);
+        Method rename = discover(CacheUpdate.class, "renameCached");
+        List<CacheRuntimeException> problems = cachingExtension.buildIndex(PROVIDER_NAMES, resolver);
+        CachedMethod cachedRename = cachingExtension.cachedMethod(CacheUpdate.class, rename);
+
+        cachingExtension = new CachingExtension();
+        discover(CacheUpdate.class, "renameCachedMissingKey");
+        List<CacheRuntimeException> missingKeyProblems = cachingExtension.buildIndex(PROVIDER_NAMES, resolver);
+
+        assertAll("Verify update keys",
+                () -> assertTrue(problems.isEmpty(), "problems found: " + problems),
+                () -> assertEquals(String.class, cachedRename.cacheClass(), "incorrect cached class"),
+                () -> assertEquals(1L, cachedRename.keyExtractor().extract(new Object[]{1L, "renamed"}), "incorrect key"),
+                () -> assertEquals(1, missingKeyProblems.size(), "incorrect problems: " + missingKeyProblems),
+                () -> assertInstanceOf(NoCacheKeyException.class, missingKeyProblems.get(0), "missing cache key not reported")
+        );
+    }
+
+    private Method discover(Class<? extends Annotation> binding, String methodName) {
+        Method method = Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(m -> m.getName().equals(methodName)).findFirst().get();
+        cachingExtension.add(binding, method, method.getAnnotation(binding));
+        return method;
+    }
+}
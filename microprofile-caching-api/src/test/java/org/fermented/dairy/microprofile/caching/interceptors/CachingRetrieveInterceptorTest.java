@@ -2,17 +2,55 @@ package org.fermented.dairy.microprofile.caching.interceptors;
 
 import jakarta.interceptor.InvocationContext;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eclipse.microprofile.config.Config;
+import org.fermented.dairy.microprofile.caching.exceptions.NoCacheKeyException;
+import org.fermented.dairy.microprofile.caching.interfaces.AsyncCacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.providers.LocalHashMapCacheProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
 import org.fermented.dairy.microprofile.caching.test.entities.CachingClass;
+import org.fermented.dairy.microprofile.caching.test.entities.RefreshingCacheEntity;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+@SuppressWarnings({"unchecked", "OptionalGetWithoutIsPresent"})
 
 @ExtendWith(MockitoExtension.class)
 class CachingRetrieveInterceptorTest {
@@ -20,9 +58,13 @@ class CachingRetrieveInterceptorTest {
     @Mock
     private InvocationContext invocationContext;
 
+    @Mock
+    private Config config;
+
     @Spy
     private Map<String, CacheProvider> cacheProviderMap =
-            Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class));
+            Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class),
+                    "TestAsyncCacheProvider", Mockito.mock(AsyncCacheProvider.class));
 
     @InjectMocks
     CachingRetrieveInterceptor cachingRetrieveInterceptor;
@@ -33,5 +75,299 @@ class CachingRetrieveInterceptorTest {
     void setConfig() throws IllegalAccessException {
         FieldUtils.writeField(cachingRetrieveInterceptor, "defaultProviderName", "LocalHashMapCache", true);
         FieldUtils.writeField(cachingRetrieveInterceptor, "defaultTTL", 300000L, true);
+        cacheProviderMap.values().forEach(provider -> lenient().when(provider.getCache(anyString(), any(), any()))
+                .thenAnswer(invocation -> Cache.byName(provider, invocation.getArgument(0), invocation.getArgument(2))));
+    }
+
+    @DisplayName("when calling the retrieve method with a single parameter then load through the provider")
+    @Test
+    void whenCallingTheRetrieveMethodWithASingleParameterThenLoadThroughTheProvider() throws Exception {
+        CacheEntityWithProvider cached = cachingClass.getCachedSingleParam(1L);
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(cacheProviderMap.get("TestCacheProvider").loadAndGetFromCache(
+                eq(1L), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L)))
+                .thenReturn(cached);
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertSame(cached, actual, "value not returned from the provider");
+        verify(invocationContext, never()).proceed();
+    }
+
+    @DisplayName("when calling the retrieve method on a cache miss then proceed with the invocation as the loader")
+    @Test
+    void whenCallingTheRetrieveMethodOnACacheMissThenProceedWithTheInvocationAsTheLoader() throws Exception {
+        CacheEntityWithProvider loaded = cachingClass.getCachedSingleParam(1L);
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenReturn(loaded);
+        stubProviderToCallLoader();
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertSame(loaded, actual, "value not loaded from the invocation");
+        verify(invocationContext).proceed();
+    }
+
+    @DisplayName("when calling the optional retrieve method with a single parameter then load the unwrapped value through the provider")
+    @Test
+    void whenCallingTheOptionalRetrieveMethodWithASingleParameterThenLoadTheUnwrappedValueThroughTheProvider() throws Exception {
+        Optional<CacheEntityWithProvider> cached = cachingClass.getOptionalCachedSingleParam(1L);
+        Method cachingMethod = getCachingMethod("getOptionalCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(cacheProviderMap.get("TestCacheProvider").loadAndGetFromCache(
+                eq(1L), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L)))
+                .thenReturn(cached.get());
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertEquals(cached, actual, "optional of the value from the provider not returned");
+    }
+
+    @DisplayName("when calling the optional retrieve method with multiple parameters one of which is annotated as the CacheKey then load using that key")
+    @Test
+    void whenCallingTheOptionalRetrieveMethodWithMultipleParametersOneOfWhichIsAnnotatedAsTheCacheKeyThenLoadUsingThatKey() throws Exception {
+        Optional<CacheEntityWithProvider> cached = cachingClass.getOptionalCachedMultiParam("dummy", 1L);
+        Method cachingMethod = getCachingMethod("getOptionalCachedMultiParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{"dummy", 1L});
+        when(cacheProviderMap.get("TestCacheProvider").loadAndGetFromCache(
+                eq(1L), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L)))
+                .thenReturn(cached.get());
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertEquals(1L, ((Optional<CacheEntityWithProvider>) actual).get().getId(), "incorrect entity returned");
+    }
+
+    @DisplayName("when calling the optional retrieve method with multiple parameters none of which is the cache key then throw")
+    @Test
+    void whenCallingTheOptionalRetrieveMethodWithMultipleParametersNoneOfWhichIsTheCacheKeyThenThrow() throws Exception {
+        Method cachingMethod = getCachingMethod("getOptionalCachedMultiParamMissingKey");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{"dummy", 1L});
+
+        assertThrows(NoCacheKeyException.class, () -> cachingRetrieveInterceptor.doCacheRetrieve(invocationContext));
+
+        verify(invocationContext, never()).proceed();
+        verify(cacheProviderMap.get("TestCacheProvider"), never()).loadAndGetFromCache(
+                any(), any(), any(Function.class), any(Class.class), anyLong());
+    }
+
+    @DisplayName("when the intercepted method throws a checked exception then rethrow it unwrapped")
+    @Test
+    void whenTheInterceptedMethodThrowsACheckedExceptionThenRethrowItUnwrapped() throws Exception {
+        IOException thrown = new IOException("backend unavailable");
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenThrow(thrown);
+        stubProviderToCallLoader();
+
+        IOException actual = assertThrows(IOException.class, () -> cachingRetrieveInterceptor.doCacheRetrieve(invocationContext));
+
+        assertSame(thrown, actual, "exception from the intercepted method not rethrown");
+    }
+
+    @DisplayName("when calling the retrieve method repeatedly then configure the cache once")
+    @Test
+    void whenCallingTheRetrieveMethodRepeatedlyThenConfigureTheCacheOnce() throws Exception {
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+
+        cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+        cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        verify(cacheProviderMap.get("TestCacheProvider"), times(1)).configureCache("TestCacheName",
+                CacheOptions.builder().loadTimeout(10000L).build());
+    }
+
+    @DisplayName("when the maximum size is configured for the cached class then configure the cache with it")
+    @Test
+    void whenTheMaximumSizeIsConfiguredForTheCachedClassThenConfigureTheCacheWithIt() throws Exception {
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(config.getOptionalValue(CacheEntityWithProvider.class.getCanonicalName() + ".cache.maximumSize", Long.class))
+                .thenReturn(Optional.of(50L));
+
+        cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        verify(cacheProviderMap.get("TestCacheProvider")).configureCache("TestCacheName",
+                CacheOptions.builder().maximumSize(50L).build());
+    }
+
+    @DisplayName("when the TTL is configured for the cached class then load with it instead of the annotated TTL")
+    @Test
+    void whenTheTtlIsConfiguredForTheCachedClassThenLoadWithItInsteadOfTheAnnotatedTtl() throws Exception {
+        Method cachingMethod = getCachingMethod("getCachedSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        lenient().when(config.getOptionalValue(CacheEntityWithProvider.class.getCanonicalName() + ".cache.ttl", Long.class))
+                .thenReturn(Optional.of(1000L));
+
+        cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+        cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        verify(cacheProviderMap.get("TestCacheProvider"), times(2)).loadAndGetFromCache(
+                eq(1L), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(1000L));
+        verify(config, times(1)).getOptionalValue(CacheEntityWithProvider.class.getCanonicalName() + ".cache.ttl", Long.class);
+    }
+
+    @DisplayName("when calling the async retrieve method on a synchronous provider then cache the completed value")
+    @Test
+    void whenCallingTheAsyncRetrieveMethodOnASynchronousProviderThenCacheTheCompletedValue() throws Exception {
+        CacheEntityWithProvider loaded = cachingClass.getCachedSingleParam(1L);
+        Method cachingMethod = getCachingMethod("getCachedAsyncSingleParam");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenReturn(CompletableFuture.completedFuture(loaded));
+        stubProviderToCallLoader();
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertSame(loaded, ((CompletionStage<Object>) actual).toCompletableFuture().get(), "completed value not returned");
+        verify(cacheProviderMap.get("TestCacheProvider")).loadAndGetFromCache(
+                eq(1L), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L));
+    }
+
+    @DisplayName("when calling the async retrieve method on an async provider then load through the async provider")
+    @Test
+    void whenCallingTheAsyncRetrieveMethodOnAnAsyncProviderThenLoadThroughTheAsyncProvider() throws Exception {
+        FieldUtils.writeField(cachingRetrieveInterceptor, "defaultProviderName", "TestAsyncCacheProvider", true);
+        AsyncCacheProvider asyncCacheProvider = (AsyncCacheProvider) cacheProviderMap.get("TestAsyncCacheProvider");
+        Object loaded = "loaded";
+        Method cachingMethod = getCachingMethod("getCachedAsyncString");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenReturn(CompletableFuture.completedFuture(loaded));
+        when(asyncCacheProvider.loadAndGetFromCacheAsync(
+                eq(1L), eq(String.class.getCanonicalName()), any(Function.class), eq(String.class), eq(300000L)))
+                .thenAnswer(invocation -> ((Function<Object, CompletionStage<Object>>) invocation.getArgument(2)).apply(invocation.getArgument(0)));
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertSame(loaded, ((CompletionStage<Object>) actual).toCompletableFuture().get(), "completed value not returned");
+        verify(asyncCacheProvider, never()).loadAndGetFromCache(any(), any(), any(Function.class), any(Class.class), anyLong());
+    }
+
+    @DisplayName("when calling the retrieve method with a collection of keys then invoke the method once with the missing keys")
+    @Test
+    void whenCallingTheRetrieveMethodWithACollectionOfKeysThenInvokeTheMethodOnceWithTheMissingKeys() throws Exception {
+        CacheEntityWithProvider cached = cachingClass.getCachedSingleParam(1L);
+        List<CacheEntityWithProvider> loaded = cachingClass.getCachedByIds(List.of(2L, 3L));
+        Method cachingMethod = getCachingMethod("getCachedByIds");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{List.of(1L, 2L, 3L)});
+        when(invocationContext.proceed()).thenReturn(loaded);
+        when(cacheProviderMap.get("TestCacheProvider").loadAllAndGetFromCache(
+                eq(Set.of(1L, 2L, 3L)), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L)))
+                .thenAnswer(invocation -> {
+                    Map<Object, Object> result = new LinkedHashMap<>();
+                    result.put(1L, cached);
+                    result.putAll(((Function<Set<Object>, Map<Object, Object>>) invocation.getArgument(2)).apply(new LinkedHashSet<>(List.of(2L, 3L))));
+                    return result;
+                });
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertEquals(List.of(cached, loaded.get(0), loaded.get(1)), actual, "cached and loaded values not returned in key order");
+        verify(invocationContext).setParameters(new Object[]{List.of(2L, 3L)});
+        verify(invocationContext, times(1)).proceed();
+    }
+
+    @DisplayName("when the bulk retrieve method returns null for the missing keys then return only the cached values")
+    @Test
+    void whenTheBulkRetrieveMethodReturnsNullForTheMissingKeysThenReturnOnlyTheCachedValues() throws Exception {
+        CacheEntityWithProvider cached = cachingClass.getCachedSingleParam(1L);
+        Method cachingMethod = getCachingMethod("getCachedByIds");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{List.of(1L, 2L)});
+        when(invocationContext.proceed()).thenReturn(null);
+        when(cacheProviderMap.get("TestCacheProvider").loadAllAndGetFromCache(
+                eq(Set.of(1L, 2L)), eq("TestCacheName"), any(Function.class), eq(CacheEntityWithProvider.class), eq(300000L)))
+                .thenAnswer(invocation -> {
+                    Map<Object, Object> result = new LinkedHashMap<>();
+                    result.put(1L, cached);
+                    result.putAll(((Function<Set<Object>, Map<Object, Object>>) invocation.getArgument(2)).apply(Set.of(2L)));
+                    return result;
+                });
+
+        Object actual = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+        assertEquals(List.of(cached), actual, "cached value not returned alone");
+    }
+
+    private void stubProviderToCallLoader() {
+        when(cacheProviderMap.get("TestCacheProvider").loadAndGetFromCache(
+                any(), any(), any(Function.class), any(Class.class), anyLong()))
+                .thenAnswer(invocation -> ((Function<Object, Object>) invocation.getArgument(2)).apply(invocation.getArgument(0)));
+    }
+
+    @DisplayName("when calling a retrieve method declaring an interface return type then serve the loaded value from the local cache")
+    @Test
+    void whenCallingARetrieveMethodDeclaringAnInterfaceReturnTypeThenServeTheLoadedValueFromTheLocalCache() throws Exception {
+        LocalHashMapCacheProvider localCacheProvider = new LocalHashMapCacheProvider();
+        FieldUtils.writeField(cachingRetrieveInterceptor, "cacheProviderMap", Map.of("LocalHashMapCache", localCacheProvider), true);
+        Method cachingMethod = getCachingMethod("getCachedNames");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenReturn(cachingClass.getCachedNames(1L));
+
+        try {
+            Object loaded = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+            Object cached = cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+
+            assertAll("Verify value of an interface type",
+                    () -> assertEquals(List.of("1"), loaded, "value not loaded from the invocation"),
+                    () -> assertSame(loaded, cached, "value not served from the cache")
+            );
+            verify(invocationContext, times(1)).proceed();
+        } finally {
+            localCacheProvider.clearCache(List.class.getCanonicalName());
+        }
+    }
+
+    @DisplayName("given a cached value due for refresh when calling the retrieve method then reload it through the invocation of that call")
+    @Test
+    void givenACachedValueDueForRefreshWhenCallingTheRetrieveMethodThenReloadItThroughTheInvocationOfThatCall() throws Exception {
+        LocalHashMapCacheProvider localCacheProvider = new LocalHashMapCacheProvider();
+        FieldUtils.writeField(cachingRetrieveInterceptor, "cacheProviderMap", Map.of("LocalHashMapCache", localCacheProvider), true);
+        Method cachingMethod = getCachingMethod("getRefreshing");
+        when(invocationContext.getMethod()).thenReturn(cachingMethod);
+        when(invocationContext.getParameters()).thenReturn(new Object[]{1L});
+        when(invocationContext.proceed()).thenReturn(new RefreshingCacheEntity(1L, "loaded"));
+        InvocationContext refreshingContext = Mockito.mock(InvocationContext.class);
+        when(refreshingContext.getMethod()).thenReturn(cachingMethod);
+        when(refreshingContext.getParameters()).thenReturn(new Object[]{1L});
+        Thread caller = Thread.currentThread();
+        List<Thread> reloadThreads = new ArrayList<>();
+        when(refreshingContext.proceed()).thenAnswer(invocation -> {
+            reloadThreads.add(Thread.currentThread());
+            return new RefreshingCacheEntity(1L, "refreshed");
+        });
+
+        try {
+            cachingRetrieveInterceptor.doCacheRetrieve(invocationContext);
+            Thread.sleep(20L);//NOSONAR: java:S2925, wait for the value to be due for refresh
+            Object refreshed = cachingRetrieveInterceptor.doCacheRetrieve(refreshingContext);
+
+            assertAll("Verify refresh",
+                    () -> assertEquals(new RefreshingCacheEntity(1L, "refreshed"), refreshed, "value not reloaded by the call"),
+                    () -> assertEquals(List.of(caller), reloadThreads, "value not reloaded once on the calling thread")
+            );
+            verify(invocationContext, times(1)).proceed();
+        } finally {
+            localCacheProvider.clearCache("RefreshingCacheName");
+        }
+    }
+
+    private static Method getCachingMethod(String name) {
+        return Arrays.stream(CachingClass.class.getDeclaredMethods()).filter(method -> method.getName().equals(name)).findFirst().get();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package org.fermented.dairy.microprofile.caching.invalidation;
+
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.providers.SerializableValueCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvalidationBroadcasterTest {
+
+    CacheProvider nodeACacheProvider = Mockito.mock(CacheProvider.class);
+
+    CacheProvider nodeBCacheProvider = Mockito.mock(CacheProvider.class);
+
+    //Flushed by the tests, long before the batch window ends
+    InvalidationBroadcaster nodeA = new InvalidationBroadcaster(Map.of("TestCacheProvider", nodeACacheProvider), TimeUnit.HOURS.toMillis(1));
+
+    InvalidationBroadcaster nodeB = new InvalidationBroadcaster(Map.of("TestCacheProvider", nodeBCacheProvider), TimeUnit.HOURS.toMillis(1));
+
+    @BeforeEach
+    void connectNodes() {
+        nodeA.start(new LoopbackInvalidationTransport("test"), new SerializableValueCodec(InvalidationBroadcaster.keyFilter(null)));
+        nodeB.start(new LoopbackInvalidationTransport("test"), new SerializableValueCodec(InvalidationBroadcaster.keyFilter(null)));
+    }
+
+    @AfterEach
+    void disconnectNodes() {
+        nodeA.destroy();
+        nodeB.destroy();
+    }
+
+    @DisplayName("given key invalidations published on one node when flushed then invalidate each key once on the other node only")
+    @Test
+    void givenKeyInvalidationsPublishedOnOneNodeWhenFlushedThenInvalidateEachKeyOnceOnTheOtherNodeOnly() {
+        nodeA.publish("TestCacheProvider", "TestCacheName", 1L);
+        nodeA.publish("TestCacheProvider", "TestCacheName", 1L);
+        nodeA.publish("TestCacheProvider", "TestCacheName", 2L);
+        nodeA.publish("UnknownCacheProvider", "TestCacheName", 3L);
+
+        nodeA.flush();
+
+        verify(nodeBCacheProvider).invalidateCacheEntry(1L, "TestCacheName");
+        verify(nodeBCacheProvider).invalidateCacheEntry(2L, "TestCacheName");
+        verify(nodeACacheProvider, never()).invalidateCacheEntry(any(), anyString());
+    }
+
+    @DisplayName("given key invalidations and a clear of the same cache in one batch then only clear the cache on the other node")
+    @Test
+    void givenKeyInvalidationsAndAClearOfTheSameCacheInOneBatchThenOnlyClearTheCacheOnTheOtherNode() {
+        when(nodeACacheProvider.getProviderName()).thenReturn("TestCacheProvider");
+        nodeA.publish("TestCacheProvider", "TestCacheName", 1L);
+        nodeA.publish("TestCacheProvider", "OtherCacheName", 1L);
+        nodeA.clearCache(nodeACacheProvider, "TestCacheName");
+
+        nodeA.flush();
+
+        verify(nodeACacheProvider).clearCache("TestCacheName");
+        verify(nodeBCacheProvider).clearCache("TestCacheName");
+        verify(nodeBCacheProvider, never()).invalidateCacheEntry(1L, "TestCacheName");
+        verify(nodeBCacheProvider).invalidateCacheEntry(1L, "OtherCacheName");
+    }
+
+    @DisplayName("given providers publishing their clears when a clear is applied from another node then do not publish it back")
+    @Test
+    void givenProvidersPublishingTheirClearsWhenAClearIsAppliedFromAnotherNodeThenDoNotPublishItBack() {
+        AtomicInteger nodeAClears = new AtomicInteger();
+        doAnswer(invocation -> {
+            nodeAClears.incrementAndGet();
+            nodeA.publishClear("TestCacheProvider", invocation.getArgument(0));
+            return null;
+        }).when(nodeACacheProvider).clearCache(anyString());
+        doAnswer(invocation -> {
+            nodeB.publishClear("TestCacheProvider", invocation.getArgument(0));
+            return null;
+        }).when(nodeBCacheProvider).clearCache(anyString());
+
+        nodeACacheProvider.clearCache("TestCacheName");
+        nodeA.flush();
+        nodeB.flush();
+        nodeA.flush();
+
+        assertAll("Verify the clear reaches the other node once",
+                () -> verify(nodeBCacheProvider).clearCache("TestCacheName"),
+                () -> assertEquals(1, nodeAClears.get(), "clear published back to the node it came from"));
+    }
+
+    @DisplayName("given more invalidations than fit a message then split them over several messages")
+    @Test
+    void givenMoreInvalidationsThanFitAMessageThenSplitThemOverSeveralMessages() {
+        List<String> keys = IntStream.range(0, 1000)
+                .mapToObj(i -> "key-" + i + "-" + "x".repeat(100))
+                .toList();
+        keys.forEach(key -> nodeA.publish("TestCacheProvider", "TestCacheName", key));
+
+        nodeA.flush();
+
+        keys.forEach(key -> verify(nodeBCacheProvider).invalidateCacheEntry(key, "TestCacheName"));
+    }
+
+    @DisplayName("given a key of a class that is not an allowed key class then apply only the other invalidations of the message")
+    @Test
+    void givenAKeyOfAClassThatIsNotAnAllowedKeyClassThenApplyOnlyTheOtherInvalidationsOfTheMessage() {
+        nodeA.publish("TestCacheProvider", "TestCacheName", new ArrayList<>(List.of(1L)));
+        nodeA.publish("TestCacheProvider", "OtherCacheName", 2L);
+
+        nodeA.flush();
+
+        verify(nodeBCacheProvider, never()).invalidateCacheEntry(any(), eq("TestCacheName"));
+        verify(nodeBCacheProvider).invalidateCacheEntry(2L, "OtherCacheName");
+    }
+
+    @DisplayName("given an enum key when its class is not configured then only decode it once it is")
+    @Test
+    void givenAnEnumKeyWhenItsClassIsNotConfiguredThenOnlyDecodeItOnceItIs() {
+        InvalidationBroadcaster nodeC = new InvalidationBroadcaster(Map.of("TestCacheProvider", nodeBCacheProvider), TimeUnit.HOURS.toMillis(1));
+        nodeC.start(new LoopbackInvalidationTransport("test"),
+                new SerializableValueCodec(InvalidationBroadcaster.keyFilter("java.util.concurrent.TimeUnit")));
+        try {
+            nodeA.publish("TestCacheProvider", "TestCacheName", TimeUnit.SECONDS);
+
+            nodeA.flush();
+
+            verify(nodeBCacheProvider).invalidateCacheEntry(TimeUnit.SECONDS, "TestCacheName"); //Once, by node C
+        } finally {
+            nodeC.destroy();
+        }
+    }
+
+    @DisplayName("given a message with a key length beyond the message then ignore the message")
+    @Test
+    void givenAMessageWithAKeyLengthBeyondTheMessageThenIgnoreTheMessage() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(0x43494E56);
+            output.writeLong(1L);
+            output.writeLong(1L);
+            output.writeInt(1);
+            output.writeUTF("TestCacheProvider");
+            output.writeUTF("TestCacheName");
+            output.writeBoolean(true);
+            output.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertDoesNotThrow(() -> nodeB.receive(bytes.toByteArray()), "invalid message not ignored");
+        verify(nodeBCacheProvider, never()).invalidateCacheEntry(any(), anyString());
+    }
+
+    @DisplayName("given a batch window that is not positive when starting then fail instead of never sending")
+    @Test
+    void givenABatchWindowThatIsNotPositiveWhenStartingThenFailInsteadOfNeverSending() {
+        InvalidationBroadcaster unbatched = new InvalidationBroadcaster(Map.of("TestCacheProvider", nodeACacheProvider), 0L);
+        LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport("unbatched");
+        SerializableValueCodec codec = new SerializableValueCodec(InvalidationBroadcaster.keyFilter(null));
+
+        assertThrows(CacheRuntimeException.class, () -> unbatched.start(transport, codec), "batch window of 0 accepted");
+    }
+}
@@ -0,0 +1,138 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalCacheTest {
+
+    private final LocalCache localCache = new LocalCache(CacheOptions.DEFAULT);
+
+    @DisplayName("given expired entries that are never requested again when cleaning up then remove them")
+    @Test
+    void givenExpiredEntriesThatAreNeverRequestedAgainWhenCleaningUpThenRemoveThem() {
+        localCache.loadAndGet("key1", str -> "inserted 1", String.class, 500L, false);
+        localCache.loadAndGet("key2", str -> "inserted 2", String.class, TimeUnit.MINUTES.toMillis(10), false);
+
+        localCache.cleanUp(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        assertAll("Verify expired entry removed",
+                () -> assertEquals(1, localCache.size(), "expired entry not removed"),
+                () -> assertTrue(localCache.getKeys().contains("key2"), "live entry removed")
+        );
+    }
+
+    @DisplayName("given an entry that was loaded again when the timer of the first load fires then keep the reloaded entry")
+    @Test
+    void givenAnEntryThatWasLoadedAgainWhenTheTimerOfTheFirstLoadFiresThenKeepTheReloadedEntry() {
+        localCache.loadAndGet("key1", str -> "inserted 1", String.class, 500L, false);
+        localCache.invalidate("key1");
+        localCache.loadAndGet("key1", str -> "inserted 2", String.class, TimeUnit.MINUTES.toMillis(10), false);
+
+        localCache.cleanUp(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals("inserted 2", localCache.loadAndGet("key1", str -> "inserted 3", String.class, 500L, false),
+                "reloaded entry removed");
+    }
+
+    @DisplayName("given an entry due for refresh when requesting it then reload on the requesting thread and serve the current value to other callers")
+    @Test
+    void givenAnEntryDueForRefreshWhenRequestingItThenReloadOnTheRequestingThreadAndServeTheCurrentValueToOtherCallers() throws Exception {
+        LocalCache refreshingCache = new LocalCache(CacheOptions.builder().refreshAfterWrite(10L).build());
+        long ttl = TimeUnit.MINUTES.toMillis(10);
+        refreshingCache.loadAndGet("key1", str -> "inserted 1", String.class, ttl, false);
+        Thread.sleep(20L);//NOSONAR: java:S2925, wait for the entry to be due for refresh
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch served = new CountDownLatch(1);
+        AtomicReference<Thread> reloadThread = new AtomicReference<>();
+
+        CompletableFuture<Thread> requestThread = new CompletableFuture<>();
+        CompletableFuture<String> refreshed = CompletableFuture.supplyAsync(() -> {
+            requestThread.complete(Thread.currentThread());
+            return refreshingCache.loadAndGet("key1", str -> {
+                reloadThread.set(Thread.currentThread());
+                reloading.countDown();
+                try {
+                    assertTrue(served.await(1, TimeUnit.SECONDS), "other caller not served");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "inserted 2";
+            }, String.class, ttl, false);
+        });
+        assertTrue(reloading.await(1, TimeUnit.SECONDS), "entry not reloaded");
+        String current = refreshingCache.loadAndGet("key1", str -> "inserted 3", String.class, ttl, false);
+        served.countDown();
+
+        assertAll("Verify refresh",
+                () -> assertEquals("inserted 1", current, "other caller waited on the reload"),
+                () -> assertEquals("inserted 2", refreshed.get(1, TimeUnit.SECONDS), "reloaded value not returned to the requesting caller"),
+                () -> assertSame(requestThread.get(), reloadThread.get(), "entry not reloaded on the requesting thread"),
+                () -> assertEquals("inserted 2", refreshingCache.loadAndGet("key1", str -> "inserted 3", String.class, ttl, false),
+                        "reloaded value not served")
+        );
+    }
+
+    @DisplayName("given a load in flight when invalidating the key then return the loaded value without caching it")
+    @Test
+    void givenALoadInFlightWhenInvalidatingTheKeyThenReturnTheLoadedValueWithoutCachingIt() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        long ttl = TimeUnit.MINUTES.toMillis(10);
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> localCache.loadAndGet("key1", str -> {
+            loading.countDown();
+            try {
+                assertTrue(invalidated.await(1, TimeUnit.SECONDS), "key not invalidated");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stale";
+        }, String.class, ttl, false));
+        assertTrue(loading.await(1, TimeUnit.SECONDS), "load not started");
+
+        localCache.invalidate("key1");
+        invalidated.countDown();
+
+        assertAll("Verify load fenced",
+                () -> assertEquals("stale", load.get(1, TimeUnit.SECONDS), "loaded value not returned to the caller"),
+                () -> assertEquals("fresh", localCache.loadAndGet("key1", str -> "fresh", String.class, ttl, false),
+                        "value loaded before the invalidation cached")
+        );
+    }
+
+    @DisplayName("given a load in flight when clearing the cache then return the loaded value without caching it")
+    @Test
+    void givenALoadInFlightWhenClearingTheCacheThenReturnTheLoadedValueWithoutCachingIt() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch cleared = new CountDownLatch(1);
+        long ttl = TimeUnit.MINUTES.toMillis(10);
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> localCache.loadAndGet("key1", str -> {
+            loading.countDown();
+            try {
+                assertTrue(cleared.await(1, TimeUnit.SECONDS), "cache not cleared");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stale";
+        }, String.class, ttl, false));
+        assertTrue(loading.await(1, TimeUnit.SECONDS), "load not started");
+
+        localCache.clear();
+        cleared.countDown();
+
+        assertAll("Verify load fenced",
+                () -> assertEquals("stale", load.get(1, TimeUnit.SECONDS), "loaded value not returned to the caller"),
+                () -> assertEquals(0, localCache.size(), "value loaded before the clear cached")
+        );
+    }
+}
@@ -1,15 +1,43 @@
 package org.fermented.dairy.microprofile.caching.providers;
 
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.AsyncCacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProvider;
+import org.fermented.dairy.microprofile.caching.test.entities.CacheEntityWithProviderChild;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings("OptionalGetWithoutIsPresent")
@@ -301,4 +329,497 @@ class LocalHashMapCacheProviderTest {
                 () -> assertTrue(localHashMapCacheProvider.getKeys(cacheName).contains("key1"), "key not present")
         );
     }
-}
\ No newline at end of file
+
+    @DisplayName("given concurrent misses on the same key then load once and share the loaded value")
+    @Test
+    void givenConcurrentMissesOnTheSameKeyThenLoadOnceAndShareTheLoadedValue() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> localHashMapCacheProvider.loadAndGetFromCache(
+                    "key1", cacheName, str -> {
+                        loads.incrementAndGet();
+                        loaderStarted.countDown();
+                        awaitLatch(releaseLoader);
+                        return "inserted 1";
+                    }, String.class, 500L
+            ));
+            assertTrue(loaderStarted.await(1, TimeUnit.SECONDS), "loader not started");
+
+            Future<String> second = executor.submit(() -> localHashMapCacheProvider.loadAndGetFromCache(
+                    "key1", cacheName, str -> {
+                        loads.incrementAndGet();
+                        return "inserted 2";
+                    }, String.class, 500L
+            ));
+            Thread.sleep(50L);//NOSONAR: java:S2925, give the second caller time to join the load in progress
+            releaseLoader.countDown();
+
+            assertAll("Verify single load",
+                    () -> assertEquals("inserted 1", first.get(1, TimeUnit.SECONDS), "incorrect value retrieved from getter"),
+                    () -> assertEquals("inserted 1", second.get(1, TimeUnit.SECONDS), "incorrect value shared with waiting caller"),
+                    () -> assertEquals(1, loads.get(), "getter called more than once")
+            );
+        } finally {
+            releaseLoader.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("given a load in progress that exceeds the cache load timeout then waiting callers throw")
+    @Test
+    void givenALoadInProgressThatExceedsTheCacheLoadTimeoutThenWaitingCallersThrow() throws Exception {
+        String slowCacheName = "slowcache";
+        localHashMapCacheProvider.configureCache(slowCacheName, CacheOptions.builder().loadTimeout(20L).build());
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> localHashMapCacheProvider.loadAndGetFromCache(
+                    "key1", slowCacheName, str -> {
+                        loaderStarted.countDown();
+                        awaitLatch(releaseLoader);
+                        return "inserted 1";
+                    }, String.class, 500L
+            ));
+            assertTrue(loaderStarted.await(1, TimeUnit.SECONDS), "loader not started");
+
+            assertThrows(CacheRuntimeException.class, () -> localHashMapCacheProvider.loadAndGetFromCache(
+                    "key1", slowCacheName, str -> "inserted 2", String.class, 500L
+            ));
+
+            releaseLoader.countDown();
+            assertEquals("inserted 1", first.get(1, TimeUnit.SECONDS), "incorrect value retrieved from getter");
+        } finally {
+            releaseLoader.countDown();
+            executor.shutdownNow();
+            localHashMapCacheProvider.configureCache(slowCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given a getter that throws then propagate the exception and load again on the next call")
+    @Test
+    void givenAGetterThatThrowsThenPropagateTheExceptionAndLoadAgainOnTheNextCall() {
+        IllegalStateException thrown = new IllegalStateException("backend unavailable");
+
+        IllegalStateException actual = assertThrows(IllegalStateException.class, () -> localHashMapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> {
+                    throw thrown;
+                }, String.class, 500L
+        ));
+
+        String actual2 = localHashMapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> "inserted 2", String.class, 500L
+        );
+
+        assertAll("Verify failed load not cached",
+                () -> assertEquals(thrown, actual, "exception from getter not propagated"),
+                () -> assertEquals("inserted 2", actual2, "incorrect value retrieved from getter")
+        );
+    }
+
+    @DisplayName("given a cache with a maximum size when loading more keys then keep the cache at the maximum size")
+    @Test
+    void givenACacheWithAMaximumSizeWhenLoadingMoreKeysThenKeepTheCacheAtTheMaximumSize() {
+        String boundedCacheName = "boundedcache";
+        localHashMapCacheProvider.configureCache(boundedCacheName, CacheOptions.builder().maximumSize(10L).build());
+        try {
+            for (int i = 0; i < 100; i++) {
+                localHashMapCacheProvider.loadAndGetFromCache(
+                        "key" + i, boundedCacheName, str -> "inserted " + str, String.class, 500L
+                );
+            }
+
+            assertEquals(10, localHashMapCacheProvider.getKeys(boundedCacheName).size(), "cache not bounded");
+        } finally {
+            localHashMapCacheProvider.configureCache(boundedCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given concurrent async misses on the same key then start one load and complete all callers once it completes")
+    @Test
+    void givenConcurrentAsyncMissesOnTheSameKeyThenStartOneLoadAndCompleteAllCallersOnceItCompletes() throws Exception {
+        AsyncCacheProvider asyncCacheProvider = (AsyncCacheProvider) localHashMapCacheProvider;
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletionStage<String> first = asyncCacheProvider.loadAndGetFromCacheAsync(
+                "key1", cacheName, str -> {
+                    loads.incrementAndGet();
+                    return backend;
+                }, String.class, 500L);
+        CompletionStage<String> second = asyncCacheProvider.loadAndGetFromCacheAsync(
+                "key1", cacheName, str -> {
+                    loads.incrementAndGet();
+                    return CompletableFuture.completedFuture("inserted 2");
+                }, String.class, 500L);
+
+        assertFalse(first.toCompletableFuture().isDone(), "load completed before the backend");
+        backend.complete("inserted 1");
+
+        String actual1 = first.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String actual2 = second.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String actual3 = localHashMapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> "inserted 3", String.class, 500L);
+
+        assertAll("Verify async load coalesced and cached",
+                () -> assertEquals(1, loads.get(), "backend not loaded exactly once"),
+                () -> assertEquals("inserted 1", actual1, "incorrect value completed"),
+                () -> assertEquals("inserted 1", actual2, "incorrect value completed for the waiting caller"),
+                () -> assertEquals("inserted 1", actual3, "completed value not cached")
+        );
+    }
+
+    @DisplayName("given an async getter that completes exceptionally then fail the stage and load again on the next call")
+    @Test
+    void givenAnAsyncGetterThatCompletesExceptionallyThenFailTheStageAndLoadAgainOnTheNextCall() throws Exception {
+        AsyncCacheProvider asyncCacheProvider = (AsyncCacheProvider) localHashMapCacheProvider;
+        IllegalStateException thrown = new IllegalStateException("backend unavailable");
+
+        CompletionStage<String> failed = asyncCacheProvider.loadAndGetFromCacheAsync(
+                "key1", cacheName, str -> CompletableFuture.failedFuture(thrown), String.class, 500L);
+        ExecutionException actual = assertThrows(ExecutionException.class,
+                () -> failed.toCompletableFuture().get(5, TimeUnit.SECONDS));
+
+        String actual2 = asyncCacheProvider.loadAndGetFromCacheAsync(
+                "key1", cacheName, str -> CompletableFuture.completedFuture("inserted 2"), String.class, 500L)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertAll("Verify failed async load not cached",
+                () -> assertEquals(thrown, actual.getCause(), "exception from getter not propagated"),
+                () -> assertEquals("inserted 2", actual2, "incorrect value retrieved from getter")
+        );
+    }
+
+    @DisplayName("given some cached keys when loading all keys then load the missing keys with one batch call")
+    @Test
+    void givenSomeCachedKeysWhenLoadingAllKeysThenLoadTheMissingKeysWithOneBatchCall() {
+        localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 500L);
+        List<Set<String>> batches = new ArrayList<>();
+
+        Map<String, String> actual = localHashMapCacheProvider.loadAllAndGetFromCache(
+                List.of("key3", "key1", "key2", "key4"), cacheName, missing -> {
+                    batches.add(Set.copyOf(missing));
+                    return Map.of("key2", "inserted 2", "key3", "inserted 3");
+                }, String.class, 500L);
+
+        assertAll("Verify bulk load",
+                () -> assertEquals(List.of(Set.of("key2", "key3", "key4")), batches, "missing keys not loaded in one batch"),
+                () -> assertEquals(List.of("key3", "key1", "key2"), List.copyOf(actual.keySet()), "keys not returned in order"),
+                () -> assertEquals("inserted 1", actual.get("key1"), "incorrect value retrieved from cache"),
+                () -> assertEquals("inserted 3", actual.get("key3"), "incorrect value retrieved from batch getter"),
+                () -> assertEquals(Set.of("key1", "key2", "key3"), Set.copyOf(localHashMapCacheProvider.getKeys(cacheName)), "loaded keys not cached")
+        );
+
+        localHashMapCacheProvider.invalidateCacheEntries(List.of("key1", "key2"), cacheName);
+
+        assertEquals(Set.of("key3"), Set.copyOf(localHashMapCacheProvider.getKeys(cacheName)), "keys not invalidated");
+    }
+
+    @DisplayName("given hits, misses and size evictions then count them in the cache stats")
+    @Test
+    void givenHitsMissesAndSizeEvictionsThenCountThemInTheCacheStats() {
+        String boundedCacheName = "statscache";
+        localHashMapCacheProvider.configureCache(boundedCacheName, CacheOptions.builder().maximumSize(2L).build());
+        try {
+            localHashMapCacheProvider.loadAndGetFromCache("key1", boundedCacheName, str -> "inserted 1", String.class, 500L);
+            localHashMapCacheProvider.loadAndGetFromCache("key1", boundedCacheName, str -> "inserted 2", String.class, 500L);
+            localHashMapCacheProvider.loadAndGetFromCache("key2", boundedCacheName, str -> "inserted 2", String.class, 500L);
+            localHashMapCacheProvider.loadAndGetFromCache("key3", boundedCacheName, str -> "inserted 3", String.class, 500L);
+
+            CacheStats stats = localHashMapCacheProvider.getStats(boundedCacheName).get();
+
+            assertAll("Verify cache stats",
+                    () -> assertEquals(1L, stats.getHitCount(), "incorrect hit count"),
+                    () -> assertEquals(3L, stats.getMissCount(), "incorrect miss count"),
+                    () -> assertEquals(3L, stats.getLoadSuccessCount(), "incorrect load count"),
+                    () -> assertEquals(3L, stats.getLoadLatencyHistogram().stream().mapToLong(Long::longValue).sum(), "loads not in the latency histogram"),
+                    () -> assertEquals(1L, stats.getEvictionCount(EvictionCause.SIZE), "incorrect size eviction count"),
+                    () -> assertTrue(localHashMapCacheProvider.getStats("missingcache").isEmpty(), "stats of a missing cache")
+            );
+        } finally {
+            localHashMapCacheProvider.configureCache(boundedCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given a negative TTL then cache null results and empty optionals for the negative TTL")
+    @Test
+    void givenANegativeTtlThenCacheNullResultsAndEmptyOptionalsForTheNegativeTtl() throws InterruptedException {
+        String negativeCacheName = "negativecache";
+        localHashMapCacheProvider.configureCache(negativeCacheName, CacheOptions.builder().negativeTtl(50L).build());
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            String actual1 = localHashMapCacheProvider.loadAndGetFromCache("key1", negativeCacheName, str -> {
+                loads.incrementAndGet();
+                return null;
+            }, String.class, 5000L);
+            String actual2 = localHashMapCacheProvider.loadAndGetFromCache("key1", negativeCacheName, str -> "inserted 1", String.class, 5000L);
+            localHashMapCacheProvider.loadAndGetFromCache("key2", negativeCacheName, str -> Optional.empty(), Optional.class, 5000L);
+            Optional<?> actualEmpty = localHashMapCacheProvider.loadAndGetFromCache("key2", negativeCacheName, str -> Optional.of("inserted 2"), Optional.class, 5000L);
+
+            Thread.sleep(100);//NOSONAR: java:S2925 sleep to let the negative entries expire
+
+            String actual3 = localHashMapCacheProvider.loadAndGetFromCache("key1", negativeCacheName, str -> "inserted 1", String.class, 5000L);
+
+            assertAll("Verify negative caching",
+                    () -> assertNull(actual1, "incorrect value retrieved from getter"),
+                    () -> assertNull(actual2, "null result not cached"),
+                    () -> assertEquals(1, loads.get(), "null result loaded again"),
+                    () -> assertEquals(Optional.empty(), actualEmpty, "empty optional not cached"),
+                    () -> assertEquals("inserted 1", actual3, "negative entry not expired after the negative TTL")
+            );
+        } finally {
+            localHashMapCacheProvider.configureCache(negativeCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given a maximum negative size then evict the oldest negative entries and keep the values")
+    @Test
+    void givenAMaximumNegativeSizeThenEvictTheOldestNegativeEntriesAndKeepTheValues() {
+        String negativeCacheName = "boundednegativecache";
+        localHashMapCacheProvider.configureCache(negativeCacheName, CacheOptions.builder()
+                .maximumSize(1L)
+                .negativeTtl(5000L)
+                .maximumNegativeSize(2L)
+                .build());
+        try {
+            localHashMapCacheProvider.loadAndGetFromCache("value", negativeCacheName, str -> "inserted", String.class, 5000L);
+            localHashMapCacheProvider.loadAndGetFromCache("missing1", negativeCacheName, str -> null, String.class, 5000L);
+            localHashMapCacheProvider.loadAndGetFromCache("missing2", negativeCacheName, str -> null, String.class, 5000L);
+            localHashMapCacheProvider.loadAndGetFromCache("missing3", negativeCacheName, str -> null, String.class, 5000L);
+
+            assertAll("Verify negative size",
+                    () -> assertEquals(Set.of("value", "missing2", "missing3"), localHashMapCacheProvider.getKeys(negativeCacheName), "incorrect keys cached"),
+                    () -> assertEquals(1L, localHashMapCacheProvider.getStats(negativeCacheName).get().getEvictionCount(EvictionCause.SIZE), "incorrect size eviction count")
+            );
+        } finally {
+            localHashMapCacheProvider.configureCache(negativeCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given weak and strong caches when their values are only held by the cache then collect only the weak values")
+    @Test
+    void givenWeakAndStrongCachesWhenTheirValuesAreOnlyHeldByTheCacheThenCollectOnlyTheWeakValues() throws InterruptedException {
+        String weakCacheName = "weakcache";
+        String strongCacheName = "strongcache";
+        localHashMapCacheProvider.configureCache(weakCacheName, CacheOptions.builder().valueStrength(ValueStrength.WEAK).build());
+        localHashMapCacheProvider.configureCache(strongCacheName, CacheOptions.builder().valueStrength(ValueStrength.STRONG).build());
+        try {
+            localHashMapCacheProvider.loadAndGetFromCache("key1", weakCacheName, str -> new StringBuilder("inserted 1"), StringBuilder.class, 5000L);
+            localHashMapCacheProvider.loadAndGetFromCache("key1", strongCacheName, str -> new StringBuilder("inserted 1"), StringBuilder.class, 5000L);
+
+            for (int i = 0; i < 10 && localHashMapCacheProvider.getKeys(weakCacheName).contains("key1"); i++) {
+                System.gc();//NOSONAR: java:S1215 collect the weakly held value
+                Thread.sleep(10);//NOSONAR: java:S2925 give the GC time to clear the reference
+            }
+            ((LocalHashMapCacheProvider) localHashMapCacheProvider).cleanUp();
+
+            StringBuilder actualWeak = localHashMapCacheProvider.loadAndGetFromCache("key1", weakCacheName, str -> new StringBuilder("inserted 2"), StringBuilder.class, 5000L);
+            StringBuilder actualStrong = localHashMapCacheProvider.loadAndGetFromCache("key1", strongCacheName, str -> new StringBuilder("inserted 2"), StringBuilder.class, 5000L);
+
+            assertAll("Verify value strength",
+                    () -> assertEquals("inserted 2", actualWeak.toString(), "weak value not collected"),
+                    () -> assertEquals("inserted 1", actualStrong.toString(), "strong value collected"),
+                    () -> assertEquals(1L, localHashMapCacheProvider.getStats(weakCacheName).get().getEvictionCount(EvictionCause.COLLECTED), "collected value not counted")
+            );
+        } finally {
+            localHashMapCacheProvider.configureCache(weakCacheName, CacheOptions.DEFAULT);
+            localHashMapCacheProvider.configureCache(strongCacheName, CacheOptions.DEFAULT);
+        }
+    }
+
+    @DisplayName("given the default value strength then hold the values of unbounded caches softly and of bounded caches strongly")
+    @Test
+    void givenTheDefaultValueStrengthThenHoldTheValuesOfUnboundedCachesSoftlyAndOfBoundedCachesStrongly() {
+        CacheOptions bounded = CacheOptions.builder().maximumSize(100L).build();
+        CacheOptions weakBounded = bounded.toBuilder().valueStrength(ValueStrength.WEAK).build();
+
+        assertAll("Verify default value strength",
+                () -> assertEquals(ValueStrength.SOFT, CacheOptions.DEFAULT.getEffectiveValueStrength(), "unbounded cache not soft"),
+                () -> assertEquals(ValueStrength.STRONG, bounded.getEffectiveValueStrength(), "bounded cache not strong"),
+                () -> assertEquals(ValueStrength.WEAK, weakBounded.getEffectiveValueStrength(), "configured value strength not applied")
+        );
+    }
+
+    @DisplayName("given a cached key when putting a new value then serve the new value without a miss")
+    @Test
+    void givenACachedKeyWhenPuttingANewValueThenServeTheNewValueWithoutAMiss() {
+        localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 5000L);
+
+        localHashMapCacheProvider.putCacheEntry("key1", cacheName, "updated 1", 5000L);
+        String replaced = localHashMapCacheProvider.replaceCacheEntry("key2", cacheName, str -> "replaced 2", String.class, 5000L, false);
+        String actual1 = localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 2", String.class, 5000L);
+        String actual2 = localHashMapCacheProvider.loadAndGetFromCache("key2", cacheName, str -> "inserted 2", String.class, 5000L);
+
+        assertAll("Verify put",
+                () -> assertEquals("updated 1", actual1, "put value not served"),
+                () -> assertEquals("replaced 2", replaced, "incorrect replaced value returned"),
+                () -> assertEquals("replaced 2", actual2, "replaced value not served"),
+                () -> assertEquals(1L, localHashMapCacheProvider.getStats(cacheName).get().getMissCount(), "put caused a miss")
+        );
+    }
+
+    @DisplayName("given a load in flight when putting a new value then keep the put value once the load completes")
+    @Test
+    void givenALoadInFlightWhenPuttingANewValueThenKeepThePutValueOnceTheLoadCompletes() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> load = executor.submit(() -> localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> {
+                loadStarted.countDown();
+                awaitLatch(putDone);
+                return "stale 1";
+            }, String.class, 5000L));
+            awaitLatch(loadStarted);
+            localHashMapCacheProvider.putCacheEntry("key1", cacheName, "updated 1", 5000L);
+            putDone.countDown();
+
+            String loaded = load.get(5, TimeUnit.SECONDS);
+            String actual = localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 2", String.class, 5000L);
+
+            assertAll("Verify put during load",
+                    () -> assertEquals("updated 1", loaded, "load returned a result older than the put"),
+                    () -> assertEquals("updated 1", actual, "load replaced the put value")
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("given a snapshot of live entries when restored into empty caches then serve the unexpired entries without loading")
+    @Test
+    void givenASnapshotOfLiveEntriesWhenRestoredIntoEmptyCachesThenServeTheUnexpiredEntriesWithoutLoading(@TempDir Path snapshotDir) throws InterruptedException {
+        LocalHashMapCacheProvider provider = (LocalHashMapCacheProvider) localHashMapCacheProvider;
+        Path snapshot = snapshotDir.resolve("caches.snapshot");
+        provider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 5000L);
+        provider.loadAndGetFromCache("key2", cacheName, str -> "inserted 2", String.class, 50L);
+        provider.loadAndGetFromCache("key3", cacheName, str -> Optional.of("inserted 3"), Optional.class, 5000L);
+        provider.loadAndGetFromCache("key4", cacheName, str -> new Object(), Object.class, 5000L);
+
+        long written = provider.writeSnapshot(snapshot);
+        provider.dropAllCaches();
+        Thread.sleep(100);//NOSONAR: java:S2925 sleep to let key2 expire
+        long restored = provider.restoreSnapshot(snapshot);
+
+        String actual1 = provider.loadAndGetFromCache("key1", cacheName, str -> "loaded 1", String.class, 5000L);
+        String actual2 = provider.loadAndGetFromCache("key2", cacheName, str -> "loaded 2", String.class, 5000L);
+        Optional<?> actual3 = provider.loadAndGetFromCache("key3", cacheName, str -> Optional.empty(), Optional.class, 5000L);
+
+        assertAll("Verify snapshot",
+                () -> assertEquals(3L, written, "incorrect number of entries written, key4 is not serializable"),
+                () -> assertEquals(2L, restored, "incorrect number of entries restored, key2 expired"),
+                () -> assertEquals("inserted 1", actual1, "entry not restored"),
+                () -> assertEquals("loaded 2", actual2, "expired entry restored"),
+                () -> assertEquals(Optional.of("inserted 3"), actual3, "optional entry not restored")
+        );
+    }
+
+    @DisplayName("Given a snapshot entry of a class not cached in its cache when restored then skip it unless the class is declared")
+    @Test
+    void givenASnapshotEntryOfAClassNotCachedInItsCacheWhenRestoredThenSkipItUnlessTheClassIsDeclared(@TempDir Path snapshotDir) {
+        LocalHashMapCacheProvider provider = (LocalHashMapCacheProvider) localHashMapCacheProvider;
+        Path snapshot = snapshotDir.resolve("caches.snapshot");
+        provider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 5000L);
+        provider.loadAndGetFromCache("key2", cacheName, str -> new Date(0L), Date.class, 5000L);
+        provider.loadAndGetFromCache("key3", cacheName, str -> TimeUnit.SECONDS, TimeUnit.class, 5000L);
+        provider.writeSnapshot(snapshot);
+
+        LocalCache undeclared = new LocalCache(CacheOptions.DEFAULT);
+        long restoredUndeclared = LocalCacheSnapshot.read(snapshot, name -> undeclared,
+                name -> new SerializableValueCodec(LocalCacheSnapshot.filter(Set.of(), null)));
+        LocalCache declared = new LocalCache(CacheOptions.DEFAULT);
+        long restoredDeclared = LocalCacheSnapshot.read(snapshot, name -> declared,
+                name -> new SerializableValueCodec(LocalCacheSnapshot.filter(Set.of(Date.class, TimeUnit.class), null)));
+        LocalCache configured = new LocalCache(CacheOptions.DEFAULT);
+        long restoredConfigured = LocalCacheSnapshot.read(snapshot, name -> configured,
+                name -> new SerializableValueCodec(LocalCacheSnapshot.filter(Set.of(), "java.util.**")));
+
+        assertAll("Verify snapshot filter",
+                () -> assertEquals(1L, restoredUndeclared, "entry of an undeclared class restored"),
+                () -> assertEquals(3L, restoredDeclared, "entry of a cached class not restored"),
+                () -> assertEquals(3L, restoredConfigured, "entry of a configured class not restored")
+        );
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "latch not released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @DisplayName("Given live, expired and unboxed keys then stream the live keys lazily and estimate the size without creating the cache")
+    @Test
+    void givenLiveExpiredAndUnboxedKeysThenStreamTheLiveKeysLazilyAndEstimateTheSizeWithoutCreatingTheCache() throws InterruptedException {
+        localHashMapCacheProvider.putCacheEntry("key1", cacheName, "value1", 10000L);
+        localHashMapCacheProvider.putCacheEntry(2L, cacheName, "value2", 10000L);
+        localHashMapCacheProvider.putCacheEntry(3, cacheName, "value3", 10000L);
+        localHashMapCacheProvider.putCacheEntry("expired", cacheName, "value4", 1L);
+        Thread.sleep(10);
+
+        assertAll("Verify key streaming and size",
+                () -> assertEquals(Set.of("key1", 2L, 3), localHashMapCacheProvider.streamKeys(cacheName).collect(Collectors.toSet()), "incorrect keys streamed"),
+                () -> assertEquals(2, localHashMapCacheProvider.streamKeys(cacheName).skip(1).limit(5).count(), "incorrect page of keys"),
+                () -> assertTrue(localHashMapCacheProvider.size(cacheName) >= 3, "live entries not counted"),
+                () -> assertEquals(0L, localHashMapCacheProvider.streamKeys("missing").count(), "keys streamed for a missing cache"),
+                () -> assertEquals(0L, localHashMapCacheProvider.size("missing"), "size counted for a missing cache"),
+                () -> assertFalse(localHashMapCacheProvider.getCacheNames().contains("missing"), "missing cache created")
+        );
+    }
+
+    @DisplayName("Given a cache handle then serve its calls from the cache and resolve the cache again once it is dropped")
+    @Test
+    void givenACacheHandleThenServeItsCallsFromTheCacheAndResolveTheCacheAgainOnceItIsDropped() {
+        Cache<String, String> cache = localHashMapCacheProvider.getCache(cacheName, String.class, String.class);
+
+        String loaded = cache.loadAndGet("key1", key -> "inserted 1", 10000L);
+        String cached = cache.loadAndGet("key1", key -> "loaded 1", 10000L);
+        String providerRead = localHashMapCacheProvider.loadAndGetFromCache("key1", cacheName, key -> "loaded 1", String.class, 10000L);
+        cache.put("key2", "put 2", 10000L);
+        Map<String, String> loadedAll = cache.loadAllAndGet(List.of("key1", "key2", "key3"),
+                missing -> missing.stream().collect(Collectors.toMap(key -> key, key -> "loaded " + key)), 10000L);
+        cache.invalidate("key3");
+        Set<String> keys = cache.streamKeys().collect(Collectors.toSet());
+        localHashMapCacheProvider.dropAllCaches();
+        String afterDrop = cache.loadAndGet("key1", key -> "reloaded 1", 10000L);
+
+        assertAll("Verify cache handle",
+                () -> assertEquals(cacheName, cache.getName(), "incorrect cache name"),
+                () -> assertEquals("inserted 1", loaded, "value not loaded"),
+                () -> assertEquals("inserted 1", cached, "value not served from the cache"),
+                () -> assertEquals("inserted 1", providerRead, "value not shared with the provider"),
+                () -> assertEquals(Map.of("key1", "inserted 1", "key2", "put 2", "key3", "loaded key3"), loadedAll, "incorrect values loaded"),
+                () -> assertEquals(Set.of("key1", "key2"), keys, "incorrect keys after invalidating"),
+                () -> assertEquals("reloaded 1", afterDrop, "dropped cache served"),
+                () -> assertEquals(1L, cache.size(), "cache not resolved again after the drop"),
+                () -> assertTrue(localHashMapCacheProvider.getCacheNames().contains(cacheName), "cache not recreated"),
+                () -> assertThrows(CacheRuntimeException.class, () -> cache.put("key1", "value", -1L), "negative ttl accepted")
+        );
+    }
+
+    @DisplayName("Given values loaded for an interface or superclass type then serve the cached values as that type")
+    @Test
+    void givenValuesLoadedForAnInterfaceOrSuperclassTypeThenServeTheCachedValuesAsThatType() {
+        List<?> loadedList = localHashMapCacheProvider.loadAndGetFromCache(
+                "list", cacheName, str -> new ArrayList<>(List.of("a", "b")), List.class, 10000L);
+        List<?> cachedList = localHashMapCacheProvider.loadAndGetFromCache(
+                "list", cacheName, str -> List.of("loaded"), List.class, 10000L);
+        CacheEntityWithProvider loadedEntity = localHashMapCacheProvider.loadAndGetFromCache(
+                1L, cacheName, id -> CacheEntityWithProviderChild.builder().id(id).build(), CacheEntityWithProvider.class, 10000L);
+        CacheEntityWithProvider cachedEntity = localHashMapCacheProvider.loadAndGetFromCache(
+                1L, cacheName, id -> CacheEntityWithProvider.builder().id(id).build(), CacheEntityWithProvider.class, 10000L);
+
+        assertAll("Verify values of a declared supertype",
+                () -> assertEquals(List.of("a", "b"), loadedList, "incorrect value retrieved from getter"),
+                () -> assertEquals(List.of("a", "b"), cachedList, "incorrect value retrieved from cache"),
+                () -> assertEquals(CacheEntityWithProviderChild.class, loadedEntity.getClass(), "incorrect value retrieved from getter"),
+                () -> assertEquals(CacheEntityWithProviderChild.class, cachedEntity.getClass(), "incorrect value retrieved from cache"),
+                () -> assertThrows(CacheRuntimeException.class, () -> localHashMapCacheProvider.loadAndGetFromCache(
+                        "list", cacheName, str -> "loaded", String.class, 10000L), "value of an unrelated type served")
+        );
+    }
+}
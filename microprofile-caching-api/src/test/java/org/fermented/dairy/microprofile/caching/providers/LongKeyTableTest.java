@@ -0,0 +1,136 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongKeyTableTest {
+
+    private final LongKeyTable<String> table = new LongKeyTable<>();
+
+    @DisplayName("given many keys when putting them then grow the table and get every value")
+    @Test
+    void givenManyKeysWhenPuttingThemThenGrowTheTableAndGetEveryValue() {
+        for (long key = -5000; key < 5000; key++) {
+            table.put(key, "value " + key);
+        }
+        table.put(Long.MIN_VALUE, "min");
+        table.put(Long.MAX_VALUE, "max");
+
+        assertAll("Verify values",
+                () -> assertEquals(10002L, table.size(), "incorrect size"),
+                () -> assertEquals("value -5000", table.get(-5000L), "incorrect value"),
+                () -> assertEquals("value 0", table.get(0L), "incorrect value"),
+                () -> assertEquals("value 4999", table.get(4999L), "incorrect value"),
+                () -> assertEquals("min", table.get(Long.MIN_VALUE), "incorrect value"),
+                () -> assertEquals("max", table.get(Long.MAX_VALUE), "incorrect value"),
+                () -> assertNull(table.get(5000L), "value for an absent key")
+        );
+    }
+
+    @DisplayName("given a key when replacing and removing it then apply the map semantics")
+    @Test
+    void givenAKeyWhenReplacingAndRemovingItThenApplyTheMapSemantics() {
+        String first = table.put(1L, "first");
+        String current = table.putIfAbsent(1L, "ignored");
+        String replaced = table.put(1L, "second");
+        boolean removedOther = table.remove(1L, "first");
+        String removed = table.remove(1L);
+        String absent = table.putIfAbsent(1L, "third");
+
+        assertAll("Verify map semantics",
+                () -> assertNull(first, "previous value of a new key"),
+                () -> assertEquals("first", current, "putIfAbsent did not return the current value"),
+                () -> assertEquals("first", replaced, "put did not return the previous value"),
+                () -> assertFalse(removedOther, "removed a different value"),
+                () -> assertEquals("second", removed, "remove did not return the removed value"),
+                () -> assertNull(absent, "putIfAbsent did not put into the tombstone"),
+                () -> assertEquals("third", table.get(1L), "incorrect value"),
+                () -> assertEquals(1L, table.size(), "incorrect size")
+        );
+    }
+
+    @DisplayName("given removed keys when iterating and clearing then skip the removed keys and empty the table")
+    @Test
+    void givenRemovedKeysWhenIteratingAndClearingThenSkipTheRemovedKeysAndEmptyTheTable() {
+        for (long key = 0; key < 100; key++) {
+            table.put(key, "value " + key);
+        }
+        for (long key = 0; key < 100; key += 2) {
+            table.remove(key);
+        }
+        Map<Long, String> iterated = new HashMap<>();
+
+        table.forEach(iterated::put);
+        table.clear();
+
+        assertAll("Verify iteration",
+                () -> assertEquals(50, iterated.size(), "incorrect number of entries iterated"),
+                () -> assertTrue(iterated.keySet().stream().allMatch(key -> key % 2 == 1), "removed key iterated"),
+                () -> assertEquals("value 99", iterated.get(99L), "incorrect value iterated"),
+                () -> assertEquals(0L, table.size(), "table not cleared"),
+                () -> assertNull(table.get(99L), "value left after clearing")
+        );
+    }
+
+    @DisplayName("given concurrent writers when reading then never see the value of another key")
+    @Test
+    void givenConcurrentWritersWhenReadingThenNeverSeeTheValueOfAnotherKey() throws Exception {
+        LongKeyTable<Long> values = new LongKeyTable<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong mismatches = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (running.get()) {
+                    for (long key = 0; key < 20000; key++) {
+                        Long value = values.get(key);
+                        if (value != null && value != key) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            Future<?>[] writers = new Future<?>[3];
+            for (int writer = 0; writer < writers.length; writer++) {
+                long offset = writer;
+                writers[writer] = executor.submit(() -> {
+                    for (int round = 0; round < 5; round++) {
+                        for (long key = offset; key < 20000; key += 3) {
+                            values.put(key, key);
+                        }
+                        for (long key = offset; key < 20000; key += 6) {
+                            values.remove(key);
+                        }
+                    }
+                });
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAll("Verify concurrent reads",
+                () -> assertEquals(0L, mismatches.get(), "read the value of another key"),
+                () -> assertEquals(9999L, values.size(), "incorrect size after the writes") //Keys with key % 6 >= 3 are left
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheProviderTest {
+
+    OffHeapCacheProvider l2 = new OffHeapCacheProvider(4096L, 1024, new SerializableValueCodec());
+
+    NearCacheProvider nearCacheProvider = new NearCacheProvider(l2, 2L, 50L);
+
+    String cacheName = "nearcache";
+
+    @DisplayName("given a key missing from both tiers then load it once and serve it from the L1")
+    @Test
+    void givenAKeyMissingFromBothTiersThenLoadItOnceAndServeItFromTheL1() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String actual1 = nearCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted " + loads.incrementAndGet(), String.class, 500L);
+        String actual2 = nearCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted " + loads.incrementAndGet(), String.class, 500L);
+
+        assertAll("Verify near cache hit",
+                () -> assertEquals("inserted 1", actual1, "incorrect value retrieved from getter"),
+                () -> assertEquals("inserted 1", actual2, "incorrect value retrieved from cache"),
+                () -> assertEquals(1, loads.get(), "value loaded more than once"),
+                () -> assertEquals(1L, l2.getStats(cacheName).orElseThrow().getRequestCount(), "L1 hit went to the L2"),
+                () -> assertEquals(1L, nearCacheProvider.getStats(cacheName).orElseThrow().getHitCount(), "L1 hit not counted")
+        );
+    }
+
+    @DisplayName("given an L1 entry that is expired then reload it from the L2 and not from the getter")
+    @Test
+    void givenAnL1EntryThatIsExpiredThenReloadItFromTheL2AndNotFromTheGetter() throws InterruptedException {
+        nearCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 500L);
+
+        Thread.sleep(100);//NOSONAR: java:S2925 sleep to let the L1 entry expire
+
+        String actual = nearCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 2", String.class, 500L);
+
+        assertAll("Verify L1 expiry",
+                () -> assertEquals("inserted 1", actual, "value not retrieved from the L2"),
+                () -> assertEquals(1L, l2.getStats(cacheName).orElseThrow().getHitCount(), "L2 not consulted")
+        );
+    }
+
+    @DisplayName("given a key present in both tiers when invalidated then remove it from both tiers")
+    @Test
+    void givenAKeyPresentInBothTiersWhenInvalidatedThenRemoveItFromBothTiers() {
+        nearCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 500L);
+        nearCacheProvider.loadAndGetFromCache("key2", cacheName, str -> "inserted 2", String.class, 500L);
+
+        nearCacheProvider.invalidateCacheEntry("key1", cacheName);
+
+        assertAll("Verify invalidation",
+                () -> assertFalse(nearCacheProvider.getKeys(cacheName).contains("key1"), "key1 still present"),
+                () -> assertFalse(l2.getKeys(cacheName).contains("key1"), "key1 still present in the L2"),
+                () -> assertTrue(nearCacheProvider.getKeys(cacheName).contains("key2"), "key2 not present")
+        );
+
+        nearCacheProvider.clearCache(cacheName);
+
+        assertAll("Verify clear",
+                () -> assertTrue(nearCacheProvider.getKeys(cacheName).isEmpty(), "near cache not cleared"),
+                () -> assertTrue(l2.getKeys(cacheName).isEmpty(), "L2 not cleared")
+        );
+    }
+
+    @DisplayName("given a bulk load then load only the keys missing from both tiers")
+    @Test
+    void givenABulkLoadThenLoadOnlyTheKeysMissingFromBothTiers() {
+        l2.loadAndGetFromCache(1, cacheName, key -> "inserted " + key, String.class, 500L);
+        nearCacheProvider.loadAndGetFromCache(2, cacheName, key -> "inserted " + key, String.class, 500L);
+        AtomicInteger loaded = new AtomicInteger();
+
+        Map<Integer, String> actual = nearCacheProvider.loadAllAndGetFromCache(List.of(1, 2, 3), cacheName, keys -> {
+            loaded.addAndGet(keys.size());
+            return Map.of(3, "inserted 3");
+        }, String.class, 500L);
+
+        assertAll("Verify bulk load",
+                () -> assertEquals(Map.of(1, "inserted 1", 2, "inserted 2", 3, "inserted 3"), actual, "incorrect values retrieved"),
+                () -> assertEquals(1, loaded.get(), "keys present in a tier loaded again")
+        );
+    }
+}
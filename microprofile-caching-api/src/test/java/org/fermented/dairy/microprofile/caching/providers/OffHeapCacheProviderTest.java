@@ -0,0 +1,145 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCacheProviderTest {
+
+    OffHeapCacheProvider offHeapCacheProvider = new OffHeapCacheProvider(4096L, 1024, new SerializableValueCodec());
+
+    String cacheName = "offheapcache";
+
+    @DisplayName("given a missing key then store the getter result off heap and decode it on the next fetch")
+    @Test
+    void givenAMissingKeyThenStoreTheGetterResultOffHeapAndDecodeItOnTheNextFetch() {
+        StringBuilder loaded = new StringBuilder("inserted 1");
+
+        StringBuilder actual1 = offHeapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> loaded, StringBuilder.class, 500L);
+        StringBuilder actual2 = offHeapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> new StringBuilder("inserted 2"), StringBuilder.class, 500L);
+
+        assertAll("Verify off heap cache hit",
+                () -> assertEquals("inserted 1", actual1.toString(), "incorrect value retrieved from getter"),
+                () -> assertEquals("inserted 1", actual2.toString(), "incorrect value retrieved from cache"),
+                () -> assertNotSame(loaded, actual2, "cached value not decoded"),
+                () -> assertTrue(offHeapCacheProvider.getKeys(cacheName).contains("key1"), "key not present")
+        );
+    }
+
+    @DisplayName("given a present key that is expired then load it again")
+    @Test
+    void givenAPresentKeyThatIsExpiredThenLoadItAgain() throws InterruptedException {
+        offHeapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 10L);
+
+        Thread.sleep(20);//NOSONAR: java:S2925 sleep to let the entry expire
+
+        String actual = offHeapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "inserted 2", String.class, 500L);
+
+        assertEquals("inserted 2", actual, "expired value retrieved from cache");
+    }
+
+    @DisplayName("given optionals then cache present ones and empty ones only if requested")
+    @Test
+    void givenOptionalsThenCachePresentOnesAndEmptyOnesOnlyIfRequested() {
+        offHeapCacheProvider.loadAndGetFromCache("present", cacheName, str -> Optional.of("inserted"), Optional.class, 500L);
+        offHeapCacheProvider.loadAndGetFromCache("empty", cacheName, str -> Optional.empty(), Optional.class, 500L);
+        offHeapCacheProvider.loadAndGetFromCache("cachedEmpty", cacheName, str -> Optional.empty(), Optional.class, 500L, true);
+
+        Optional<?> actual = offHeapCacheProvider.loadAndGetFromCache("present", cacheName, str -> Optional.empty(), Optional.class, 500L);
+        Optional<?> actualCachedEmpty = offHeapCacheProvider.loadAndGetFromCache("cachedEmpty", cacheName, str -> Optional.of("inserted"), Optional.class, 500L);
+
+        assertAll("Verify optionals",
+                () -> assertEquals(Optional.of("inserted"), actual, "present optional not cached"),
+                () -> assertEquals(Optional.empty(), actualCachedEmpty, "empty optional not cached"),
+                () -> assertFalse(offHeapCacheProvider.getKeys(cacheName).contains("empty"), "empty optional cached")
+        );
+    }
+
+    @DisplayName("given cached and missing keys when loading them in bulk then call the batch getter once and skip keys it does not return")
+    @Test
+    void givenCachedAndMissingKeysWhenLoadingThemInBulkThenCallTheBatchGetterOnceAndSkipKeysItDoesNotReturn() {
+        offHeapCacheProvider.loadAndGetFromCache("key1", cacheName, str -> "cached 1", String.class, 500L);
+        List<Set<String>> batches = new ArrayList<>();
+
+        Map<String, String> actual = offHeapCacheProvider.loadAllAndGetFromCache(List.of("key1", "key2", "key3"), cacheName, keys -> {
+            batches.add(keys);
+            return Map.of("key2", "loaded 2");
+        }, String.class, 500L);
+        Map<String, String> actualWithoutResult = offHeapCacheProvider.loadAllAndGetFromCache(List.of("key1", "key4"), cacheName,
+                keys -> null, String.class, 500L);
+
+        assertAll("Verify bulk load",
+                () -> assertEquals(Map.of("key1", "cached 1", "key2", "loaded 2"), actual, "incorrect values returned"),
+                () -> assertEquals(List.of(Set.of("key2", "key3")), batches, "batch getter not called once with the missing keys"),
+                () -> assertFalse(offHeapCacheProvider.getKeys(cacheName).contains("key3"), "key not returned by the batch getter cached"),
+                () -> assertEquals(Map.of("key1", "cached 1"), actualWithoutResult, "null batch result not treated as absent values")
+        );
+    }
+
+    @DisplayName("given a full memory budget when storing more values then drop the oldest values")
+    @Test
+    void givenAFullMemoryBudgetWhenStoringMoreValuesThenDropTheOldestValues() {
+        for (int i = 0; i < 500; i++) {
+            offHeapCacheProvider.loadAndGetFromCache(i, cacheName, key -> "inserted " + key, String.class, 500L);
+        }
+
+        assertAll("Verify memory budget",
+                () -> assertEquals(4096L, offHeapCacheProvider.getAllocatedBytes(), "memory budget exceeded"),
+                () -> assertFalse(offHeapCacheProvider.getKeys(cacheName).contains(0), "oldest value not dropped"),
+                () -> assertTrue(offHeapCacheProvider.getKeys(cacheName).contains(499), "newest value dropped")
+        );
+    }
+
+    @DisplayName("given a custom codec then encode and decode values with it")
+    @Test
+    void givenACustomCodecThenEncodeAndDecodeValuesWithIt() {
+        AtomicInteger decoded = new AtomicInteger();
+        OffHeapCacheProvider provider = new OffHeapCacheProvider(4096L, 1024, new ValueCodec() {
+            @Override
+            public byte[] encode(Object value) {
+                return value.toString().getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public <T> T decode(byte[] bytes, Class<T> tClass) {
+                decoded.incrementAndGet();
+                return tClass.cast(new String(bytes, StandardCharsets.UTF_8));
+            }
+        });
+
+        provider.loadAndGetFromCache("key1", cacheName, str -> "inserted 1", String.class, 500L);
+        String actual = provider.loadAndGetFromCache("key1", cacheName, str -> "inserted 2", String.class, 500L);
+
+        assertAll("Verify custom codec",
+                () -> assertEquals("inserted 1", actual, "incorrect value retrieved from cache"),
+                () -> assertEquals(1, decoded.get(), "custom codec not used")
+        );
+    }
+
+    @DisplayName("given a value that is not serializable then throw")
+    @Test
+    void givenAValueThatIsNotSerializableThenThrow() {
+        Object notSerializable = new Object();
+
+        assertThrows(CacheRuntimeException.class, () -> offHeapCacheProvider.loadAndGetFromCache(
+                "key1", cacheName, str -> notSerializable, Object.class, 500L));
+    }
+}
@@ -0,0 +1,77 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private static final long ORIGIN = 1000L;
+
+    private final TimerWheel<Long> timerWheel = new TimerWheel<>(Long::longValue, ORIGIN);
+
+    @DisplayName("given timers in the finest wheel when advancing past their expiry then fire only the expired timers")
+    @Test
+    void givenTimersInTheFinestWheelWhenAdvancingPastTheirExpiryThenFireOnlyTheExpiredTimers() {
+        long expiresSoon = ORIGIN + TimeUnit.SECONDS.toNanos(2);
+        long expiresLater = ORIGIN + TimeUnit.SECONDS.toNanos(30);
+        timerWheel.schedule(expiresSoon);
+        timerWheel.schedule(expiresLater);
+        List<Long> fired = new ArrayList<>();
+
+        timerWheel.advance(ORIGIN + TimeUnit.SECONDS.toNanos(5), fired::add);
+
+        assertAll("Verify fired timers",
+                () -> assertEquals(List.of(expiresSoon), fired, "incorrect timers fired"),
+                () -> assertEquals(1, timerWheel.size(), "unexpired timer not kept")
+        );
+    }
+
+    @DisplayName("given timers in coarser wheels when advancing past their expiry then cascade and fire them")
+    @Test
+    void givenTimersInCoarserWheelsWhenAdvancingPastTheirExpiryThenCascadeAndFireThem() {
+        long minutes = ORIGIN + TimeUnit.MINUTES.toNanos(10);
+        long hours = ORIGIN + TimeUnit.HOURS.toNanos(5);
+        long days = ORIGIN + TimeUnit.DAYS.toNanos(3);
+        long weeks = ORIGIN + TimeUnit.DAYS.toNanos(30);
+        List.of(minutes, hours, days, weeks).forEach(timerWheel::schedule);
+        List<Long> fired = new ArrayList<>();
+
+        timerWheel.advance(ORIGIN + TimeUnit.MINUTES.toNanos(11), fired::add);
+        timerWheel.advance(ORIGIN + TimeUnit.HOURS.toNanos(6), fired::add);
+        timerWheel.advance(ORIGIN + TimeUnit.DAYS.toNanos(4), fired::add);
+
+        assertAll("Verify cascaded timers",
+                () -> assertEquals(List.of(minutes, hours, days), fired, "incorrect timers fired"),
+                () -> assertEquals(1, timerWheel.size(), "unexpired timer not kept")
+        );
+
+        timerWheel.advance(ORIGIN + TimeUnit.DAYS.toNanos(31), fired::add);
+
+        assertAll("Verify overflow timer",
+                () -> assertTrue(fired.contains(weeks), "overflow timer not fired"),
+                () -> assertEquals(0, timerWheel.size(), "timers left in the wheel")
+        );
+    }
+
+    @DisplayName("given an already expired timer when advancing then fire it")
+    @Test
+    void givenAnAlreadyExpiredTimerWhenAdvancingThenFireIt() {
+        timerWheel.advance(ORIGIN + TimeUnit.SECONDS.toNanos(10), expired -> {
+        });
+        long expired = ORIGIN + TimeUnit.SECONDS.toNanos(1);
+        timerWheel.schedule(expired);
+        List<Long> fired = new ArrayList<>();
+
+        timerWheel.advance(ORIGIN + TimeUnit.SECONDS.toNanos(12), fired::add);
+
+        assertEquals(List.of(expired), fired, "expired timer not fired");
+    }
+}
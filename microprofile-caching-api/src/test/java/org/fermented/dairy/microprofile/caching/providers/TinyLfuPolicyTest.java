@@ -0,0 +1,82 @@
+package org.fermented.dairy.microprofile.caching.providers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuPolicyTest {
+
+    @DisplayName("given more writes than the maximum size then evict down to the maximum size")
+    @Test
+    void givenMoreWritesThanTheMaximumSizeThenEvictDownToTheMaximumSize() {
+        TinyLfuPolicy policy = new TinyLfuPolicy(10);
+        Set<Object> present = new HashSet<>();
+
+        IntStream.range(0, 100).forEach(key -> {
+            present.add(key);
+            List<Object> evicted = policy.recordWrite(key);
+            evicted.forEach(present::remove);
+        });
+
+        assertAll("Verify bounded",
+                () -> assertEquals(10, policy.size(), "policy not bounded"),
+                () -> assertEquals(10, present.size(), "evicted keys not reported")
+        );
+    }
+
+    @DisplayName("given frequently requested keys when scanning one off keys then keep the frequently requested keys")
+    @Test
+    void givenFrequentlyRequestedKeysWhenScanningOneOffKeysThenKeepTheFrequentlyRequestedKeys() {
+        TinyLfuPolicy policy = new TinyLfuPolicy(100);
+        Set<Object> present = new HashSet<>();
+        IntStream.range(0, 50).forEach(key -> {
+            present.add(key);
+            policy.recordWrite(key).forEach(present::remove);
+            IntStream.range(0, 5).forEach(request -> policy.recordAccess(key));
+        });
+
+        IntStream.range(1000, 2000).forEach(key -> {
+            present.add(key);
+            policy.recordWrite(key).forEach(present::remove);
+        });
+
+        assertTrue(IntStream.range(0, 50).allMatch(present::contains), "frequently requested keys evicted by scan");
+    }
+
+    @DisplayName("given a removed key then it no longer counts towards the maximum size")
+    @Test
+    void givenARemovedKeyThenItNoLongerCountsTowardsTheMaximumSize() {
+        TinyLfuPolicy policy = new TinyLfuPolicy(2);
+        policy.recordWrite("key1");
+        policy.recordWrite("key2");
+
+        policy.recordRemoval("key1");
+
+        assertAll("Verify removal",
+                () -> assertEquals(1, policy.size(), "removed key still tracked"),
+                () -> assertTrue(policy.recordWrite("key3").isEmpty(), "evicted although below maximum size")
+        );
+    }
+
+    @DisplayName("given repeated increments then the sketch estimates the frequency")
+    @Test
+    void givenRepeatedIncrementsThenTheSketchEstimatesTheFrequency() {
+        TinyLfuPolicy.FrequencySketch sketch = new TinyLfuPolicy.FrequencySketch(100);
+
+        IntStream.range(0, 5).forEach(increment -> sketch.increment("hot"));
+        sketch.increment("cold");
+
+        assertAll("Verify estimates",
+                () -> assertTrue(sketch.frequency("hot") >= 5, "hot key underestimated"),
+                () -> assertTrue(sketch.frequency("hot") > sketch.frequency("cold"), "hot key not more frequent than cold key")
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package org.fermented.dairy.microprofile.caching.test.entities;
+
+import lombok.AllArgsConstructor;
+import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+
+@AllArgsConstructor
+@Cachable(cacheName = "TestCacheName", cacheProvider = "TestCacheProvider")
+public class CacheEntityWithoutGetter {
+
+    @CacheKey
+    private Long id;
+}
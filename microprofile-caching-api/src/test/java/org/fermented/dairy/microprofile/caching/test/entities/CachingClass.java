@@ -3,7 +3,13 @@ package org.fermented.dairy.microprofile.caching.test.entities;
 import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
 import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
 import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
+import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public class CachingClass {
 
@@ -49,6 +55,84 @@ public class CachingClass {
         );
     }
 
+    @CacheRetrieve
+    public CompletionStage<CacheEntityWithProvider> getCachedAsyncSingleParam(Long id){
+        return CompletableFuture.completedFuture(
+                CacheEntityWithProvider.builder()
+                        .id(id)
+                        .name("TestName")
+                        .surname("TestSurname")
+                        .build()
+        );
+    }
+
+    @CacheRetrieve
+    public RefreshingCacheEntity getRefreshing(Long id){
+        return new RefreshingCacheEntity(id, "TestName");
+    }
+
+    @CacheRetrieve
+    public List<String> getCachedNames(Long id){
+        return new ArrayList<>(List.of(String.valueOf(id)));
+    }
+
+    @CacheRetrieve
+    public CompletableFuture<String> getCachedAsyncString(Long id){
+        return CompletableFuture.completedFuture(String.valueOf(id));
+    }
+
+    @CacheRetrieve
+    public CacheEntityWithProvider getCachedFirstOfIds(Collection<Long> ids){
+        return getCachedSingleParam(ids.iterator().next());
+    }
+
+    @CacheRetrieve(bulk = true)
+    public List<CacheEntityWithProvider> getCachedByIds(Collection<Long> ids){
+        return ids.stream()
+                .<CacheEntityWithProvider>map(id -> CacheEntityWithProvider.builder()
+                        .id(id)
+                        .name("TestName")
+                        .surname("TestSurname")
+                        .build())
+                .toList();
+    }
+
+    @CacheUpdate
+    public CacheEntityWithProvider updateCacheSingleParamObject(CacheEntityWithProvider cacheEntityWithProvider)
+    {
+        return cacheEntityWithProvider;
+    }
+
+    @CacheUpdate
+    public CacheEntityWithProvider updateCacheSingleParamNotObject(Long id)
+    {
+        return null;
+    }
+
+    @CacheUpdate
+    public Optional<CacheEntityWithProvider> updateCacheOptional(CacheEntityWithProvider cacheEntityWithProvider)
+    {
+        return Optional.of(cacheEntityWithProvider);
+    }
+
+    @CacheUpdate
+    public String renameCached(@CacheKey Long id, String name)
+    {
+        return name;
+    }
+
+    @CacheUpdate
+    public String renameCachedMissingKey(Long id, String name)
+    {
+        return name;
+    }
+
+    @CacheRemove(cacheClass = CacheEntityWithProvider.class, allEntries = true)
+    public void removeAllCacheEntries()
+    {
+
+    }
+
     @CacheRemove(cacheClass = CacheEntityWithProvider.class)
     public void removeCacheSingleParamNotObject(Long id)
     {
@@ -84,4 +168,16 @@ public class CachingClass {
     {
 
     }
+
+    @CacheRemove(cacheClass = CacheEntityWithoutGetter.class)
+    public void removeCacheSingleParamObjectWithoutGetter(CacheEntityWithoutGetter cacheEntityWithoutGetter)
+    {
+
+    }
+
+    @CacheRemove(cacheClass = CacheEntityWithProvider.class)
+    public void removeCacheCollectionParamObject(List<CacheEntityWithProvider> cacheEntitiesWithProvider)
+    {
+
+    }
 }
@@ -0,0 +1,19 @@
+package org.fermented.dairy.microprofile.caching.test.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@Cachable(cacheName = "RefreshingCacheName", refreshAfterWrite = 10L)
+public class RefreshingCacheEntity {
+
+    @CacheKey
+    private Long id;
+
+    private String name;
+}
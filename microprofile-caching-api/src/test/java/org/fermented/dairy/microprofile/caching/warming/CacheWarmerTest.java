@@ -0,0 +1,117 @@
+package org.fermented.dairy.microprofile.caching.warming;
+
+import org.fermented.dairy.microprofile.caching.annotations.CacheWarm;
+import org.fermented.dairy.microprofile.caching.exceptions.CacheRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheWarmerTest {
+
+    CacheWarmer cacheWarmer = new CacheWarmer();
+
+    ExecutorService executor = CacheWarmer.newExecutor(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("given a warm method then load every key it returns with the loader, at most concurrency at a time")
+    @Test
+    void givenAWarmMethodThenLoadEveryKeyItReturnsWithTheLoaderAtMostConcurrencyAtATime() throws NoSuchMethodException {
+        WarmedBean bean = new WarmedBean();
+        Method warmMethod = WarmedBean.class.getMethod("keysToWarm");
+
+        CacheWarmer.WarmResult result = cacheWarmer.warm(bean, warmMethod, warmMethod.getAnnotation(CacheWarm.class), executor);
+
+        assertAll("Verify warming",
+                () -> assertEquals(19, result.loaded(), "incorrect number of keys loaded"),
+                () -> assertEquals(1, result.failed(), "failed key not counted"),
+                () -> assertEquals(19, bean.loadedKeys.size(), "keys not loaded"),
+                () -> assertTrue(bean.maxConcurrentLoads.get() <= 2, "concurrency cap exceeded")
+        );
+    }
+
+    @DisplayName("given overloaded loaders then load with the one taking the type of the keys")
+    @Test
+    void givenOverloadedLoadersThenLoadWithTheOneTakingTheTypeOfTheKeys() throws NoSuchMethodException {
+        WarmedBean bean = new WarmedBean();
+        Method warmMethod = WarmedBean.class.getMethod("namesToWarm");
+
+        CacheWarmer.WarmResult result = cacheWarmer.warm(bean, warmMethod, warmMethod.getAnnotation(CacheWarm.class), executor);
+
+        assertAll("Verify warming with the overloaded loader",
+                () -> assertEquals(2, result.loaded(), "keys not loaded with the loader taking their type"),
+                () -> assertEquals(Set.of("one", "two"), bean.loadedNames, "wrong overload used"),
+                () -> assertTrue(bean.loadedKeys.isEmpty(), "loader of another key type used")
+        );
+    }
+
+    @DisplayName("given a warm method naming a missing loader then throw")
+    @Test
+    void givenAWarmMethodNamingAMissingLoaderThenThrow() throws NoSuchMethodException {
+        WarmedBean bean = new WarmedBean();
+        Method warmMethod = WarmedBean.class.getMethod("keysWithoutLoader");
+
+        assertThrows(CacheRuntimeException.class, () -> cacheWarmer.warm(bean, warmMethod, warmMethod.getAnnotation(CacheWarm.class), executor));
+    }
+
+    public static class WarmedBean {
+
+        final Set<Long> loadedKeys = ConcurrentHashMap.newKeySet();
+
+        final Set<String> loadedNames = ConcurrentHashMap.newKeySet();
+
+        final AtomicInteger concurrentLoads = new AtomicInteger();
+
+        final AtomicInteger maxConcurrentLoads = new AtomicInteger();
+
+        @CacheWarm(loader = "getById")
+        public List<Long> keysToWarm() {
+            return IntStream.rangeClosed(1, 20).mapToObj(Long::valueOf).toList();
+        }
+
+        @CacheWarm(loader = "getById")
+        public List<String> namesToWarm() {
+            return List.of("one", "two");
+        }
+
+        @CacheWarm(loader = "missing")
+        public List<Long> keysWithoutLoader() {
+            return List.of(1L);
+        }
+
+        public String getById(Long id) throws InterruptedException {
+            maxConcurrentLoads.accumulateAndGet(concurrentLoads.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);//NOSONAR: java:S2925 sleep to overlap the loads
+                if (id == 13L) {
+                    throw new IllegalStateException("unlucky");
+                }
+                loadedKeys.add(id);
+                return "value " + id;
+            } finally {
+                concurrentLoads.decrementAndGet();
+            }
+        }
+
+        public String getById(String name) {
+            loadedNames.add(name);
+            return "value " + name;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.fermented.dairy.microprofile.caching.benchmarks;
+
+import jakarta.interceptor.InvocationContext;
+import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+import org.fermented.dairy.microprofile.caching.interceptors.AbstractCachingInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the cache key of an intercepted call, as done by the interceptors on every call, for the ways a
+ * method can carry its key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class CacheKeyExtractionBenchmark {
+
+    private KeyExtractingInterceptor interceptor;
+
+    private InvocationContext singleParam;
+
+    private InvocationContext annotatedParam;
+
+    private InvocationContext objectParam;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        interceptor = new KeyExtractingInterceptor();
+        singleParam = new FixedInvocationContext(
+                CachedService.class.getMethod("byId", Long.class), new Object[]{1L});
+        annotatedParam = new FixedInvocationContext(
+                CachedService.class.getMethod("byTenantAndId", String.class, Long.class), new Object[]{"tenant", 1L});
+        objectParam = new FixedInvocationContext(
+                CachedService.class.getMethod("update", String.class, CachedEntity.class), new Object[]{"tenant", new CachedEntity(1L)});
+    }
+
+    @Benchmark
+    public Object singleParameter() {
+        return interceptor.extract(singleParam);
+    }
+
+    @Benchmark
+    public Object annotatedParameter() {
+        return interceptor.extract(annotatedParam);
+    }
+
+    @Benchmark
+    public Object keyInsideCachedObject() {
+        return interceptor.extract(objectParam);
+    }
+
+    /**
+     * Exposes the key extraction of the interceptors
+     */
+    static class KeyExtractingInterceptor extends AbstractCachingInterceptor {
+
+        Object extract(final InvocationContext invocationContext) {
+            return getCacheKeyFromParams(invocationContext, CachedEntity.class);
+        }
+    }
+
+    @Cachable
+    public static class CachedEntity {
+
+        @CacheKey
+        private final Long id;
+
+        public CachedEntity(final Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class CachedService {
+
+        public CachedEntity byId(final Long id) {
+            return new CachedEntity(id);
+        }
+
+        public CachedEntity byTenantAndId(final String tenant, @CacheKey final Long id) {
+            return new CachedEntity(id);
+        }
+
+        public void update(final String tenant, final CachedEntity entity) {
+            //Only the signature is used
+        }
+    }
+
+    /**
+     * Invocation of a method with fixed parameters, that does not proceed
+     */
+    record FixedInvocationContext(Method method, Object[] parameters) implements InvocationContext {
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Constructor<?> getConstructor() {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public void setParameters(final Object[] params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            return Map.of();
+        }
+
+        @Override
+        public Object proceed() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.fermented.dairy.microprofile.caching.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Pre-computed, seeded sequences of cache keys, so every run of a benchmark requests the same keys in the same order
+ * and key generation stays out of the measurement.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key is equally likely
+     */
+    UNIFORM {
+        @Override
+        Long[] keys(final int keySpace, final int count, final long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Long[] keys = new Long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = (long) random.nextInt(keySpace);
+            }
+            return keys;
+        }
+    },
+
+    /**
+     * Key k is requested with a probability proportional to 1 / (k + 1)^0.99, a few hot keys take most requests
+     */
+    ZIPFIAN {
+        @Override
+        Long[] keys(final int keySpace, final int count, final long seed) {
+            double[] cumulative = new double[keySpace];
+            double sum = 0.0d;
+            for (int k = 0; k < keySpace; k++) {
+                sum += 1.0d / Math.pow(k + 1.0d, ZIPF_EXPONENT);
+                cumulative[k] = sum;
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            Long[] keys = new Long[count];
+            for (int i = 0; i < count; i++) {
+                int k = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                keys[i] = (long) (k < 0 ? -k - 1 : k);
+            }
+            return keys;
+        }
+    };
+
+    private static final double ZIPF_EXPONENT = 0.99d;
+
+    /**
+     * @param keySpace the number of distinct keys, keys are 0 to keySpace - 1
+     * @param count the length of the sequence
+     * @param seed the seed of the sequence
+     * @return the keys, boxed up front
+     */
+    abstract Long[] keys(int keySpace, int count, long seed);
+}
@@ -0,0 +1,54 @@
+package org.fermented.dairy.microprofile.caching.benchmarks;
+
+import org.fermented.dairy.microprofile.caching.providers.LocalHashMapCacheProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per entry of a {@link LocalHashMapCacheProvider} cache of Long keys: the entry, its slot or map node,
+ * its expiry timer and the boxed key if the cache keeps it, not counting the value, which is created up front. Not a JMH benchmark, run it on its own with a fixed heap, e.g.
+ * {@code java -Xms2g -Xmx2g -cp target/benchmarks.jar org.fermented.dairy.microprofile.caching.benchmarks.LocalCacheFootprint 1000000}.
+ */
+public final class LocalCacheFootprint {
+
+    private static final String CACHE_NAME = "footprint";
+
+    private static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+    private LocalCacheFootprint() {
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] values = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            values[i] = String.valueOf(i);
+        }
+        LocalHashMapCacheProvider provider = new LocalHashMapCacheProvider();
+        provider.dropAllCaches();
+        provider.loadAndGetFromCache(-1L, CACHE_NAME, key -> "", String.class, TTL); //Creates the cache
+
+        provider.cleanUp(); //Moves the queued expiry timers into the timer wheel, where they stay
+        long before = usedHeap();
+        for (int i = 0; i < entries; i++) {
+            String value = values[i];
+            provider.loadAndGetFromCache((long) i, CACHE_NAME, key -> value, String.class, TTL);
+        }
+        provider.cleanUp();
+        long after = usedHeap();
+
+        System.out.printf("%d entries, %.1f bytes per entry%n", entries, (after - before) / (double) entries);
+        provider.dropAllCaches();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc(); //NOSONAR: java:S1215 measuring the retained heap needs a full collection
+            Thread.sleep(100L);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,142 @@
+package org.fermented.dairy.microprofile.caching.benchmarks;
+
+import org.fermented.dairy.microprofile.caching.interfaces.Cache;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.providers.LocalHashMapCacheProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Throughput and latency of {@link LocalHashMapCacheProvider#loadAndGetFromCache} on hits (also through a cache
+ * handle), misses and reloads of
+ * expired entries, and of invalidation. Run with several thread counts to see contention, e.g.
+ * {@code java -jar target/benchmarks.jar LocalHashMapCacheProviderBenchmark -t 1} and {@code -t 8}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class LocalHashMapCacheProviderBenchmark {
+
+    private static final String HITS = "hits";
+
+    private static final String MISSES = "misses";
+
+    private static final String EXPIRED = "expired";
+
+    private static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+    private static final Function<Long, String> LOADER = String::valueOf;
+
+    /**
+     * The caches, shared by all benchmark threads
+     */
+    @State(Scope.Benchmark)
+    public static class Caches {
+
+        @Param({"UNIFORM", "ZIPFIAN"})
+        KeyDistribution distribution;
+
+        @Param({"100000"})
+        int keySpace;
+
+        LocalHashMapCacheProvider provider;
+
+        Cache<Long, String> hits;
+
+        @Setup(Level.Trial)
+        public void populate() {
+            provider = new LocalHashMapCacheProvider();
+            provider.dropAllCaches();
+            provider.configureCache(MISSES, CacheOptions.builder().maximumSize(keySpace).build());
+            for (long key = 0; key < keySpace; key++) {
+                provider.loadAndGetFromCache(key, HITS, LOADER, String.class, TTL);
+            }
+            hits = provider.getCache(HITS, Long.class, String.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void drop() {
+            provider.dropAllCaches();
+        }
+    }
+
+    /**
+     * The keys requested by a single benchmark thread, seeded by the thread index
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private static final int SEQUENCE_LENGTH = 1 << 16;
+
+        Long[] sequence;
+
+        int next;
+
+        long missKey;
+
+        @Setup(Level.Trial)
+        public void generate(final Caches caches, final ThreadParams threadParams) {
+            sequence = caches.distribution.keys(caches.keySpace, SEQUENCE_LENGTH, 42L + threadParams.getThreadIndex());
+            missKey = (long) threadParams.getThreadIndex() << 40;
+        }
+
+        Long nextKey() {
+            Long key = sequence[next];
+            next = (next + 1) & (SEQUENCE_LENGTH - 1);
+            return key;
+        }
+    }
+
+    @Benchmark
+    public String hit(final Caches caches, final Keys keys) {
+        return caches.provider.loadAndGetFromCache(keys.nextKey(), HITS, LOADER, String.class, TTL);
+    }
+
+    /**
+     * Hits through a cache handle resolved once, skipping the lookup of the cache by name
+     */
+    @Benchmark
+    public String handleHit(final Caches caches, final Keys keys) {
+        return caches.hits.loadAndGet(keys.nextKey(), LOADER, TTL);
+    }
+
+    /**
+     * Every request loads a new key into a cache bounded to the key space, so misses include the eviction
+     */
+    @Benchmark
+    public String miss(final Caches caches, final Keys keys) {
+        return caches.provider.loadAndGetFromCache(keys.missKey++, MISSES, LOADER, String.class, TTL);
+    }
+
+    /**
+     * Entries expire as soon as they are written, so every request reloads an expired (or absent) key
+     */
+    @Benchmark
+    public String expiredReload(final Caches caches, final Keys keys) {
+        return caches.provider.loadAndGetFromCache(keys.nextKey(), EXPIRED, LOADER, String.class, 0L);
+    }
+
+    @Benchmark
+    public String invalidateAndReload(final Caches caches, final Keys keys) {
+        Long key = keys.nextKey();
+        caches.provider.invalidateCacheEntry(key, HITS);
+        return caches.provider.loadAndGetFromCache(key, HITS, LOADER, String.class, TTL);
+    }
+}
@@ -0,0 +1,256 @@
+package org.fermented.dairy.microprofile.caching.metrics;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.java.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.fermented.dairy.microprofile.caching.interfaces.EvictionCause;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+
+/**
+ * Exports the {@link CacheStats} of every cache of every {@link CacheProvider} as MicroProfile Metrics, tagged with
+ * the provider and cache name. Caches are created on first use, so new caches are looked for periodically.
+ * <p>
+ * Counters, read from the stats of the cache: cache.hits, cache.misses, cache.loads (result=success|failure),
+ * cache.loadTimeouts, cache.loadTime (total, in nanoseconds) and cache.evictions (cause=size|expired|collected).
+ * The gauge cache.hitRate. The timer cache.loadLatency, fed periodically with the loads counted by the latency
+ * histogram of the cache since the last sample, each at the upper bound of its bucket.
+ */
+@ApplicationScoped
+@Log
+public class CacheMetricsExporter {
+
+    private static final long SNAPSHOT_MAX_AGE = TimeUnit.SECONDS.toNanos(1);
+
+    @Inject
+    private Map<String, CacheProvider> cacheProviderMap;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.metrics.discoveryPeriod", defaultValue = "10000")
+    private Long discoveryPeriod;
+
+    @Inject
+    @ConfigProperty(name = "org.fermented.diary.caching.metrics.samplePeriod", defaultValue = "1000")
+    private Long samplePeriod;
+
+    private final Set<String> exported = ConcurrentHashMap.newKeySet();
+
+    private final List<LoadLatencySampler> samplers = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService discovery;
+
+    void start(@Observes @Initialized(ApplicationScoped.class) Object initialized) {
+        discovery = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        discovery.scheduleWithFixedDelay(this::discover, 0L, discoveryPeriod, TimeUnit.MILLISECONDS);
+        discovery.scheduleWithFixedDelay(this::sample, samplePeriod, samplePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (discovery != null) {
+            discovery.shutdownNow();
+        }
+    }
+
+    /**
+     * Registers the metrics of the caches that are not exported yet
+     */
+    public void exportNewCaches() {
+        for (CacheProvider cacheProvider : cacheProviderMap.values()) {
+            for (String cacheName : Set.copyOf(cacheProvider.getCacheNames())) {
+                if (cacheProvider.getStats(cacheName).isPresent()
+                        && exported.add(cacheProvider.getProviderName() + '/' + cacheName)) {
+                    export(cacheProvider, cacheName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds the load latency timers with the loads since the last sample
+     */
+    public void sampleLoadLatencies() {
+        samplers.forEach(LoadLatencySampler::sample);
+    }
+
+    private void sample() {
+        try {
+            sampleLoadLatencies();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cache load latency sampling failed", e);
+        }
+    }
+
+    private void discover() {
+        try {
+            exportNewCaches();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Cache metrics discovery failed", e);
+        }
+    }
+
+    private void export(CacheProvider cacheProvider, String cacheName) {
+        StatsSnapshot stats = new StatsSnapshot(cacheProvider, cacheName);
+        Tag providerTag = new Tag("provider", cacheProvider.getProviderName());
+        Tag cacheTag = new Tag("cache", cacheName);
+
+        counter("cache.hits", MetricUnits.NONE, stats, CacheStats::getHitCount, providerTag, cacheTag);
+        counter("cache.misses", MetricUnits.NONE, stats, CacheStats::getMissCount, providerTag, cacheTag);
+        metricRegistry.gauge("cache.hitRate", () -> stats.get().getHitRate(), providerTag, cacheTag);
+        counter("cache.loads", MetricUnits.NONE, stats, CacheStats::getLoadSuccessCount,
+                providerTag, cacheTag, new Tag("result", "success"));
+        counter("cache.loads", MetricUnits.NONE, stats, CacheStats::getLoadFailureCount,
+                providerTag, cacheTag, new Tag("result", "failure"));
+        counter("cache.loadTimeouts", MetricUnits.NONE, stats, CacheStats::getLoadTimeoutCount, providerTag, cacheTag);
+        counter("cache.loadTime", MetricUnits.NANOSECONDS, stats, CacheStats::getTotalLoadTime, providerTag, cacheTag);
+        for (EvictionCause cause : EvictionCause.values()) {
+            counter("cache.evictions", MetricUnits.NONE, stats, cacheStats -> cacheStats.getEvictionCount(cause),
+                    providerTag, cacheTag, new Tag("cause", cause.name().toLowerCase(Locale.ROOT)));
+        }
+        Timer loadLatency = metricRegistry.timer(Metadata.builder()
+                .withName("cache.loadLatency")
+                .withType(MetricType.TIMER)
+                .withUnit(MetricUnits.NANOSECONDS)
+                .build(), providerTag, cacheTag);
+        samplers.add(new LoadLatencySampler(cacheProvider, cacheName, loadLatency));
+    }
+
+    private void counter(String name, String unit, StatsSnapshot stats, ToLongFunction<CacheStats> count,
+                         Tag... tags) {
+        Metadata metadata = Metadata.builder()
+                .withName(name)
+                .withType(MetricType.COUNTER)
+                .withUnit(unit)
+                .build();
+        metricRegistry.register(metadata, new StatsCounter(stats, count), tags);
+    }
+
+    /**
+     * A counter reading its count from the stats of the cache, the cache provider does the counting
+     */
+    private static final class StatsCounter implements Counter {
+
+        private final StatsSnapshot stats;
+
+        private final ToLongFunction<CacheStats> count;
+
+        private StatsCounter(StatsSnapshot stats, ToLongFunction<CacheStats> count) {
+            this.stats = stats;
+            this.count = count;
+        }
+
+        @Override
+        public void inc() {
+            inc(1L);
+        }
+
+        @Override
+        public void inc(long n) {
+            throw new UnsupportedOperationException("Counted by the cache provider");
+        }
+
+        @Override
+        public long getCount() {
+            return count.applyAsLong(stats.get());
+        }
+    }
+
+    /**
+     * Updates a timer with the loads added to the latency histogram of a cache since the previous sample. Only called
+     * from the scheduler thread.
+     */
+    private static final class LoadLatencySampler {
+
+        private final CacheProvider cacheProvider;
+
+        private final String cacheName;
+
+        private final Timer timer;
+
+        private final long[] sampled = new long[CacheStats.LOAD_LATENCY_BUCKETS];
+
+        private LoadLatencySampler(CacheProvider cacheProvider, String cacheName, Timer timer) {
+            this.cacheProvider = cacheProvider;
+            this.cacheName = cacheName;
+            this.timer = timer;
+        }
+
+        void sample() {
+            List<Long> histogram = cacheProvider.getStats(cacheName).orElse(CacheStats.EMPTY).getLoadLatencyHistogram();
+            for (int bucket = 0; bucket < histogram.size() && bucket < sampled.length; bucket++) {
+                long loads = histogram.get(bucket);
+                if (loads > sampled[bucket]) {
+                    Duration latency = Duration.ofNanos(representativeLatency(bucket));
+                    for (long load = sampled[bucket]; load < loads; load++) {
+                        timer.update(latency);
+                    }
+                    sampled[bucket] = loads;
+                }
+            }
+        }
+
+        private static long representativeLatency(int bucket) {
+            long upperBound = CacheStats.loadLatencyUpperBound(bucket);
+            return upperBound == Long.MAX_VALUE ? CacheStats.loadLatencyUpperBound(bucket - 1) : upperBound;
+        }
+    }
+
+    /**
+     * Reuses a snapshot of the stats for up to a second, so a scrape reading all gauges of a cache takes one snapshot
+     */
+    private static final class StatsSnapshot {
+
+        private final CacheProvider cacheProvider;
+
+        private final String cacheName;
+
+        private volatile CacheStats snapshot = CacheStats.EMPTY;
+
+        private volatile long takenAt = System.nanoTime() - SNAPSHOT_MAX_AGE;
+
+        private StatsSnapshot(CacheProvider cacheProvider, String cacheName) {
+            this.cacheProvider = cacheProvider;
+            this.cacheName = cacheName;
+        }
+
+        CacheStats get() {
+            long now = System.nanoTime();
+            if (now - takenAt >= SNAPSHOT_MAX_AGE) {
+                snapshot = cacheProvider.getStats(cacheName).orElse(CacheStats.EMPTY);
+                takenAt = now;
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.fermented.dairy.microprofile.caching.metrics;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+class CacheMetricsExporterTest {
+
+    @Mock
+    private MetricRegistry metricRegistry;
+
+    @Spy
+    private Map<String, CacheProvider> cacheProviderMap =
+            Map.of("TestCacheProvider", Mockito.mock(CacheProvider.class));
+
+    @InjectMocks
+    CacheMetricsExporter cacheMetricsExporter;
+
+    @Mock
+    private Timer loadLatency;
+
+    @DisplayName("when exporting new caches then register the counters of each cache once")
+    @Test
+    void whenExportingNewCachesThenRegisterTheCountersOfEachCacheOnce() {
+        CacheProvider cacheProvider = cacheProviderMap.get("TestCacheProvider");
+        when(cacheProvider.getProviderName()).thenReturn("TestCacheProvider");
+        when(cacheProvider.getCacheNames()).thenReturn(List.of("TestCacheName"));
+        when(cacheProvider.getStats("TestCacheName")).thenReturn(Optional.of(CacheStats.builder().hitCount(3L).build()));
+
+        cacheMetricsExporter.exportNewCaches();
+        cacheMetricsExporter.exportNewCaches();
+
+        ArgumentCaptor<Metadata> metadata = ArgumentCaptor.forClass(Metadata.class);
+        ArgumentCaptor<Counter> hits = ArgumentCaptor.forClass(Counter.class);
+        verify(metricRegistry, times(1)).register(
+                argThat((Metadata hitsMetadata) -> "cache.hits".equals(hitsMetadata.getName())), hits.capture(),
+                eq(new Tag("provider", "TestCacheProvider")), eq(new Tag("cache", "TestCacheName")));
+        verify(metricRegistry, times(4)).register(metadata.capture(), any(Counter.class),
+                eq(new Tag("provider", "TestCacheProvider")), eq(new Tag("cache", "TestCacheName")));
+        assertAll("Verify the hits are exported as a counter reading the cache stats",
+                () -> assertEquals(MetricType.COUNTER, metadata.getAllValues().get(0).getTypeRaw(), "hits not registered as a counter"),
+                () -> assertEquals(3L, hits.getValue().getCount(), "counter not reading the cache stats"));
+    }
+
+    @DisplayName("when sampling load latencies then update the timer with the loads since the previous sample")
+    @Test
+    void whenSamplingLoadLatenciesThenUpdateTheTimerWithTheLoadsSinceThePreviousSample() {
+        CacheProvider cacheProvider = cacheProviderMap.get("TestCacheProvider");
+        when(cacheProvider.getProviderName()).thenReturn("TestCacheProvider");
+        when(cacheProvider.getCacheNames()).thenReturn(List.of("TestCacheName"));
+        lenient().when(metricRegistry.timer(argThat((Metadata metadata) -> "cache.loadLatency".equals(metadata.getName())),
+                any(Tag[].class))).thenReturn(loadLatency);
+        when(cacheProvider.getStats("TestCacheName")).thenReturn(
+                Optional.of(CacheStats.builder().loadLatencyHistogram(histogram(2L, 0L)).build()),
+                Optional.of(CacheStats.builder().loadLatencyHistogram(histogram(2L, 0L)).build()),
+                Optional.of(CacheStats.builder().loadLatencyHistogram(histogram(3L, 1L)).build()));
+
+        cacheMetricsExporter.exportNewCaches();
+        cacheMetricsExporter.sampleLoadLatencies();
+        cacheMetricsExporter.sampleLoadLatencies();
+
+        assertAll("Verify every load is timed once, at the upper bound of its bucket",
+                () -> verify(loadLatency, times(3)).update(Duration.ofNanos(CacheStats.loadLatencyUpperBound(0))),
+                () -> verify(loadLatency, times(1)).update(Duration.ofNanos(CacheStats.loadLatencyUpperBound(1))));
+    }
+
+    @DisplayName("when a provider does not count then do not export its caches")
+    @Test
+    void whenAProviderDoesNotCountThenDoNotExportItsCaches() {
+        CacheProvider cacheProvider = cacheProviderMap.get("TestCacheProvider");
+        when(cacheProvider.getCacheNames()).thenReturn(List.of("TestCacheName"));
+        when(cacheProvider.getStats("TestCacheName")).thenReturn(Optional.empty());
+
+        cacheMetricsExporter.exportNewCaches();
+
+        verify(metricRegistry, Mockito.never()).register(any(Metadata.class), any(Counter.class), any(Tag[].class));
+    }
+
+    private static List<Long> histogram(long firstBucket, long secondBucket) {
+        List<Long> histogram = new ArrayList<>(Collections.nCopies(CacheStats.LOAD_LATENCY_BUCKETS, 0L));
+        histogram.set(0, firstBucket);
+        histogram.set(1, secondBucket);
+        return histogram;
+    }
+}
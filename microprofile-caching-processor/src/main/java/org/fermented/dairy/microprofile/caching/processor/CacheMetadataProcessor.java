@@ -0,0 +1,494 @@
+package org.fermented.dairy.microprofile.caching.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Generates, per package, an implementation of GeneratedCacheMetadata holding the resolved {@code @Cachable} settings
+ * of the cached types of the package and direct-call key extractors for the {@code @CacheRetrieve},
+ * {@code @CacheRemove} and {@code @CacheUpdate} methods of its beans, and registers the generated classes for the
+ * ServiceLoader.
+ * <p>
+ * The extractors follow the rules the interceptors apply by reflection: a single parameter is the key, or holds it if
+ * it is an instance of the cached type; otherwise the key is read from the first parameter of the cached type, or is
+ * the first {@code @CacheKey} parameter. Keys read from a cached type call the getter of its {@code @CacheKey} field,
+ * which must be public, or generated by Lombok. Methods and types the processor cannot resolve are left out, the
+ * interceptors handle them by reflection as before.
+ * <p>
+ * Annotations are read by name, the processor does not depend on the caching API.
+ */
+@SupportedAnnotationTypes({
+        CacheMetadataProcessor.CACHABLE,
+        CacheMetadataProcessor.CACHE_RETRIEVE,
+        CacheMetadataProcessor.CACHE_REMOVE,
+        CacheMetadataProcessor.CACHE_UPDATE
+})
+public class CacheMetadataProcessor extends AbstractProcessor {
+
+    static final String GENERATED_CLASS_NAME = "CacheMetadataIndex";
+
+    static final String METADATA_INTERFACE = "org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata";
+
+    private static final String CACHE_OPTIONS = "org.fermented.dairy.microprofile.caching.interfaces.CacheOptions";
+
+    private static final String VALUE_STRENGTH = "org.fermented.dairy.microprofile.caching.interfaces.ValueStrength";
+
+    private static final String ANNOTATIONS = "org.fermented.dairy.microprofile.caching.annotations.";
+
+    static final String CACHABLE = ANNOTATIONS + "Cachable";
+
+    static final String CACHE_RETRIEVE = ANNOTATIONS + "CacheRetrieve";
+
+    static final String CACHE_REMOVE = ANNOTATIONS + "CacheRemove";
+
+    static final String CACHE_UPDATE = ANNOTATIONS + "CacheUpdate";
+
+    private static final String CACHE_KEY = ANNOTATIONS + "CacheKey";
+
+    private static final Set<String> LOMBOK_GETTERS = Set.of("lombok.Getter", "lombok.Data", "lombok.Value");
+
+    /**
+     * The generated classes, by binary name, registered once processing is over
+     */
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            registerGenerated();
+            return false;
+        }
+        Map<String, PackageMetadata> packages = new TreeMap<>();
+        for (TypeElement annotation : annotations) {
+            String annotationName = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (CACHABLE.equals(annotationName) && element instanceof TypeElement type) {
+                    addCachedType(packages, type);
+                } else if (element.getKind() == ElementKind.METHOD) {
+                    addMethod(packages, (ExecutableElement) element, annotationName);
+                }
+            }
+        }
+        packages.forEach(this::generate);
+        return false;
+    }
+
+    private void addCachedType(final Map<String, PackageMetadata> packages, final TypeElement type) {
+        if (!isAccessibleFrom(type, packageOf(type))) {
+            return;
+        }
+        AnnotationMirror cachable = annotation(type, CACHABLE).orElseThrow();
+        Map<String, Object> values = values(cachable);
+        String cacheName = (String) values.get("cacheName");
+        String literal = "new CachedType(" + literal(cacheName.isBlank() ? type.getQualifiedName().toString() : cacheName)
+                + ", " + values.get("defaultTtl") + "L"
+                + ", " + literal((String) values.get("cacheProvider"))
+                + ", " + options(values)
+                + ", " + keyGetter(type, packageOf(type)).map(getter -> "object -> ((" + sourceName(type.asType()) + ") object)." + getter + "()").orElse("null")
+                + ")";
+        packages.computeIfAbsent(packageOf(type), name -> new PackageMetadata()).cachedTypes.put(sourceName(type.asType()), literal);
+    }
+
+    /**
+     * @param values the values of a Cachable annotation, see {@link #values(AnnotationMirror)}
+     * @return a CacheOptions builder chain with the options of the annotation
+     */
+    private static String options(final Map<String, Object> values) {
+        return CACHE_OPTIONS + ".builder()"
+                + ".loadTimeout(" + values.get("loadTimeout") + "L)"
+                + ".maximumSize(" + values.get("maximumSize") + "L)"
+                + ".refreshAfterWrite(" + values.get("refreshAfterWrite") + "L)"
+                + ".negativeTtl(" + values.get("negativeTtl") + "L)"
+                + ".maximumNegativeSize(" + values.get("maximumNegativeSize") + "L)"
+                + ".valueStrength(" + VALUE_STRENGTH + "." + ((VariableElement) values.get("valueStrength")).getSimpleName() + ")"
+                + ".build()";
+    }
+
+    private void addMethod(final Map<String, PackageMetadata> packages, final ExecutableElement method, final String annotationName) {
+        TypeElement bean = (TypeElement) method.getEnclosingElement();
+        String packageName = packageOf(bean);
+        if (method.getModifiers().contains(Modifier.PRIVATE) || !isAccessibleFrom(bean, packageName)) {
+            return;
+        }
+        Optional<TypeMirror> cacheClass = cacheClass(method, annotationName);
+        if (cacheClass.isEmpty() || !isAccessibleFrom(cacheClass.get(), packageName)) {
+            return;
+        }
+        planExtractor(method, cacheClass.get(), packageName).ifPresent(extractor ->
+                packages.computeIfAbsent(packageName, name -> new PackageMetadata()).keyExtractors
+                        .computeIfAbsent(signature(bean, method), signature -> new LinkedHashMap<>())
+                        .put(sourceName(cacheClass.get()), extractor));
+    }
+
+    /**
+     * The cached type of an intercepted method, as the interceptor of the annotation determines it
+     */
+    private Optional<TypeMirror> cacheClass(final ExecutableElement method, final String annotationName) {
+        TypeMirror returnType = method.getReturnType();
+        AnnotationMirror annotation = annotation(method, annotationName).orElseThrow();
+        switch (annotationName) {
+            case CACHE_REMOVE:
+                if (Boolean.TRUE.equals(values(annotation).get("allEntries"))) {
+                    return Optional.empty(); //Clears the whole cache, no key to extract
+                }
+                return Optional.of((TypeMirror) values(annotation).get("cacheClass"));
+            case CACHE_UPDATE:
+                if (returnType.getKind() == TypeKind.VOID) {
+                    return Optional.empty();
+                }
+                return isOptional(returnType) ? typeArgument(returnType) : Optional.of(erasure(returnType));
+            case CACHE_RETRIEVE:
+                Map<String, Object> values = values(annotation);
+                if (Boolean.TRUE.equals(values.get("bulk"))) {
+                    return Optional.empty(); //Bulk retrieval reads the keys from the collection, not through an extractor
+                }
+                TypeMirror optionalWrappedClass = (TypeMirror) values.get("optionalWrappedClass");
+                if (isAssignable(returnType, "java.util.concurrent.CompletionStage")) {
+                    return typeArgument(returnType).map(valueType -> isOptional(valueType) ? optionalWrappedClass : valueType);
+                }
+                return Optional.of(isOptional(returnType) ? optionalWrappedClass : erasure(returnType));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the source of a lambda extracting the cache key from the parameters, empty if it cannot be generated
+     */
+    private Optional<String> planExtractor(final ExecutableElement method, final TypeMirror cacheClass, final String packageName) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        Optional<String> keyGetter = cacheClass instanceof DeclaredType declaredType
+                ? keyGetter((TypeElement) declaredType.asElement(), packageName)
+                : Optional.empty();
+        String cast = "((" + sourceName(cacheClass) + ") parameters[%d])";
+
+        if (parameters.size() == 1) {
+            if (cacheClass.getKind() != TypeKind.DECLARED
+                    || !processingEnv.getTypeUtils().isAssignable(cacheClass, erasure(parameters.get(0).asType()))) {
+                return Optional.of("parameters -> parameters[0]");
+            }
+            return keyGetter.map(getter -> "parameters -> parameters[0] != null && parameters[0].getClass() == "
+                    + sourceName(cacheClass) + ".class ? " + cast.formatted(0) + "." + getter + "() : parameters[0]");
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            if (processingEnv.getTypeUtils().isSameType(erasure(parameters.get(i).asType()), cacheClass)) {
+                int index = i;
+                if (keyGetter.isPresent()) {
+                    return keyGetter.map(getter -> "parameters -> " + cast.formatted(index) + "." + getter + "()");
+                }
+                if (hasKeyField((TypeElement) ((DeclaredType) cacheClass).asElement())) {
+                    return Optional.empty(); //The key is read without a getter at runtime
+                }
+                break; //The cached type carries no key, the key is the @CacheKey parameter
+            }
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            if (annotation(parameters.get(i), CACHE_KEY).isPresent()) {
+                return Optional.of("parameters -> parameters[" + i + "]");
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the name of the getter of the {@code @CacheKey} field of the type or its superclasses, empty if there is
+     * none the generated class can call
+     */
+    private Optional<String> keyGetter(final TypeElement type, final String packageName) {
+        for (TypeElement declaring = type; declaring != null; declaring = superclass(declaring)) {
+            Optional<VariableElement> keyField = ElementFilter.fieldsIn(declaring.getEnclosedElements()).stream()
+                    .filter(field -> annotation(field, CACHE_KEY).isPresent())
+                    .findFirst();
+            if (keyField.isPresent()) {
+                VariableElement field = keyField.get();
+                String name = field.getSimpleName().toString();
+                String getter = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                boolean callable = isAccessibleFrom(declaring, packageName) && (ElementFilter.methodsIn(declaring.getEnclosedElements()).stream()
+                        .anyMatch(method -> method.getSimpleName().contentEquals(getter) && method.getParameters().isEmpty()
+                                && isAccessibleFrom(method, packageName))
+                        || hasLombokGetter(field) || hasLombokGetter(declaring));
+                return callable ? Optional.of(getter) : Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return whether the type or one of its superclasses has a {@code @CacheKey} field
+     */
+    private boolean hasKeyField(final TypeElement type) {
+        for (TypeElement declaring = type; declaring != null; declaring = superclass(declaring)) {
+            if (ElementFilter.fieldsIn(declaring.getEnclosedElements()).stream()
+                    .anyMatch(field -> annotation(field, CACHE_KEY).isPresent())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasLombokGetter(final Element element) {
+        return element.getAnnotationMirrors().stream().anyMatch(mirror -> {
+            String name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (!LOMBOK_GETTERS.contains(name)) {
+                return false;
+            }
+            return mirror.getElementValues().entrySet().stream() //@Getter(AccessLevel.X), public unless set otherwise
+                    .filter(value -> value.getKey().getSimpleName().contentEquals("value"))
+                    .allMatch(value -> value.getValue().getValue().toString().equals("PUBLIC"));
+        });
+    }
+
+    private TypeElement superclass(final TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superType = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superType.getQualifiedName().contentEquals("java.lang.Object") ? null : superType;
+    }
+
+    private boolean isAssignable(final TypeMirror type, final String targetName) {
+        TypeElement target = processingEnv.getElementUtils().getTypeElement(targetName);
+        return target != null && processingEnv.getTypeUtils().isAssignable(erasure(type), erasure(target.asType()));
+    }
+
+    private boolean isOptional(final TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.util.Optional");
+    }
+
+    /**
+     * @return the erasure of the first type argument, empty for a raw type
+     */
+    private Optional<TypeMirror> typeArgument(final TypeMirror type) {
+        if (type instanceof DeclaredType declaredType && !declaredType.getTypeArguments().isEmpty()) {
+            TypeMirror argument = declaredType.getTypeArguments().get(0);
+            return argument.getKind() == TypeKind.DECLARED ? Optional.of(erasure(argument)) : Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    private TypeMirror erasure(final TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type);
+    }
+
+    /**
+     * @return the signature of the method as GeneratedCacheMetadata.signature(Method) builds it at runtime
+     */
+    private String signature(final TypeElement bean, final ExecutableElement method) {
+        StringBuilder signature = new StringBuilder(processingEnv.getElementUtils().getBinaryName(bean))
+                .append('#').append(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            signature.append(i == 0 ? "" : ",").append(typeName(erasure(parameters.get(i).asType())));
+        }
+        return signature.append(')').toString();
+    }
+
+    /**
+     * @return the name of the type as Class.getTypeName() returns it
+     */
+    private String typeName(final TypeMirror type) {
+        if (type instanceof ArrayType arrayType) {
+            return typeName(arrayType.getComponentType()) + "[]";
+        }
+        if (type instanceof DeclaredType declaredType) {
+            return processingEnv.getElementUtils().getBinaryName((TypeElement) declaredType.asElement()).toString();
+        }
+        return type.toString();
+    }
+
+    private String sourceName(final TypeMirror type) {
+        return erasure(type).toString();
+    }
+
+    private boolean isAccessibleFrom(final TypeMirror type, final String packageName) {
+        if (type instanceof ArrayType arrayType) {
+            return isAccessibleFrom(arrayType.getComponentType(), packageName);
+        }
+        return !(type instanceof DeclaredType declaredType) || isAccessibleFrom(declaredType.asElement(), packageName);
+    }
+
+    /**
+     * @return whether code in the package can refer to the element (and its enclosing types)
+     */
+    private boolean isAccessibleFrom(final Element element, final String packageName) {
+        for (Element current = element; !(current instanceof PackageElement); current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)
+                    || !modifiers.contains(Modifier.PUBLIC) && !packageOf(current).equals(packageName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String packageOf(final Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+
+    private static Optional<AnnotationMirror> annotation(final Element element, final String annotationName) {
+        return element.getAnnotationMirrors().stream()
+                .filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName))
+                .map(AnnotationMirror.class::cast)
+                .findFirst();
+    }
+
+    /**
+     * @return the values of the annotation, defaults included, by element name
+     */
+    private Map<String, Object> values(final AnnotationMirror annotation) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            values.put(value.getKey().getSimpleName().toString(), value.getValue().getValue());
+        }
+        return values;
+    }
+
+    private static String literal(final String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private void generate(final String packageName, final PackageMetadata metadata) {
+        String simpleName = GENERATED_CLASS_NAME;
+        for (int i = 2; generated.contains(qualify(packageName, simpleName)); i++) { //Package seen in an earlier round
+            simpleName = GENERATED_CLASS_NAME + i;
+        }
+        String className = qualify(packageName, simpleName);
+        try {
+            JavaFileObject source = processingEnv.getFiler().createSourceFile(className);
+            try (Writer writer = source.openWriter()) {
+                writer.write(metadata.toSource(packageName, simpleName,
+                        processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null));
+            }
+            generated.add(className);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not generate cache metadata for package " + packageName + ": " + e.getMessage());
+        }
+    }
+
+    private void registerGenerated() {
+        if (generated.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject services = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + METADATA_INTERFACE);
+            try (Writer writer = services.openWriter()) {
+                for (String className : generated) {
+                    writer.write(className + "\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not register the generated cache metadata: " + e.getMessage());
+        }
+    }
+
+    private static String qualify(final String packageName, final String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * The metadata of one package, as source fragments
+     */
+    private static final class PackageMetadata {
+
+        /**
+         * CachedType constructor calls, by cached type
+         */
+        private final Map<String, String> cachedTypes = new TreeMap<>();
+
+        /**
+         * Extractor lambdas by cached type, by method signature
+         */
+        private final Map<String, Map<String, String>> keyExtractors = new TreeMap<>();
+
+        private String toSource(final String packageName, final String simpleName, final boolean generatedAnnotation) {
+            List<String> lines = new ArrayList<>();
+            if (!packageName.isEmpty()) {
+                lines.add("package " + packageName + ";");
+                lines.add("");
+            }
+            lines.add("import " + METADATA_INTERFACE + ";");
+            lines.add("");
+            lines.add("import java.util.function.Function;");
+            lines.add("");
+            if (generatedAnnotation) {
+                lines.add("@javax.annotation.processing.Generated(\"" + CacheMetadataProcessor.class.getName() + "\")");
+            }
+            lines.add("public final class " + simpleName + " implements GeneratedCacheMetadata {");
+            lines.add("");
+            List<String> types = List.copyOf(cachedTypes.keySet());
+            for (int i = 0; i < types.size(); i++) {
+                lines.add("    private static final CachedType CACHED_TYPE_" + i + " = " + cachedTypes.get(types.get(i)) + ";");
+                lines.add("");
+            }
+            lines.add("    @Override");
+            lines.add("    public CachedType cachedType(final Class<?> type) {");
+            for (int i = 0; i < types.size(); i++) {
+                lines.add("        if (type == " + types.get(i) + ".class) {");
+                lines.add("            return CACHED_TYPE_" + i + ";");
+                lines.add("        }");
+            }
+            lines.add("        return null;");
+            lines.add("    }");
+            lines.add("");
+            lines.add("    @Override");
+            lines.add("    public Function<Object[], Object> keyExtractor(final String method, final Class<?> cacheClass) {");
+            lines.add("        switch (method) {");
+            keyExtractors.forEach((signature, extractors) -> {
+                lines.add("            case " + literal(signature) + ":");
+                extractors.forEach((cacheClass, extractor) -> {
+                    lines.add("                if (cacheClass == " + cacheClass + ".class) {");
+                    lines.add("                    return " + extractor + ";");
+                    lines.add("                }");
+                });
+                lines.add("                return null;");
+            });
+            lines.add("            default:");
+            lines.add("                return null;");
+            lines.add("        }");
+            lines.add("    }");
+            lines.add("}");
+            return String.join("\n", lines) + "\n";
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.fermented.dairy.microprofile.caching.processor;
+
+import org.fermented.dairy.microprofile.caching.interfaces.CacheOptions;
+import org.fermented.dairy.microprofile.caching.interfaces.GeneratedCacheMetadata;
+import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheMetadataProcessorTest {
+
+    private static final String ENTITY = """
+            package sample;
+
+            import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+            import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+            import org.fermented.dairy.microprofile.caching.interfaces.ValueStrength;
+
+            @Cachable(cacheName = "Entities", cacheProvider = "TestCacheProvider", defaultTtl = 1000L, loadTimeout = 2000L,
+                    maximumSize = 100L, refreshAfterWrite = 500L, negativeTtl = 50L, maximumNegativeSize = 10L,
+                    valueStrength = ValueStrength.SOFT)
+            public class Entity {
+
+                @CacheKey
+                private final Long id;
+
+                public Entity(Long id) {
+                    this.id = id;
+                }
+
+                public Long getId() {
+                    return id;
+                }
+            }
+            """;
+
+    private static final String NO_GETTER_ENTITY = """
+            package sample;
+
+            import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+            import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+
+            @Cachable
+            public class NoGetterEntity {
+
+                @CacheKey
+                private Long id;
+            }
+            """;
+
+    private static final String KEYLESS_ENTITY = """
+            package sample;
+
+            import org.fermented.dairy.microprofile.caching.annotations.Cachable;
+
+            @Cachable
+            public class KeylessEntity {
+
+                public Long getId() {
+                    return 1L;
+                }
+            }
+            """;
+
+    private static final String SERVICE = """
+            package sample;
+
+            import org.fermented.dairy.microprofile.caching.annotations.CacheKey;
+            import org.fermented.dairy.microprofile.caching.annotations.CacheRemove;
+            import org.fermented.dairy.microprofile.caching.annotations.CacheRetrieve;
+            import org.fermented.dairy.microprofile.caching.annotations.CacheUpdate;
+
+            import java.util.List;
+
+            public class Service {
+
+                @CacheRetrieve
+                public Entity get(Long id) {
+                    return new Entity(id);
+                }
+
+                @CacheRetrieve
+                public Entity find(String region, @CacheKey Long id) {
+                    return new Entity(id);
+                }
+
+                @CacheRemove(cacheClass = Entity.class)
+                public void remove(String reason, Entity entity) {
+                }
+
+                @CacheUpdate
+                public Entity update(Entity entity) {
+                    return entity;
+                }
+
+                @CacheRemove(cacheClass = KeylessEntity.class)
+                public void removeKeyless(KeylessEntity entity, @CacheKey Long id) {
+                }
+
+                @CacheRetrieve(bulk = true)
+                public List<Entity> getAll(List<Long> ids) {
+                    return List.of();
+                }
+
+                @CacheRetrieve
+                public Entity getFirst(List<Long> ids) {
+                    return new Entity(ids.get(0));
+                }
+            }
+            """;
+
+    @TempDir
+    static Path workDir;
+
+    private static ClassLoader compiled;
+
+    @BeforeAll
+    static void compileSamples() throws IOException {
+        Path sources = Files.createDirectories(workDir.resolve("src/sample"));
+        Path classes = Files.createDirectories(workDir.resolve("classes"));
+        Files.writeString(sources.resolve("Entity.java"), ENTITY);
+        Files.writeString(sources.resolve("NoGetterEntity.java"), NO_GETTER_ENTITY);
+        Files.writeString(sources.resolve("KeylessEntity.java"), KEYLESS_ENTITY);
+        Files.writeString(sources.resolve("Service.java"), SERVICE);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+             var sourceFiles = Files.list(sources)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-classpath", System.getProperty("java.class.path"), "-d", classes.toString(),
+                            "-s", Files.createDirectories(workDir.resolve("generated")).toString()),
+                    null, fileManager.getJavaFileObjectsFromPaths(sourceFiles.toList()));
+            task.setProcessors(List.of(new CacheMetadataProcessor()));
+            assertTrue(task.call(), () -> "Samples did not compile: " + diagnostics.getDiagnostics());
+        }
+        compiled = new URLClassLoader(new URL[]{classes.toUri().toURL()}, CacheMetadataProcessorTest.class.getClassLoader());
+    }
+
+    @DisplayName("given a cachable type when compiled then generate its resolved settings and key accessor")
+    @Test
+    void givenACachableTypeWhenCompiledThenGenerateItsResolvedSettingsAndKeyAccessor() throws Exception {
+        GeneratedCacheMetadata metadata = loadMetadata();
+        Class<?> entityClass = compiled.loadClass("sample.Entity");
+        Object entity = entityClass.getConstructor(Long.class).newInstance(5L);
+
+        GeneratedCacheMetadata.CachedType entityType = metadata.cachedType(entityClass);
+        GeneratedCacheMetadata.CachedType noGetterType = metadata.cachedType(compiled.loadClass("sample.NoGetterEntity"));
+
+        assertAll("Verify cached types",
+                () -> assertEquals("Entities", entityType.cacheName(), "incorrect cache name"),
+                () -> assertEquals(1000L, entityType.ttl(), "incorrect ttl"),
+                () -> assertEquals("TestCacheProvider", entityType.providerName(), "incorrect provider name"),
+                () -> assertEquals(CacheOptions.builder().loadTimeout(2000L).maximumSize(100L).refreshAfterWrite(500L)
+                        .negativeTtl(50L).maximumNegativeSize(10L).valueStrength(ValueStrength.SOFT).build(),
+                        entityType.options(), "incorrect options"),
+                () -> assertEquals(5L, entityType.keyAccessor().apply(entity), "incorrect key read"),
+                () -> assertEquals("sample.NoGetterEntity", noGetterType.cacheName(), "cache name not defaulted to the class name"),
+                () -> assertEquals(300000L, noGetterType.ttl(), "ttl not defaulted"),
+                () -> assertEquals(CacheOptions.DEFAULT, noGetterType.options(), "options not defaulted"),
+                () -> assertNull(noGetterType.keyAccessor(), "key accessor generated without a getter"),
+                () -> assertNull(metadata.cachedType(String.class), "metadata for a type that is not cached"),
+                () -> assertSame(entityType, metadata.cachedType(entityClass), "cached type created on every lookup")
+        );
+    }
+
+    @DisplayName("given intercepted methods when compiled then generate key extractors following the interceptor rules")
+    @Test
+    void givenInterceptedMethodsWhenCompiledThenGenerateKeyExtractorsFollowingTheInterceptorRules() throws Exception {
+        GeneratedCacheMetadata metadata = loadMetadata();
+        Class<?> entityClass = compiled.loadClass("sample.Entity");
+        Class<?> serviceClass = compiled.loadClass("sample.Service");
+        Object entity = entityClass.getConstructor(Long.class).newInstance(5L);
+
+        Function<Object[], Object> get = extractor(metadata, serviceClass.getMethod("get", Long.class), entityClass);
+        Function<Object[], Object> find = extractor(metadata, serviceClass.getMethod("find", String.class, Long.class), entityClass);
+        Function<Object[], Object> remove = extractor(metadata, serviceClass.getMethod("remove", String.class, entityClass), entityClass);
+        Function<Object[], Object> update = extractor(metadata, serviceClass.getMethod("update", entityClass), entityClass);
+        Function<Object[], Object> getFirst = extractor(metadata, serviceClass.getMethod("getFirst", List.class), entityClass);
+        Class<?> keylessClass = compiled.loadClass("sample.KeylessEntity");
+        Function<Object[], Object> removeKeyless = extractor(metadata, serviceClass.getMethod("removeKeyless", keylessClass, Long.class), keylessClass);
+        Object keyless = keylessClass.getConstructor().newInstance();
+
+        assertAll("Verify key extractors",
+                () -> assertEquals(7L, get.apply(new Object[]{7L}), "single parameter not used as the key"),
+                () -> assertEquals(9L, find.apply(new Object[]{"eu", 9L}), "cache key parameter not used as the key"),
+                () -> assertEquals(5L, remove.apply(new Object[]{"stale", entity}), "key not read from the cached type parameter"),
+                () -> assertEquals(5L, update.apply(new Object[]{entity}), "key not read from the single cached type parameter"),
+                () -> assertEquals(List.of(1L, 2L), getFirst.apply(new Object[]{List.of(1L, 2L)}), "collection not used as the key without bulk"),
+                () -> assertEquals(3L, removeKeyless.apply(new Object[]{keyless, 3L}), "cache key parameter not used for a cached type without key"),
+                () -> assertNull(metadata.keyExtractor(GeneratedCacheMetadata.signature(serviceClass.getMethod("getAll", List.class)), entityClass),
+                        "extractor generated for a bulk retrieval"),
+                () -> assertNull(metadata.keyExtractor(GeneratedCacheMetadata.signature(serviceClass.getMethod("get", Long.class)), String.class),
+                        "extractor generated for another cached type")
+        );
+    }
+
+    private static GeneratedCacheMetadata loadMetadata() {
+        List<GeneratedCacheMetadata> registered = ServiceLoader.load(GeneratedCacheMetadata.class, compiled).stream()
+                .map(ServiceLoader.Provider::get)
+                .toList();
+        assertEquals(1, registered.size(), "generated metadata not registered");
+        return registered.get(0);
+    }
+
+    private static Function<Object[], Object> extractor(GeneratedCacheMetadata metadata, Method method, Class<?> cacheClass) {
+        Function<Object[], Object> extractor = metadata.keyExtractor(GeneratedCacheMetadata.signature(method), cacheClass);
+        assertNotNull(extractor, () -> "no extractor generated for " + method);
+        return extractor;
+    }
+}
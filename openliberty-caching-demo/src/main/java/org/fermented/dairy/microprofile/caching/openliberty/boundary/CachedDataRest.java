@@ -2,26 +2,35 @@ package org.fermented.dairy.microprofile.caching.openliberty.boundary;
 
 import jakarta.inject.Inject;
 import jakarta.enterprise.inject.Instance;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
 import org.fermented.dairy.microprofile.caching.openliberty.controller.CachedDataService;
 import org.fermented.dairy.microprofile.caching.openliberty.entity.TestEntity;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  *
@@ -64,8 +73,8 @@ public class CachedDataRest {
     }
 
     @GET
-    @Path("caches/keys")
-    public Map<String, Map<String, Collection<String>>> getCacheNamesAndKeys(){
+    @Path("caches/sizes")
+    public Map<String, Map<String, Long>> getCacheSizes(){
         return cacheProvider.stream()
                 .collect(Collectors.toMap(
                         CacheProvider::getProviderName,
@@ -73,13 +82,60 @@ public class CachedDataRest {
                             provider.getCacheNames().stream()
                                     .collect(Collectors.toMap(
                                             Function.identity(),
-                                            cacheName -> provider.getKeys(cacheName).stream()
-                                                    .map(Object::toString)
-                                                    .toList()
+                                            provider::size
                                     ))
                 ));
     }
 
+    /**
+     * Streams the keys of all caches of all providers to the response as they are enumerated, without collecting them
+     */
+    @GET
+    @Path("caches/keys")
+    public StreamingOutput getCacheNamesAndKeys(){
+        return output -> {
+            try (JsonGenerator json = Json.createGenerator(output)) {
+                json.writeStartObject();
+                for (CacheProvider provider : cacheProvider) {
+                    json.writeStartObject(provider.getProviderName());
+                    for (String cacheName : List.copyOf(provider.getCacheNames())) {
+                        json.writeStartArray(cacheName);
+                        try (Stream<Object> keys = provider.streamKeys(cacheName)) {
+                            keys.forEach(key -> json.write(key.toString()));
+                        }
+                        json.writeEnd();
+                    }
+                    json.writeEnd();
+                }
+                json.writeEnd();
+            }
+        };
+    }
+
+    @GET
+    @Path("caches/{provider}/{cacheName}/keys")
+    public Map<String, Object> getCacheKeys(@PathParam("provider") @NotBlank String providerName,
+                                            @PathParam("cacheName") @NotBlank String cacheName,
+                                            @QueryParam("offset") @DefaultValue("0") @PositiveOrZero long offset,
+                                            @QueryParam("limit") @DefaultValue("100") @Positive @Max(10000) int limit){
+        CacheProvider provider = cacheProvider.stream()
+                .filter(candidate -> candidate.getProviderName().equals(providerName))
+                .findFirst()
+                .orElseThrow(NotFoundException::new);
+        List<String> keys;
+        try (Stream<Object> keyStream = provider.streamKeys(cacheName)) {
+            keys = keyStream.skip(offset)
+                    .limit(limit)
+                    .map(Object::toString)
+                    .toList();
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("size", provider.size(cacheName));
+        page.put("offset", offset);
+        page.put("keys", keys);
+        return page;
+    }
+
     @PUT
     @Path("/{id}/{name}")
     public TestEntity editBypassCache(@PathParam("id") @Positive Long id,
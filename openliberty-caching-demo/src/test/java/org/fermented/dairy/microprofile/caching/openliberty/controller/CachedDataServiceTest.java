@@ -0,0 +1,73 @@
+package org.fermented.dairy.microprofile.caching.openliberty.controller;
+
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.enterprise.util.TypeLiteral;
+import org.fermented.dairy.microprofile.caching.interfaces.CacheProvider;
+import org.fermented.dairy.microprofile.caching.openliberty.entity.TestEntity;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the demo beans in a Weld SE container, the caching beans and interceptors are discovered from the api jar
+ */
+class CachedDataServiceTest {
+
+    private static WeldContainer container;
+
+    @BeforeAll
+    static void startContainer() {
+        container = new Weld()
+                .addBeanClasses(CachedDataService.class)
+                .initialize();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        container.close();
+    }
+
+    @DisplayName("Given the demo beans in a container, when a cached entity is retrieved after it was altered, then the cached entity is returned")
+    @Test
+    void givenContainerWhenRetrievingAlteredEntityThenCachedEntityReturned() {
+        CachedDataService service = container.select(CachedDataService.class).get();
+
+        TestEntity cached = service.getTestEntityCached(1L);
+        service.alterUncached(1L, "altered");
+        TestEntity retrieved = service.getTestEntityCached(1L);
+
+        Map<String, CacheProvider> cacheProviders = CDI.current()
+                .select(new TypeLiteral<Map<String, CacheProvider>>() {}).get();
+        assertAll("Verify entity is retrieved from the cache",
+                () -> assertEquals("first", cached.getName(), "first retrieval returned the wrong entity"),
+                () -> assertEquals("first", retrieved.getName(), "second retrieval did not come from the cache"),
+                () -> assertTrue(cacheProviders.containsKey("LocalHashMapCache"),
+                        "default cache provider was not discovered"));
+    }
+
+    @DisplayName("Given the demo beans in a container, when an optional entity is retrieved after it was altered, then the cached entity is returned")
+    @Test
+    void givenContainerWhenRetrievingAlteredOptionalEntityThenCachedEntityReturned() {
+        CachedDataService service = container.select(CachedDataService.class).get();
+
+        Optional<TestEntity> cached = service.getTestEntityCachedOptional(2L);
+        service.alterUncached(2L, "altered");
+        Optional<TestEntity> retrieved = service.getTestEntityCachedOptional(2L);
+
+        assertAll("Verify optional entity is retrieved from the cache",
+                () -> assertEquals("second", cached.map(TestEntity::getName).orElse(null),
+                        "first retrieval returned the wrong entity"),
+                () -> assertEquals("second", retrieved.map(TestEntity::getName).orElse(null),
+                        "second retrieval did not come from the cache"));
+    }
+}